@@ -0,0 +1,184 @@
+package experimento;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.math3.exception.MathArithmeticException;
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ArithmeticFunctionsTest {
+
+    /** Largest number of the tables, spanning several segments. */
+    private static final int N = 3 * (1 << 15) + 1234;
+
+    /** Reference number of divisors, by enumeration of the multiples of each divisor. */
+    private static final int[] DIVISOR_COUNT = new int[N + 1];
+
+    /** Reference sum of divisors, by enumeration of the multiples of each divisor. */
+    private static final long[] DIVISOR_SUM = new long[N + 1];
+
+    static {
+        for (int d = 1; d <= N; d++) {
+            for (int m = d; m <= N; m += d) {
+                DIVISOR_COUNT[m]++;
+                DIVISOR_SUM[m] += d;
+            }
+        }
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            final long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /** Reference totient, by counting the coprime numbers. */
+    private static long naiveTotient(int n) {
+        long count = 0;
+        for (int k = 1; k <= n; k++) {
+            if (gcd(n, k) == 1) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /** Reference M&ouml;bius function, from the prime factors found by trial division. */
+    private static int naiveMoebius(int n) {
+        if (n == 1) {
+            return 1;
+        }
+        final List<Integer> factors = SmallPrimes.trialDivision(n);
+        for (int i = 1; i < factors.size(); i++) {
+            if (factors.get(i).equals(factors.get(i - 1))) {
+                return 0;
+            }
+        }
+        return factors.size() % 2 == 0 ? 1 : -1;
+    }
+
+    /** Reference number of distinct prime factors, from trial division. */
+    private static int naiveOmega(int n) {
+        return n == 1 ? 0 : (int) SmallPrimes.trialDivision(n).stream().distinct().count();
+    }
+
+    /** Reference totient, from the prime factors found by trial division. */
+    private static long productTotient(long n) {
+        long phi = n;
+        for (final long p : PollardRho.primeFactors(n).stream().distinct().toArray(Long[]::new)) {
+            phi = phi / p * (p - 1);
+        }
+        return phi;
+    }
+
+    @Test
+    void totientMatchesCoprimeCount() {
+        final int[] table = ArithmeticFunctions.totientTable(2000);
+        for (int n = 1; n <= 2000; n++) {
+            assertEquals(naiveTotient(n), table[n], "n = " + n);
+            assertEquals(naiveTotient(n), ArithmeticFunctions.totient(n), "n = " + n);
+        }
+        final int[] large = ArithmeticFunctions.totientTable(N);
+        for (int n = 1; n <= N; n++) {
+            assertEquals(productTotient(n), large[n], "n = " + n);
+        }
+    }
+
+    @Test
+    void tablesMatchNaiveDefinitions() {
+        final byte[] moebius = ArithmeticFunctions.moebiusTable(N);
+        final int[] divisorCount = ArithmeticFunctions.divisorCountTable(N);
+        final long[] divisorSum = ArithmeticFunctions.divisorSumTable(N);
+        final byte[] omega = ArithmeticFunctions.distinctPrimeFactorCountTable(N);
+        assertEquals(N + 1, moebius.length);
+        for (int n = 1; n <= N; n++) {
+            assertEquals(naiveMoebius(n), moebius[n], "n = " + n);
+            assertEquals(DIVISOR_COUNT[n], divisorCount[n], "n = " + n);
+            assertEquals(DIVISOR_SUM[n], divisorSum[n], "n = " + n);
+            assertEquals(naiveOmega(n), omega[n], "n = " + n);
+        }
+    }
+
+    @Test
+    void segmentsMatchTables() {
+        final int[] totient = ArithmeticFunctions.totientTable(N);
+        final int lo = 12345;
+        final int[] next = {lo};
+        ArithmeticFunctions.forEachSegment(lo, N + 1, s -> {
+            assertEquals(next[0], s.getLo());
+            for (int n = s.getLo(); n < s.getLo() + s.getSize(); n++) {
+                assertEquals(totient[n], s.totient(n), "n = " + n);
+                assertEquals(naiveMoebius(n), s.moebius(n), "n = " + n);
+                assertEquals(DIVISOR_COUNT[n], s.divisorCount(n), "n = " + n);
+                assertEquals(DIVISOR_SUM[n], s.divisorSum(n), "n = " + n);
+                assertEquals(naiveOmega(n), s.distinctPrimeFactorCount(n), "n = " + n);
+            }
+            next[0] += s.getSize();
+        });
+        assertEquals(N + 1, next[0]);
+        ArithmeticFunctions.forEachSegment(7, 7, s -> assertEquals(0, s.getSize()));
+    }
+
+    @Test
+    void perNumberFunctionsMatchTables() {
+        for (int n = 1; n <= N; n++) {
+            assertEquals(naiveMoebius(n), ArithmeticFunctions.moebius(n), "n = " + n);
+            assertEquals(DIVISOR_COUNT[n], ArithmeticFunctions.divisorCount(n), "n = " + n);
+            assertEquals(DIVISOR_SUM[n], ArithmeticFunctions.divisorSum(n), "n = " + n);
+            assertEquals(naiveOmega(n), ArithmeticFunctions.distinctPrimeFactorCount(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void perNumberFunctionsOnLongs() {
+        final Random random = new Random(27L);
+        for (int i = 0; i < 2000; i++) {
+            // below 2^59, so that the sum of divisors does not overflow
+            final long n = 1 + (random.nextLong() >>> (5 + random.nextInt(40)));
+            final List<Long> factors = PollardRho.primeFactors(n);
+            final long[] powers = new long[30];
+            final int count = n == 1 ? 0 : Primes.primePowers(n, powers);
+            long divisors = 1;
+            for (int k = 0; k < count; k++) {
+                divisors *= powers[2 * k + 1] + 1;
+            }
+            assertEquals(productTotient(n), ArithmeticFunctions.totient(n), "n = " + n);
+            assertEquals(divisors, ArithmeticFunctions.divisorCount(n), "n = " + n);
+            assertEquals(count, ArithmeticFunctions.distinctPrimeFactorCount(n), "n = " + n);
+            assertEquals(count == factors.size() ? (count % 2 == 0 ? 1 : -1) : 0,
+                         ArithmeticFunctions.moebius(n), "n = " + n);
+            assertEquals(ArithmeticFunctions.totient(n), ArithmeticFunctions.totient(powers, count), "n = " + n);
+            assertEquals(ArithmeticFunctions.divisorSum(n), ArithmeticFunctions.divisorSum(powers, count), "n = " + n);
+        }
+        assertEquals(1L, ArithmeticFunctions.totient(1));
+        assertEquals(1, ArithmeticFunctions.moebius(1));
+    }
+
+    @Test
+    void invalidArgumentsAndOverflow() {
+        assertThrows(MathIllegalArgumentException.class, () -> ArithmeticFunctions.totient(0));
+        assertThrows(MathIllegalArgumentException.class, () -> ArithmeticFunctions.divisorSum(-1));
+        assertThrows(MathIllegalArgumentException.class, () -> ArithmeticFunctions.totientTable(-1));
+        assertThrows(MathIllegalArgumentException.class, () -> ArithmeticFunctions.moebiusTable(Integer.MAX_VALUE));
+        assertThrows(MathIllegalArgumentException.class, () -> ArithmeticFunctions.forEachSegment(5, 4, s -> { }));
+        assertEquals(Long.MAX_VALUE, ArithmeticFunctions.divisorSum(1L << 62));
+        assertThrows(MathArithmeticException.class, () -> ArithmeticFunctions.divisorSum(3L << 61));
+        // prime powers fitting in a long whose divisor sum does not
+        for (final long[] pe : new long[][] {{5, 27}, {13, 17}}) {
+            final BigInteger p = BigInteger.valueOf(pe[0]);
+            final long n = p.pow((int) pe[1]).longValueExact();
+            assertThrows(MathArithmeticException.class, () -> ArithmeticFunctions.divisorSum(n), "n = " + n);
+            final long m = n / pe[0];
+            final BigInteger sigma = p.pow((int) pe[1]).subtract(BigInteger.ONE).divide(p.subtract(BigInteger.ONE));
+            assertEquals(sigma.longValueExact(), ArithmeticFunctions.divisorSum(m), "n = " + m);
+        }
+    }
+}
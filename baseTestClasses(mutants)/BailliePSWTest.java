@@ -0,0 +1,132 @@
+package experimento;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BailliePSWTest {
+
+    /** Composite numbers above 2<sup>64</sup> which are strong pseudoprimes to all the prime bases up to 37 and 41. */
+    private static final BigInteger[] STRONG_PSEUDOPRIMES = {
+        new BigInteger("318665857834031151167461"), new BigInteger("3317044064679887385961981")
+    };
+
+    private static boolean reference(BigInteger n) {
+        return n.isProbablePrime(100);
+    }
+
+    private static BigInteger referenceNext(BigInteger n) {
+        return reference(n) ? n : n.nextProbablePrime();
+    }
+
+    @Test
+    void randomNumbersMatchBigInteger() {
+        final Random random = new Random(28L);
+        for (int i = 0; i < 20000; i++) {
+            final BigInteger n = new BigInteger(62 + random.nextInt(200), random);
+            assertEquals(reference(n), Primes.isProbablePrime(n), "n = " + n);
+        }
+        for (int i = 0; i < 300; i++) {
+            final BigInteger p = BigInteger.probablePrime(64 + random.nextInt(500), random);
+            assertTrue(Primes.isProbablePrime(p), "p = " + p);
+        }
+    }
+
+    @Test
+    void productsOfPrimesAreComposite() {
+        final Random random = new Random(29L);
+        for (int i = 0; i < 500; i++) {
+            final BigInteger p = BigInteger.probablePrime(20 + random.nextInt(200), random);
+            final BigInteger q = BigInteger.probablePrime(20 + random.nextInt(200), random);
+            if (p.multiply(q).bitLength() >= Long.SIZE) {
+                assertFalse(Primes.isProbablePrime(p.multiply(q)), p + " * " + q);
+            }
+            if (p.pow(2).bitLength() >= Long.SIZE) {
+                // perfect squares are rejected before the Lucas test
+                assertFalse(Primes.isProbablePrime(p.pow(2)), p + "^2");
+            }
+        }
+    }
+
+    @Test
+    void pseudoprimesAreComposite() {
+        for (final BigInteger n : STRONG_PSEUDOPRIMES) {
+            assertFalse(Primes.isProbablePrime(n), "n = " + n);
+        }
+        // Carmichael numbers (6k+1)(12k+1)(18k+1) above 2^64
+        int found = 0;
+        for (long k = 1L << 21; found < 20; k++) {
+            final BigInteger a = BigInteger.valueOf(6 * k + 1);
+            final BigInteger b = BigInteger.valueOf(12 * k + 1);
+            final BigInteger c = BigInteger.valueOf(18 * k + 1);
+            if (reference(a) && reference(b) && reference(c)) {
+                final BigInteger n = a.multiply(b).multiply(c);
+                assertTrue(n.bitLength() > Long.SIZE);
+                assertFalse(Primes.isProbablePrime(n), "n = " + n);
+                ++found;
+            }
+        }
+    }
+
+    @Test
+    void mersenneNumbers() {
+        for (final int p : new int[] {61, 67, 89, 101, 107, 127, 521, 607, 1279}) {
+            final BigInteger m = BigInteger.ONE.shiftLeft(p).subtract(BigInteger.ONE);
+            assertEquals(reference(m), Primes.isProbablePrime(m), "2^" + p + " - 1");
+        }
+        assertFalse(Primes.isProbablePrime(BigInteger.ONE.shiftLeft(67).subtract(BigInteger.ONE)));
+        assertTrue(Primes.isProbablePrime(BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE)));
+    }
+
+    @Test
+    void nextProbablePrimeMatchesBigInteger() {
+        final BigInteger largestLongPrime = BigInteger.valueOf(9223372036854775783L);
+        assertEquals(largestLongPrime, Primes.nextProbablePrime(largestLongPrime));
+        BigInteger n = largestLongPrime.add(BigInteger.ONE);
+        for (int i = 0; i < 100; i++) {
+            final BigInteger next = Primes.nextProbablePrime(n);
+            assertEquals(referenceNext(n), next, "n = " + n);
+            n = next.add(BigInteger.ONE);
+        }
+        assertEquals(BigInteger.ONE.shiftLeft(64).add(BigInteger.valueOf(13)),
+                     Primes.nextProbablePrime(BigInteger.ONE.shiftLeft(64)));
+
+        final Random random = new Random(30L);
+        for (int i = 0; i < 300; i++) {
+            final BigInteger m = new BigInteger(64 + random.nextInt(300), random);
+            assertEquals(referenceNext(m), Primes.nextProbablePrime(m), "n = " + m);
+        }
+        for (long small = 0; small < 1000; small++) {
+            assertEquals(referenceNext(BigInteger.valueOf(Math.max(2, small))),
+                         Primes.nextProbablePrime(BigInteger.valueOf(small)), "n = " + small);
+        }
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.nextProbablePrime(BigInteger.valueOf(-1)));
+    }
+
+    @Test
+    void smallNumbersUseTheLongTest() {
+        for (long n = -10; n < 10000; n++) {
+            assertEquals(n >= 2 && reference(BigInteger.valueOf(n)), Primes.isProbablePrime(BigInteger.valueOf(n)), "n = " + n);
+        }
+    }
+
+    @Test
+    void negativeNumbersAreNotPrime() {
+        final BigInteger m89 = BigInteger.ONE.shiftLeft(89).subtract(BigInteger.ONE);
+        final BigInteger[] numbers = {
+            m89, m89.multiply(m89), BigInteger.ONE.shiftLeft(63), BigInteger.ONE.shiftLeft(64).add(BigInteger.ONE),
+            BigInteger.valueOf(Long.MAX_VALUE), BigInteger.valueOf(Long.MIN_VALUE).negate(), BigInteger.ONE
+        };
+        for (final BigInteger n : numbers) {
+            assertFalse(Primes.isProbablePrime(n.negate()), "n = -" + n);
+        }
+        assertFalse(Primes.isProbablePrime(BigInteger.ZERO));
+    }
+}
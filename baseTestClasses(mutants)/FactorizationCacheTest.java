@@ -0,0 +1,162 @@
+package experimento;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FactorizationCacheTest {
+
+    private static final int THREADS = 4;
+
+    /** Look up a number through all the methods of the cache, checking the results. */
+    private static void check(FactorizationCache cache, long n) {
+        final List<Long> expected = PollardRho.primeFactors(n);
+        assertEquals(expected, cache.primeFactors(n), "n = " + n);
+        final long[] factors = new long[64];
+        final int count = cache.primeFactors(n, factors);
+        assertEquals(expected.size(), count, "n = " + n);
+        for (int i = 0; i < count; i++) {
+            assertEquals(expected.get(i).longValue(), factors[i], "n = " + n);
+        }
+        if (n <= Integer.MAX_VALUE) {
+            final List<Integer> expectedInt = PollardRho.primeFactors((int) n);
+            assertEquals(expectedInt, cache.primeFactors((int) n), "n = " + n);
+            final int[] intFactors = new int[32];
+            assertEquals(expectedInt.size(), cache.primeFactors((int) n, intFactors), "n = " + n);
+            for (int i = 0; i < expectedInt.size(); i++) {
+                assertEquals(expectedInt.get(i).intValue(), intFactors[i], "n = " + n);
+            }
+        }
+    }
+
+    @Test
+    void concurrentLookupsMatchPollardRho() throws Exception {
+        final long[] keys = new long[3000];
+        final Random random = new Random(24L);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i % 2 == 0 ? 2 + random.nextInt(Integer.MAX_VALUE - 1) : 2 + (random.nextLong() >>> 2);
+        }
+        for (final FactorizationCache.Eviction eviction : FactorizationCache.Eviction.values()) {
+            final FactorizationCache cache = new FactorizationCache(500, eviction);
+            final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try {
+                final List<Future<?>> futures = new ArrayList<Future<?>>();
+                for (int t = 0; t < THREADS; t++) {
+                    final long seed = t;
+                    futures.add(executor.submit(() -> {
+                        final Random r = new Random(seed);
+                        for (int i = 0; i < 5000; i++) {
+                            // skewed accesses, so that both hits and evictions happen
+                            check(cache, keys[(int) (keys.length * Math.pow(r.nextDouble(), 3))]);
+                        }
+                    }));
+                }
+                for (final Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+            // each check does 2 lookups for longs and 4 lookups for ints
+            assertTrue(cache.getHitCount() + cache.getMissCount() >= 2L * THREADS * 5000, eviction.name());
+            assertTrue(cache.getHitCount() > 0, eviction.name());
+            assertTrue(cache.getEvictionCount() > 0, eviction.name());
+            assertTrue(cache.size() <= cache.getCapacity(), eviction.name());
+        }
+    }
+
+    @Test
+    void capacityIsHonored() {
+        for (final FactorizationCache.Eviction eviction : FactorizationCache.Eviction.values()) {
+            for (final int capacity : new int[] {1, 2, 3, 15, 16, 17, 100, 1000}) {
+                final FactorizationCache cache = new FactorizationCache(capacity, eviction);
+                assertEquals(capacity, cache.getCapacity());
+                assertSame(eviction, cache.getEviction());
+                for (int n = 2; n < 2 + 200 * capacity; n++) {
+                    cache.primeFactors(n);
+                }
+                assertEquals(capacity, cache.size(), eviction + " " + capacity);
+                cache.clear();
+                assertEquals(0, cache.size());
+                check(cache, 360);
+                assertEquals(1, cache.size());
+            }
+        }
+        assertThrows(MathIllegalArgumentException.class,
+                     () -> new FactorizationCache(0, FactorizationCache.Eviction.CLOCK));
+    }
+
+    @Test
+    void numbersRequestedAgainAreCached() {
+        for (final FactorizationCache.Eviction eviction : FactorizationCache.Eviction.values()) {
+            final FactorizationCache cache = new FactorizationCache(1000, eviction);
+            final Random random = new Random(25L);
+            // full cache with frequent numbers
+            for (int i = 0; i < 50000; i++) {
+                cache.primeFactors(2 + random.nextInt(1000));
+            }
+            for (int n = 1000000; n < 1000100; n++) {
+                final long hits = cache.getHitCount();
+                cache.primeFactors(n);
+                cache.primeFactors(n);
+                assertEquals(hits + 1, cache.getHitCount(), eviction + " n = " + n);
+            }
+        }
+    }
+
+    /** Count the hits on 500 frequent numbers interleaved with one-time numbers. */
+    private static long frequentHitsDuringScan(FactorizationCache.Eviction eviction) {
+        final FactorizationCache cache = new FactorizationCache(1000, eviction);
+        final Random random = new Random(26L);
+        for (int i = 0; i < 20000; i++) {
+            cache.primeFactors(2 + random.nextInt(500));
+        }
+        long hits = 0;
+        int scan = 100000000;
+        for (int i = 0; i < 20000; i++) {
+            cache.primeFactors(scan++);
+            final long before = cache.getHitCount();
+            cache.primeFactors(2 + random.nextInt(500));
+            hits += cache.getHitCount() - before;
+        }
+        return hits;
+    }
+
+    @Test
+    void frequentNumbersSurviveAScan() {
+        final long clock = frequentHitsDuringScan(FactorizationCache.Eviction.CLOCK);
+        final long tinyLfu = frequentHitsDuringScan(FactorizationCache.Eviction.TINY_LFU);
+        assertTrue(tinyLfu > 18000, "TINY_LFU hits: " + tinyLfu);
+        assertTrue(tinyLfu > clock, "TINY_LFU hits: " + tinyLfu + ", CLOCK hits: " + clock);
+    }
+
+    @Test
+    void primesUseTheCache() {
+        final FactorizationCache cache = new FactorizationCache(100, FactorizationCache.Eviction.TINY_LFU);
+        Primes.setFactorizationCache(cache);
+        try {
+            assertSame(cache, Primes.getFactorizationCache());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(SmallPrimes.trialDivision(123456789), Primes.primeFactors(123456789));
+                assertEquals(PollardRho.primeFactors(1234567890123L), Primes.primeFactors(1234567890123L));
+            }
+            assertEquals(4, cache.getHitCount());
+            assertEquals(2, cache.getMissCount());
+        } finally {
+            Primes.setFactorizationCache(null);
+        }
+    }
+}
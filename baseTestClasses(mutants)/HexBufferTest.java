@@ -0,0 +1,254 @@
+package experimento;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HexBufferTest {
+
+    /** Value of the elements around the written range of dst. */
+    private static final byte FILL = 0x5A;
+
+    private static final char FILL_CHAR = '#';
+
+    /** Heap, heap slice, direct, little-endian direct, read-only heap. */
+    private static final int KINDS = 5;
+
+    private static final int READ_ONLY = 4;
+
+    /** A buffer of the given kind, filled with FILL, with pad bytes before the position and after the limit. */
+    private static ByteBuffer byteBuffer(int kind, int pad, int remaining) {
+        final int capacity = 2 * pad + remaining;
+        final ByteBuffer buffer;
+        switch (kind) {
+        case 1:
+            buffer = ByteBuffer.allocate(capacity + 7).position(7).slice();
+            break;
+        case 2:
+            buffer = ByteBuffer.allocateDirect(capacity);
+            break;
+        case 3:
+            buffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+            break;
+        default:
+            buffer = ByteBuffer.allocate(capacity);
+            break;
+        }
+        while (buffer.hasRemaining()) {
+            buffer.put(FILL);
+        }
+        buffer.limit(pad + remaining).position(pad);
+        return kind == READ_ONLY ? buffer.asReadOnlyBuffer() : buffer;
+    }
+
+    private static CharBuffer charBuffer(int kind, int pad, int remaining) {
+        final int capacity = 2 * pad + remaining;
+        final CharBuffer buffer;
+        switch (kind) {
+        case 1:
+            buffer = CharBuffer.allocate(capacity + 7).position(7).slice();
+            break;
+        case 2:
+            buffer = ByteBuffer.allocateDirect(2 * capacity).asCharBuffer();
+            break;
+        case 3:
+            buffer = ByteBuffer.allocateDirect(2 * capacity).order(ByteOrder.LITTLE_ENDIAN).asCharBuffer();
+            break;
+        default:
+            buffer = CharBuffer.allocate(capacity);
+            break;
+        }
+        while (buffer.hasRemaining()) {
+            buffer.put(FILL_CHAR);
+        }
+        buffer.limit(pad + remaining).position(pad);
+        return kind == READ_ONLY ? buffer.asReadOnlyBuffer() : buffer;
+    }
+
+    private static ByteBuffer source(int kind, int pad, byte[] content) {
+        final ByteBuffer buffer = byteBuffer(kind == READ_ONLY ? 0 : kind, pad, content.length);
+        buffer.duplicate().put(content);
+        return kind == READ_ONLY ? buffer.asReadOnlyBuffer() : buffer;
+    }
+
+    private static CharBuffer source(int kind, int pad, char[] content) {
+        final CharBuffer buffer = charBuffer(kind == READ_ONLY ? 0 : kind, pad, content.length);
+        buffer.duplicate().put(content);
+        return kind == READ_ONLY ? buffer.asReadOnlyBuffer() : buffer;
+    }
+
+    /** All the bytes of dst, which must be FILL except in [from, to). */
+    private static String written(ByteBuffer dst, int from, int to) {
+        final byte[] all = new byte[dst.capacity()];
+        dst.duplicate().clear().get(all);
+        for (int i = 0; i < all.length; i++) {
+            if (i < from || i >= to) {
+                assertEquals(FILL, all[i], "dst[" + i + "] written");
+            }
+        }
+        return Arrays.toString(Arrays.copyOfRange(all, from, to));
+    }
+
+    private static String written(CharBuffer dst, int from, int to) {
+        final char[] all = new char[dst.capacity()];
+        dst.duplicate().clear().get(all);
+        for (int i = 0; i < all.length; i++) {
+            if (i < from || i >= to) {
+                assertEquals(FILL_CHAR, all[i], "dst[" + i + "] written");
+            }
+        }
+        return new String(all, from, to - from);
+    }
+
+    /** Hexadecimal digits, with sometimes an illegal character and an odd length. */
+    private static char[] randomInput(Random random) {
+        final char[] data = HexDecodeTest.randomHex(random, random.nextInt(300));
+        if (data.length > 0 && random.nextBoolean()) {
+            final char[] bad = {'g', ' ', '\u00b2', '\u00ff', '\u0000', '/'};
+            data[random.nextInt(data.length)] = bad[random.nextInt(bad.length)];
+        }
+        return data;
+    }
+
+    /** Expected decoding of data into room bytes: the result, the number of bytes and the bytes. */
+    private static Object[] expectedDecoding(char[] data, int room) {
+        final int len = Math.min(data.length >> 1, room);
+        final byte[] out = new byte[len];
+        int n = 0;
+        for (; n < len; n++) {
+            final int high = Character.digit(data[2 * n], 16);
+            final int low = Character.digit(data[2 * n + 1], 16);
+            if ((high | low) < 0) {
+                break;
+            }
+            out[n] = (byte) (high << 4 | low);
+        }
+        final CoderResult result = n < len ? CoderResult.malformedForLength(2)
+            : data.length - 2 * n < 2 ? CoderResult.UNDERFLOW : CoderResult.OVERFLOW;
+        return new Object[] {result, n, Arrays.toString(Arrays.copyOf(out, n))};
+    }
+
+    @Test
+    void decodeBytesMatchesReference() {
+        final Random random = new Random(43L);
+        for (int i = 0; i < 4000; i++) {
+            final char[] data = randomInput(random);
+            final int room = random.nextInt(data.length / 2 + 10);
+            final ByteBuffer src = source(random.nextInt(KINDS), random.nextInt(5),
+                                          new String(data).getBytes(StandardCharsets.ISO_8859_1));
+            final ByteBuffer dst = byteBuffer(random.nextInt(KINDS - 1), random.nextInt(5), room);
+            final int srcStart = src.position();
+            final int dstStart = dst.position();
+            final Object[] expected = expectedDecoding(data, room);
+            final String message = new String(data) + " into " + room;
+            assertEquals(expected[0], Hex.decodeHex(src, dst), message);
+            final int n = (Integer) expected[1];
+            assertEquals(srcStart + 2 * n, src.position(), message);
+            assertEquals(dstStart + n, dst.position(), message);
+            assertEquals(expected[2], written(dst, dstStart, dstStart + n), message);
+        }
+    }
+
+    @Test
+    void decodeCharsMatchesReference() {
+        final Random random = new Random(44L);
+        for (int i = 0; i < 4000; i++) {
+            final char[] data = randomInput(random);
+            final int room = random.nextInt(data.length / 2 + 10);
+            final CharBuffer src = source(random.nextInt(KINDS), random.nextInt(5), data);
+            final ByteBuffer dst = byteBuffer(random.nextInt(KINDS - 1), random.nextInt(5), room);
+            final int srcStart = src.position();
+            final int dstStart = dst.position();
+            final Object[] expected = expectedDecoding(data, room);
+            final String message = new String(data) + " into " + room;
+            assertEquals(expected[0], Hex.decodeHex(src, dst), message);
+            final int n = (Integer) expected[1];
+            assertEquals(srcStart + 2 * n, src.position(), message);
+            assertEquals(dstStart + n, dst.position(), message);
+            assertEquals(expected[2], written(dst, dstStart, dstStart + n), message);
+        }
+    }
+
+    @Test
+    void decodeStopsOnTheIllegalPair() {
+        // the illegal pair is in the second block of the heap fast path
+        final byte[] data = new byte[200];
+        Arrays.fill(data, (byte) 'f');
+        data[101] = 'x';
+        final ByteBuffer src = ByteBuffer.wrap(data);
+        final ByteBuffer dst = byteBuffer(0, 0, 100);
+        assertEquals(CoderResult.malformedForLength(2), Hex.decodeHex(src, dst));
+        assertEquals(100, src.position());
+        assertEquals(50, dst.position());
+        final byte[] expected = new byte[50];
+        Arrays.fill(expected, (byte) 0xFF);
+        assertEquals(Arrays.toString(expected), written(dst, 0, 50));
+        // a last single character is left for the next input
+        final ByteBuffer odd = ByteBuffer.wrap(new byte[] {'0', '1', '2'});
+        assertEquals(CoderResult.UNDERFLOW, Hex.decodeHex(odd, dst.clear()));
+        assertEquals(2, odd.position());
+        assertEquals(1, dst.position());
+        assertEquals(CoderResult.OVERFLOW, Hex.decodeHex(CharBuffer.wrap("0123"), dst.clear().limit(1)));
+    }
+
+    @Test
+    void encodeMatchesReference() {
+        final Random random = new Random(45L);
+        for (int i = 0; i < 4000; i++) {
+            final byte[] data = HexEncodeTest.randomBytes(random, random.nextInt(150));
+            final int room = random.nextInt(2 * data.length + 10);
+            final boolean toLowerCase = random.nextBoolean();
+            final int len = Math.min(data.length, room / 2);
+            final String expected = HexEncodeTest.reference(data, 0, len, toLowerCase);
+            final CoderResult result = len < data.length ? CoderResult.OVERFLOW : CoderResult.UNDERFLOW;
+
+            final ByteBuffer src = source(random.nextInt(KINDS), random.nextInt(5), data);
+            final int srcStart = src.position();
+            final ByteBuffer bytes = byteBuffer(random.nextInt(KINDS - 1), random.nextInt(5), room);
+            final int bytesStart = bytes.position();
+            assertEquals(result, Hex.encodeHex(src, bytes, toLowerCase));
+            assertEquals(srcStart + len, src.position());
+            assertEquals(bytesStart + 2 * len, bytes.position());
+            assertEquals(Arrays.toString(expected.getBytes(StandardCharsets.US_ASCII)),
+                         written(bytes, bytesStart, bytesStart + 2 * len));
+
+            src.position(srcStart);
+            final CharBuffer chars = charBuffer(random.nextInt(KINDS - 1), random.nextInt(5), room);
+            final int charsStart = chars.position();
+            assertEquals(result, Hex.encodeHex(src, chars, toLowerCase));
+            assertEquals(srcStart + len, src.position());
+            assertEquals(charsStart + 2 * len, chars.position());
+            assertEquals(expected, written(chars, charsStart, charsStart + 2 * len));
+        }
+        final ByteBuffer bytes = ByteBuffer.allocate(2);
+        Hex.encodeHex(ByteBuffer.wrap(new byte[] {(byte) 0xAB}), bytes);
+        assertEquals("[97, 98]", Arrays.toString(bytes.array()));
+        final CharBuffer chars = CharBuffer.allocate(2);
+        Hex.encodeHex(ByteBuffer.wrap(new byte[] {(byte) 0xAB}), chars);
+        assertEquals("ab", new String(chars.array()));
+    }
+
+    @Test
+    void readOnlyDestinationIsRejected() {
+        final byte[] data = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+        final byte[] hex = "0102030405060708".getBytes(StandardCharsets.US_ASCII);
+        for (final boolean direct : new boolean[] {false, true}) {
+            final ByteBuffer bytes = (direct ? ByteBuffer.allocateDirect(20) : ByteBuffer.allocate(20)).asReadOnlyBuffer();
+            final CharBuffer chars = CharBuffer.allocate(20).asReadOnlyBuffer();
+            assertThrows(ReadOnlyBufferException.class, () -> Hex.encodeHex(ByteBuffer.wrap(data), bytes));
+            assertThrows(ReadOnlyBufferException.class, () -> Hex.encodeHex(ByteBuffer.wrap(data), chars));
+            assertThrows(ReadOnlyBufferException.class, () -> Hex.decodeHex(ByteBuffer.wrap(hex), bytes));
+            assertThrows(ReadOnlyBufferException.class, () -> Hex.decodeHex(CharBuffer.wrap("0102"), bytes));
+        }
+    }
+}
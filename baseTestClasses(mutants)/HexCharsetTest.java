@@ -0,0 +1,92 @@
+package experimento;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.codec.DecoderException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HexCharsetTest {
+
+    private static final String[] CHARSETS = {
+        "UTF-8", "US-ASCII", "ISO-8859-1", "windows-1252", "Shift_JIS", "UTF-16", "UTF-16BE", "UTF-16LE", "UTF-32",
+        "IBM037"
+    };
+
+    private static List<String> supportedCharsets() {
+        final List<String> names = new ArrayList<String>();
+        for (final String name : CHARSETS) {
+            if (Charset.isSupported(name)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /** Reference decoding, through a String as before the direct path. */
+    private static byte[] referenceDecode(byte[] array, String charsetName) throws DecoderException {
+        try {
+            return HexDecodeTest.reference(new String(array, charsetName).toCharArray());
+        } catch (UnsupportedEncodingException e) {
+            throw new DecoderException(e.getMessage(), e);
+        }
+    }
+
+    @Test
+    void encodeMatchesTheCharset() throws Exception {
+        final Random random = new Random(38L);
+        for (final String name : supportedCharsets()) {
+            final Hex hex = new Hex(name);
+            for (int length = 0; length < 70; length++) {
+                final byte[] data = HexEncodeTest.randomBytes(random, length);
+                assertArrayEquals(new String(Hex.encodeHex(data)).getBytes(name), hex.encode(data), name);
+            }
+        }
+        assertArrayEquals(new Hex("UTF-8").encode(new byte[] {1, -1}), new Hex().encode(new byte[] {1, -1}));
+    }
+
+    @Test
+    void decodeMatchesTheCharset() throws Exception {
+        final Random random = new Random(39L);
+        final String[] specials = {"", "g", "\u0660", "\uff21", "\u00e9", " ", "\u0130"};
+        for (final String name : supportedCharsets()) {
+            final Hex hex = new Hex(name);
+            for (int length = 0; length < 70; length++) {
+                final String digits = new String(HexDecodeTest.randomHex(random, length));
+                final String special = specials[random.nextInt(specials.length)];
+                final int at = random.nextInt(length + 1);
+                for (final String text : new String[] {digits, digits.substring(0, at) + special + digits.substring(at)}) {
+                    final Charset charset = Charset.forName(name);
+                    if (!charset.newEncoder().canEncode(text)) {
+                        continue;
+                    }
+                    final byte[] array = text.getBytes(charset);
+                    assertEquals(HexDecodeTest.outcome(() -> referenceDecode(array, name)),
+                                 HexDecodeTest.outcome(() -> hex.decode(array)), name + ": " + text);
+                }
+            }
+            // bytes which are not ASCII, nor maybe valid in the charset
+            for (int i = 0; i < 200; i++) {
+                final byte[] array = HexEncodeTest.randomBytes(random, 2 + random.nextInt(10));
+                assertEquals(HexDecodeTest.outcome(() -> referenceDecode(array, name)),
+                             HexDecodeTest.outcome(() -> hex.decode(array)), name);
+            }
+        }
+    }
+
+    @Test
+    void unsupportedCharset() {
+        final Hex hex = new Hex("no-such-charset");
+        assertEquals("no-such-charset", hex.getCharsetName());
+        assertThrows(IllegalStateException.class, () -> hex.encode(new byte[] {1}));
+        final DecoderException e = assertThrows(DecoderException.class, () -> hex.decode(new byte[] {'0', '1'}));
+        assertEquals(UnsupportedEncodingException.class, e.getCause().getClass());
+    }
+}
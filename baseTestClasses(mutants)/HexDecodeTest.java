@@ -0,0 +1,104 @@
+package experimento;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.codec.DecoderException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HexDecodeTest {
+
+    /** Characters accepted or rejected for various reasons, including non-ASCII digits. */
+    private static final char[] SPECIAL = {
+        '0', '9', 'a', 'f', 'A', 'F', 'g', 'G', '/', ':', '@', '`', ' ', '\u0000', '\u00FF',
+        '\u0660', '\u0669', '\u06F5', '\u0966', '\uFF10', '\uFF19', '\uFF21', '\uFF46', '\uFF47',
+        '\u0130', '\u0161', '\u0141', '\u3030', '\uFFFF'
+    };
+
+    /** Reference decoder, with {@link Character#digit(char, int)} and the historical messages. */
+    static byte[] reference(char[] data) throws DecoderException {
+        if ((data.length & 1) != 0) {
+            throw new DecoderException("Odd number of characters.");
+        }
+        final byte[] out = new byte[data.length >> 1];
+        for (int i = 0; i < data.length; i++) {
+            final int digit = Character.digit(data[i], 16);
+            if (digit == -1) {
+                throw new DecoderException("Illegal hexadecimal charcter " + data[i] + " at index " + i);
+            }
+            out[i >> 1] |= (i & 1) == 0 ? digit << 4 : digit;
+        }
+        return out;
+    }
+
+    /** Result of a decoding, or the message of its exception. */
+    static String outcome(Callable<byte[]> decoding) {
+        try {
+            return Arrays.toString(decoding.call());
+        } catch (Exception e) {
+            return e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+
+    static char[] randomHex(Random random, int length) {
+        final char[] data = new char[length];
+        for (int i = 0; i < length; i++) {
+            final int digit = random.nextInt(16);
+            final char c = Character.forDigit(digit, 16);
+            data[i] = random.nextBoolean() ? c : Character.toUpperCase(c);
+        }
+        return data;
+    }
+
+    private static void check(char[] data) {
+        assertEquals(outcome(() -> reference(data)), outcome(() -> Hex.decodeHex(data)), new String(data));
+    }
+
+    @Test
+    void allPairsOfSpecialCharacters() {
+        for (final char high : SPECIAL) {
+            for (final char low : SPECIAL) {
+                check(new char[] {high, low});
+                check(new char[] {'1', '2', high, low});
+            }
+        }
+        check(new char[0]);
+        check(new char[] {'a'});
+        check(new char[] {'a', 'b', 'c'});
+    }
+
+    @Test
+    void allCharactersAsHighAndLowDigit() {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            check(new char[] {(char) c, '7'});
+            check(new char[] {'7', (char) c});
+        }
+    }
+
+    @Test
+    void oneIllegalCharacterAcrossBlocks() {
+        final Random random = new Random(35L);
+        for (int length = 0; length < 300; length += 2) {
+            final char[] data = randomHex(random, length);
+            check(data);
+            if (length > 0) {
+                for (int k = 0; k < 5; k++) {
+                    final char[] bad = data.clone();
+                    bad[random.nextInt(length)] = SPECIAL[6 + random.nextInt(SPECIAL.length - 6)];
+                    check(bad);
+                }
+            }
+        }
+    }
+
+    @Test
+    void unicodeDigitsAreAccepted() throws DecoderException {
+        // fullwidth and Arabic-Indic digits are hexadecimal digits for Character.digit
+        assertEquals(0x0A, Hex.decodeHex(new char[] {'\u0660', '\uFF21'})[0]);
+        assertTrue(Arrays.equals(new byte[] {(byte) 0xF9}, Hex.decodeHex(new char[] {'\uFF46', '\u0669'})));
+    }
+}
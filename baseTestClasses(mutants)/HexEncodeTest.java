@@ -0,0 +1,80 @@
+package experimento;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HexEncodeTest {
+
+    /** Reference encoder, one character at a time with {@link Character#forDigit(int, int)}. */
+    static String reference(byte[] data, int off, int len, boolean toLowerCase) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = off; i < off + len; i++) {
+            builder.append(Character.forDigit((data[i] >> 4) & 0xF, 16));
+            builder.append(Character.forDigit(data[i] & 0xF, 16));
+        }
+        return toLowerCase ? builder.toString() : builder.toString().toUpperCase();
+    }
+
+    static byte[] randomBytes(Random random, int length) {
+        final byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+
+    @Test
+    void allByteValues() {
+        final byte[] data = new byte[256];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        for (final boolean lower : new boolean[] {true, false}) {
+            final String expected = reference(data, 0, data.length, lower);
+            assertEquals(expected, new String(Hex.encodeHexAscii(data, lower), StandardCharsets.US_ASCII));
+            assertEquals(expected, new String(Hex.encodeHex(data, lower)));
+        }
+        assertEquals(reference(data, 0, data.length, true), new String(Hex.encodeHexAscii(data), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void everyLengthAndAlignment() {
+        final Random random = new Random(36L);
+        for (int length = 0; length < 80; length++) {
+            final byte[] data = randomBytes(random, length + 16);
+            for (int off = 0; off < 16; off++) {
+                for (final boolean lower : new boolean[] {true, false}) {
+                    final String expected = reference(data, off, length, lower);
+                    final byte[] bytes = new byte[2 * length + 20];
+                    Arrays.fill(bytes, (byte) '#');
+                    final int dstOff = off % 3;
+                    assertEquals(2 * length, Hex.encodeHex(data, off, length, bytes, dstOff, lower));
+                    assertEquals(expected, new String(bytes, dstOff, 2 * length, StandardCharsets.US_ASCII));
+                    // nothing written around the range
+                    for (int k = 0; k < bytes.length; k++) {
+                        if (k < dstOff || k >= dstOff + 2 * length) {
+                            assertEquals('#', bytes[k], "index " + k);
+                        }
+                    }
+                    assertArrayEquals(expected.getBytes(StandardCharsets.US_ASCII),
+                                      Hex.encodeHexAscii(Arrays.copyOfRange(data, off, off + length), lower));
+                }
+            }
+        }
+    }
+
+    @Test
+    void largeArraysMatchTheTableEncoder() {
+        final Random random = new Random(37L);
+        for (final int length : new int[] {1000, 4096, 65537}) {
+            final byte[] data = randomBytes(random, length);
+            assertArrayEquals(new String(Hex.encodeHex(data)).getBytes(StandardCharsets.US_ASCII), Hex.encodeHexAscii(data));
+            assertArrayEquals(new String(Hex.encodeHex(data, false)).getBytes(StandardCharsets.US_ASCII),
+                              Hex.encodeHexAscii(data, false));
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package experimento;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.codec.DecoderException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HexRangeTest {
+
+    /** Value of the untouched elements around the ranges. */
+    private static final byte FILL = 0x5A;
+
+    private static final char FILL_CHAR = '#';
+
+    private static final char[] BAD_CHARS = {'g', ' ', '\u0660', '\uff21', '\u00b2', '\u0000'};
+
+    /** Illegal characters of ISO-8859-1, so that each is one byte. */
+    private static final char[] BAD_LATIN1 = {'g', ' ', '\u00b2', '\u00ff', '\u0000'};
+
+    /** Reference decoding of src[off, off + len), the error index being relative to src. */
+    private static byte[] reference(char[] src, int off, int len) throws DecoderException {
+        try {
+            return HexDecodeTest.reference(Arrays.copyOfRange(src, off, off + len));
+        } catch (DecoderException e) {
+            final String message = e.getMessage();
+            final int at = message.lastIndexOf(' ') + 1;
+            if (!message.contains(" at index ")) {
+                throw e;
+            }
+            throw new DecoderException(message.substring(0, at) + (off + Integer.parseInt(message.substring(at))));
+        }
+    }
+
+    /** Decoded range of dst, after checking that nothing around it was written. */
+    private static byte[] decodedRange(byte[] dst, int dstOff, int n) {
+        for (int i = 0; i < dst.length; i++) {
+            if (i < dstOff || i >= dstOff + n) {
+                assertEquals(FILL, dst[i], "dst[" + i + "] written");
+            }
+        }
+        return Arrays.copyOfRange(dst, dstOff, dstOff + n);
+    }
+
+    private static char[] withBadCharacter(Random random, char[] data, char[] bad) {
+        if (data.length > 0 && random.nextInt(3) == 0) {
+            data[random.nextInt(data.length)] = bad[random.nextInt(bad.length)];
+        }
+        return data;
+    }
+
+    @Test
+    void decodeCharRangesMatchReference() {
+        final Random random = new Random(40L);
+        for (int i = 0; i < 3000; i++) {
+            final int off = random.nextInt(20);
+            final int len = 2 * random.nextInt(60);
+            final char[] src = withBadCharacter(random, HexDecodeTest.randomHex(random, off + len + random.nextInt(20)),
+                                                BAD_CHARS);
+            final int dstOff = random.nextInt(10);
+            final byte[] dst = new byte[dstOff + len / 2 + random.nextInt(10)];
+            Arrays.fill(dst, FILL);
+            final String expected = HexDecodeTest.outcome(() -> reference(src, off, len));
+            final String actual = HexDecodeTest.outcome(() -> {
+                assertEquals(len / 2, Hex.decodeHex(src, off, len, dst, dstOff));
+                return decodedRange(dst, dstOff, len / 2);
+            });
+            assertEquals(expected, actual, new String(src) + " [" + off + ", " + (off + len) + ")");
+            if (expected.startsWith("DecoderException")) {
+                decodedRange(dst, dstOff, len / 2);
+            }
+        }
+    }
+
+    @Test
+    void decodeByteRangesMatchReference() {
+        final Random random = new Random(41L);
+        for (int i = 0; i < 3000; i++) {
+            final int off = random.nextInt(20);
+            final int len = 2 * random.nextInt(60);
+            final char[] chars = withBadCharacter(random, HexDecodeTest.randomHex(random, off + len + random.nextInt(20)),
+                                                  BAD_LATIN1);
+            final byte[] src = new String(chars).getBytes(StandardCharsets.ISO_8859_1);
+            final int dstOff = random.nextInt(10);
+            final byte[] dst = new byte[dstOff + len / 2 + random.nextInt(10)];
+            Arrays.fill(dst, FILL);
+            final String expected = HexDecodeTest.outcome(() -> reference(chars, off, len));
+            final String actual = HexDecodeTest.outcome(() -> {
+                assertEquals(len / 2, Hex.decodeHex(src, off, len, dst, dstOff));
+                return decodedRange(dst, dstOff, len / 2);
+            });
+            assertEquals(expected, actual, new String(chars) + " [" + off + ", " + (off + len) + ")");
+            if (expected.startsWith("DecoderException")) {
+                decodedRange(dst, dstOff, len / 2);
+            }
+        }
+    }
+
+    @Test
+    void decodeByteRangesReadLatin1() throws DecoderException {
+        final byte[] dst = new byte[1];
+        for (int b = 0; b < 256; b++) {
+            final byte[] src = {(byte) b, '7'};
+            final char[] chars = {(char) b, '7'};
+            assertEquals(HexDecodeTest.outcome(() -> HexDecodeTest.reference(chars)),
+                         HexDecodeTest.outcome(() -> {
+                             Hex.decodeHex(src, 0, 2, dst, 0);
+                             return dst.clone();
+                         }), "byte " + b);
+        }
+    }
+
+    @Test
+    void encodeRangesMatchReference() {
+        final Random random = new Random(42L);
+        for (int i = 0; i < 3000; i++) {
+            final int off = random.nextInt(20);
+            final int len = random.nextInt(60);
+            final byte[] src = HexEncodeTest.randomBytes(random, off + len + random.nextInt(20));
+            final int dstOff = random.nextInt(10);
+            final int size = dstOff + 2 * len + random.nextInt(10);
+            final boolean toLowerCase = random.nextBoolean();
+            final String expected = HexEncodeTest.reference(src, off, len, toLowerCase);
+
+            final char[] chars = new char[size];
+            Arrays.fill(chars, FILL_CHAR);
+            assertEquals(2 * len, Hex.encodeHex(src, off, len, chars, dstOff, toLowerCase));
+            assertEquals(expected, new String(chars, dstOff, 2 * len));
+            final char[] expectedChars = chars.clone();
+            Arrays.fill(expectedChars, FILL_CHAR);
+            expected.getChars(0, expected.length(), expectedChars, dstOff);
+            assertArrayEquals(expectedChars, chars);
+
+            final byte[] bytes = new byte[size];
+            Arrays.fill(bytes, FILL);
+            assertEquals(2 * len, Hex.encodeHex(src, off, len, bytes, dstOff, toLowerCase));
+            assertEquals(expected, new String(decodedRange(bytes, dstOff, 2 * len), StandardCharsets.US_ASCII));
+        }
+        final byte[] src = {(byte) 0xAB};
+        final char[] chars = new char[2];
+        Hex.encodeHex(src, 0, 1, chars, 0);
+        assertArrayEquals(new char[] {'a', 'b'}, chars);
+        final byte[] bytes = new byte[2];
+        Hex.encodeHex(src, 0, 1, bytes, 0);
+        assertArrayEquals(new byte[] {'a', 'b'}, bytes);
+    }
+
+    @Test
+    void oddRangesAreRejected() {
+        final char[] chars = "0123456789".toCharArray();
+        final byte[] bytes = "0123456789".getBytes(StandardCharsets.US_ASCII);
+        final byte[] dst = new byte[10];
+        assertEquals("Odd number of characters.",
+                     assertThrows(DecoderException.class, () -> Hex.decodeHex(chars, 1, 3, dst, 0)).getMessage());
+        assertEquals("Odd number of characters.",
+                     assertThrows(DecoderException.class, () -> Hex.decodeHex(bytes, 2, 7, dst, 0)).getMessage());
+        // the source range is checked before its length
+        assertThrows(IndexOutOfBoundsException.class, () -> Hex.decodeHex(chars, 9, 3, dst, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> Hex.decodeHex(bytes, 9, 3, dst, 0));
+    }
+
+    @Test
+    void errorIndexIsRelativeToSource() {
+        final char[] chars = "00000000000000000000000000000000000000x0".toCharArray();
+        final byte[] bytes = new String(chars).getBytes(StandardCharsets.US_ASCII);
+        final byte[] dst = new byte[20];
+        assertEquals("Illegal hexadecimal charcter x at index 38",
+                     assertThrows(DecoderException.class, () -> Hex.decodeHex(chars, 4, 36, dst, 0)).getMessage());
+        assertEquals("Illegal hexadecimal charcter x at index 38",
+                     assertThrows(DecoderException.class, () -> Hex.decodeHex(bytes, 4, 36, dst, 0)).getMessage());
+    }
+
+    @Test
+    void rangesOutOfBoundsAreRejected() throws DecoderException {
+        final char[] chars = new char[8];
+        final byte[] bytes = new byte[8];
+        final byte[] dst = new byte[4];
+        final int[][] sourceRanges = {{-1, 2}, {0, -2}, {8, 2}, {6, 4}, {Integer.MAX_VALUE, 2}};
+        for (final int[] r : sourceRanges) {
+            assertThrows(IndexOutOfBoundsException.class, () -> Hex.decodeHex(chars, r[0], r[1], dst, 0));
+            assertThrows(IndexOutOfBoundsException.class, () -> Hex.decodeHex(bytes, r[0], r[1], dst, 0));
+            assertThrows(IndexOutOfBoundsException.class, () -> Hex.encodeHex(bytes, r[0], r[1], new char[32], 0));
+            assertThrows(IndexOutOfBoundsException.class, () -> Hex.encodeHex(bytes, r[0], r[1], new byte[32], 0));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> Hex.decodeHex(chars, 0, 8, dst, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> Hex.decodeHex(bytes, 0, 8, dst, -1));
+        assertThrows(IndexOutOfBoundsException.class, () -> Hex.encodeHex(bytes, 0, 4, new char[8], 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> Hex.encodeHex(bytes, 0, 4, new byte[7], 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> Hex.encodeHex(bytes, 0, 4, new byte[8], -1));
+        // the decoded bytes of an out of bounds range are not written
+        Arrays.fill(dst, FILL);
+        Arrays.fill(bytes, (byte) '1');
+        assertThrows(IndexOutOfBoundsException.class, () -> Hex.decodeHex(bytes, 0, 8, dst, 1));
+        assertArrayEquals(new byte[] {FILL, FILL, FILL, FILL}, dst);
+        assertEquals(0, Hex.decodeHex(chars, 8, 0, dst, 4) + Hex.encodeHex(bytes, 8, 0, new char[0], 0));
+    }
+}
@@ -0,0 +1,40 @@
+package experimento;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+
+/** Fresh copies of the classes under test, for the static configuration read at class initialization. */
+final class IsolatedClasses {
+
+    private IsolatedClasses() {
+    }
+
+    /**
+     * Load a class in a new class loader and initialize it with a system property set. The previous value of the
+     * property is restored afterwards.
+     *
+     * @param className simple name of the class to initialize
+     * @param property system property read by the class initialization
+     * @param value value of the property during the initialization
+     * @return the class loader, holding the initialized class
+     */
+    static ClassLoader initialize(String className, String property, String value) throws Exception {
+        final URL classes = Primes.class.getProtectionDomain().getCodeSource().getLocation();
+        final URL math = MathIllegalArgumentException.class.getProtectionDomain().getCodeSource().getLocation();
+        final ClassLoader loader = new URLClassLoader(new URL[] {classes, math}, ClassLoader.getPlatformClassLoader());
+        final String previous = System.getProperty(property);
+        System.setProperty(property, value);
+        try {
+            Class.forName("experimento." + className, true, loader);
+        } finally {
+            if (previous == null) {
+                System.clearProperty(property);
+            } else {
+                System.setProperty(property, previous);
+            }
+        }
+        return loader;
+    }
+}
@@ -0,0 +1,144 @@
+package experimento;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.function.LongUnaryOperator;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MontgomeryContextTest {
+
+    private static final BigInteger R = BigInteger.ONE.shiftLeft(64);
+
+    private static long randomModulus(Random random) {
+        return (random.nextLong() >>> (1 + random.nextInt(60))) | 3;
+    }
+
+    private static long below(Random random, long n) {
+        return Math.floorMod(random.nextLong(), n);
+    }
+
+    @Test
+    void operationsMatchBigInteger() {
+        final Random random = new Random(31L);
+        for (int i = 0; i < 20000; i++) {
+            final long n = i == 0 ? Long.MAX_VALUE : randomModulus(random);
+            final BigInteger bn = BigInteger.valueOf(n);
+            final MontgomeryContext context = new MontgomeryContext(n);
+            final long a = below(random, n);
+            final long b = below(random, n);
+            final long e = random.nextLong() >>> (1 + random.nextInt(63));
+            final BigInteger ba = BigInteger.valueOf(a);
+            final BigInteger bb = BigInteger.valueOf(b);
+
+            assertEquals(n, context.getModulus());
+            assertEquals(R.mod(bn).longValue(), context.getOne(), "n = " + n);
+            assertEquals(ba.multiply(R).mod(bn).longValue(), context.toMontgomery(a), "n = " + n);
+            assertEquals(a, context.fromMontgomery(context.toMontgomery(a)), "n = " + n);
+            assertEquals(ba.multiply(bb).multiply(R.modInverse(bn)).mod(bn).longValue(), context.multiply(a, b),
+                         a + " * " + b + " mod " + n);
+            assertEquals(ba.multiply(bb).mod(bn).longValue(), context.mulMod(a, b), a + " * " + b + " mod " + n);
+            assertEquals(ba.modPow(BigInteger.valueOf(e), bn).longValue(), context.powMod(a, e),
+                         a + " ^ " + e + " mod " + n);
+            assertEquals(context.powMod(a, e), context.fromMontgomery(context.pow(context.toMontgomery(a), e)));
+
+            // unreduced arguments
+            final long big = random.nextLong() >>> 1;
+            assertEquals(BigInteger.valueOf(big).modPow(BigInteger.valueOf(e), bn).longValue(), context.powMod(big, e));
+            assertEquals(BigInteger.valueOf(big).multiply(bb).mod(bn).longValue(), context.mulMod(big, b));
+        }
+    }
+
+    @Test
+    void batchedPowMatchesBigInteger() {
+        final Random random = new Random(32L);
+        for (int i = 0; i < 2000; i++) {
+            final long n = randomModulus(random);
+            final MontgomeryContext context = new MontgomeryContext(n);
+            final long[] bases = new long[random.nextInt(13)];
+            for (int k = 0; k < bases.length; k++) {
+                bases[k] = random.nextLong() >>> 1;
+            }
+            final long e = random.nextLong() >>> 1;
+            final long[] results = new long[bases.length + 1];
+            final long[] squares = new long[bases.length];
+            context.powMod(bases, e, results, squares);
+            for (int k = 0; k < bases.length; k++) {
+                assertEquals(BigInteger.valueOf(bases[k]).modPow(BigInteger.valueOf(e), BigInteger.valueOf(n)).longValue(),
+                             results[k], bases[k] + " ^ " + e + " mod " + n);
+            }
+            // in place
+            context.powMod(bases, e, bases, squares);
+            for (int k = 0; k < bases.length; k++) {
+                assertEquals(results[k], bases[k]);
+            }
+        }
+        final MontgomeryContext context = new MontgomeryContext(7);
+        assertThrows(DimensionMismatchException.class, () -> context.powMod(new long[3], 5, new long[2], new long[3]));
+        assertThrows(DimensionMismatchException.class, () -> context.powMod(new long[3], 5, new long[3], new long[2]));
+    }
+
+    @Test
+    void invalidModulus() {
+        assertThrows(MathIllegalArgumentException.class, () -> new MontgomeryContext(1));
+        assertThrows(MathIllegalArgumentException.class, () -> new MontgomeryContext(-7));
+        assertThrows(MathIllegalArgumentException.class, () -> new MontgomeryContext(10));
+    }
+
+    /** Average number of bytes allocated by the current thread per call. */
+    private static double allocatedBytesPerCall(LongUnaryOperator operation, long[] arguments) {
+        final com.sun.management.ThreadMXBean bean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long id = Thread.currentThread().getId();
+        long sink = 0;
+        // warm up, so that the compiled code is measured
+        for (int round = 0; round < 20; round++) {
+            for (final long argument : arguments) {
+                sink += operation.applyAsLong(argument);
+            }
+        }
+        final long before = bean.getThreadAllocatedBytes(id);
+        for (int round = 0; round < 10; round++) {
+            for (final long argument : arguments) {
+                sink += operation.applyAsLong(argument);
+            }
+        }
+        final long after = bean.getThreadAllocatedBytes(id);
+        assertTrue(sink != 42);
+        return (after - before) / (10.0 * arguments.length);
+    }
+
+    @Test
+    void longPrimalityAllocatesNothing() {
+        final Random random = new Random(33L);
+        final long[] arguments = new long[5000];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = (random.nextLong() >>> 1) | 1;
+        }
+        final long[] factors = new long[64];
+        assertEquals(0, allocatedBytesPerCall(n -> SmallPrimes.millerRabinPrimeTest(n) ? 1 : 0, arguments), 1.0);
+        assertEquals(0, allocatedBytesPerCall(n -> Primes.isPrime(n) ? 1 : 0, arguments), 1.0);
+        assertEquals(0, allocatedBytesPerCall(n -> Primes.nextPrime(n >>> 1), arguments), 1.0);
+        assertEquals(0, allocatedBytesPerCall(n -> Primes.primeFactors(n >>> 20, factors), arguments), 1.0);
+    }
+
+    @Test
+    void batchedPowAllocatesNothing() {
+        final MontgomeryContext context = new MontgomeryContext(4611686018427387847L);
+        final long[] bases = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37};
+        final long[] results = new long[bases.length];
+        final long[] squares = new long[bases.length];
+        final long[] arguments = new Random(34L).longs(5000, 1, Long.MAX_VALUE).toArray();
+        assertEquals(0, allocatedBytesPerCall(e -> {
+            context.powMod(bases, e, results, squares);
+            return results[0];
+        }, arguments), 1.0);
+    }
+}
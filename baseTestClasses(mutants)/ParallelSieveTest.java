@@ -0,0 +1,63 @@
+package experimento;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ParallelSieveTest {
+
+    private static void forEachPool(Consumer<ForkJoinPool> test) {
+        for (final int threads : new int[] {1, 2, 4}) {
+            final ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                test.accept(pool);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        test.accept(ForkJoinPool.commonPool());
+    }
+
+    @Test
+    void wholeRangeMatchesPlainSieve() {
+        final long[] expected = SegmentedSieveTest.reference(0, SegmentedSieveTest.LIMIT);
+        forEachPool(pool -> assertArrayEquals(expected, Primes.primesInRange(0L, SegmentedSieveTest.LIMIT, pool)));
+    }
+
+    @Test
+    void rangesMatchPlainSieve() {
+        final Random random = new Random(11L);
+        forEachPool(pool -> {
+            for (int lo = 0; lo < 20; lo++) {
+                assertArrayEquals(SegmentedSieveTest.reference(lo, lo + 30), Primes.primesInRange(lo, lo + 30L, pool));
+            }
+            for (int i = 0; i < 30; i++) {
+                final int lo = random.nextInt(SegmentedSieveTest.LIMIT);
+                final int hi = lo + random.nextInt(SegmentedSieveTest.LIMIT - lo + 1);
+                assertArrayEquals(SegmentedSieveTest.reference(lo, hi), Primes.primesInRange(lo, (long) hi, pool),
+                                  lo + ".." + hi);
+            }
+        });
+    }
+
+    @Test
+    void largeRangeMatchesSequentialSieve() {
+        final long lo = 1000000000000L;
+        final long hi = lo + 20000000L;
+        final long[] expected = Primes.primesInRange(lo, hi);
+        forEachPool(pool -> assertArrayEquals(expected, Primes.primesInRange(lo, hi, pool)));
+    }
+
+    @Test
+    void invalidRanges() {
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.primesInRange(-1L, 10L, pool));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.primesInRange(10L, 9L, pool));
+    }
+}
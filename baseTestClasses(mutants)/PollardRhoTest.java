@@ -0,0 +1,89 @@
+package experimento;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PollardRhoTest {
+
+    private static long randomPrime(Random random, int bits) {
+        return BigInteger.probablePrime(bits, random).longValue();
+    }
+
+    @Test
+    void intFactorsMatchTrialDivision() {
+        for (int n = 2; n < 100000; n++) {
+            assertEquals(SmallPrimes.trialDivision(n), PollardRho.primeFactors(n), "n = " + n);
+            assertEquals(SmallPrimes.trialDivision(n), Primes.primeFactors(n), "n = " + n);
+        }
+        final Random random = new Random(5L);
+        for (int i = 0; i < 5000; i++) {
+            final int n = 2 + random.nextInt(Integer.MAX_VALUE - 1);
+            assertEquals(SmallPrimes.trialDivision(n), PollardRho.primeFactors(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void intSemiprimesOfLargePrimes() {
+        final Random random = new Random(6L);
+        for (int i = 0; i < 2000; i++) {
+            final int p = (int) randomPrime(random, 13 + random.nextInt(3));
+            final int q = (int) randomPrime(random, 13 + random.nextInt(3));
+            final List<Integer> expected = new ArrayList<Integer>(List.of(p, q));
+            Collections.sort(expected);
+            assertEquals(expected, PollardRho.primeFactors(p * q), p + " * " + q);
+        }
+        assertEquals(List.of(46337, 46337), PollardRho.primeFactors(46337 * 46337));
+    }
+
+    @Test
+    void longSemiprimesOfLargePrimes() {
+        final Random random = new Random(7L);
+        for (int i = 0; i < 300; i++) {
+            final long p = randomPrime(random, 20 + random.nextInt(12));
+            final long q = randomPrime(random, 20 + random.nextInt(12));
+            final List<Long> expected = new ArrayList<Long>(List.of(p, q));
+            Collections.sort(expected);
+            assertEquals(expected, PollardRho.primeFactors(p * q), p + " * " + q);
+            assertEquals(expected, Primes.primeFactors(p * q), p + " * " + q);
+        }
+    }
+
+    @Test
+    void longProductsOfSeveralPrimes() {
+        final Random random = new Random(8L);
+        for (int i = 0; i < 300; i++) {
+            final List<Long> expected = new ArrayList<Long>();
+            long n = 1;
+            while (true) {
+                final long p = randomPrime(random, 10 + random.nextInt(12));
+                if (Long.MAX_VALUE / p < n) {
+                    break;
+                }
+                n *= p;
+                expected.add(p);
+            }
+            Collections.sort(expected);
+            assertEquals(expected, PollardRho.primeFactors(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void longPrimesAndPrimePowers() {
+        final Random random = new Random(9L);
+        for (int i = 0; i < 200; i++) {
+            final long p = randomPrime(random, 33 + random.nextInt(30));
+            assertEquals(List.of(p), PollardRho.primeFactors(p));
+        }
+        final long p = 2097143L;
+        assertEquals(List.of(p, p, p), PollardRho.primeFactors(p * p * p));
+        assertTrue(PollardRho.primeFactors(1L).isEmpty());
+    }
+}
@@ -0,0 +1,92 @@
+package experimento;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PrimalityBitmapTest {
+
+    private static final int LIMIT = SegmentedSieveTest.LIMIT;
+
+    @TempDir
+    Path dir;
+
+    private static void checkAgainstPlainSieve(PrimalityBitmap bitmap) {
+        for (int n = -5; n < bitmap.getBound(); n++) {
+            assertEquals(n >= 0 && !SegmentedSieveTest.COMPOSITE[n], bitmap.isPrime(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void generatedBitmapMatchesPlainSieve() throws IOException {
+        final PrimalityBitmap bitmap = PrimalityBitmap.load(dir.resolve("primes.bin"), LIMIT);
+        assertEquals(LIMIT, bitmap.getBound());
+        checkAgainstPlainSieve(bitmap);
+    }
+
+    @Test
+    void smallAndOddBounds() throws IOException {
+        for (int bound = 3; bound < 300; bound++) {
+            checkAgainstPlainSieve(PrimalityBitmap.load(dir.resolve("primes-" + bound + ".bin"), bound));
+        }
+    }
+
+    @Test
+    void existingFileIsReused() throws IOException {
+        final Path file = dir.resolve("primes.bin");
+        PrimalityBitmap.load(file, LIMIT);
+        final FileTime old = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(file, old);
+        checkAgainstPlainSieve(PrimalityBitmap.load(file, LIMIT));
+        assertEquals(old, Files.getLastModifiedTime(file));
+    }
+
+    @Test
+    void mismatchingFileIsRegenerated() throws IOException {
+        final Path file = dir.resolve("primes.bin");
+        PrimalityBitmap.load(file, 1000);
+        checkAgainstPlainSieve(PrimalityBitmap.load(file, LIMIT));
+
+        // same size, damaged header
+        final byte[] content = Files.readAllBytes(file);
+        content[0] ^= 1;
+        Files.write(file, content);
+        checkAgainstPlainSieve(PrimalityBitmap.load(file, LIMIT));
+
+        Files.write(file, new byte[7]);
+        checkAgainstPlainSieve(PrimalityBitmap.load(file, LIMIT));
+    }
+
+    @Test
+    void primesUseTheBitmapBelowItsBound() throws IOException {
+        final PrimalityBitmap bitmap = PrimalityBitmap.load(dir.resolve("primes.bin"), 100000);
+        Primes.setPrimalityBitmap(bitmap);
+        try {
+            assertSame(bitmap, Primes.getPrimalityBitmap());
+            // above the bound, the default path is used
+            for (int n = 0; n < LIMIT; n++) {
+                assertEquals(!SegmentedSieveTest.COMPOSITE[n], Primes.isPrime(n), "n = " + n);
+                assertEquals(!SegmentedSieveTest.COMPOSITE[n], Primes.isPrime((long) n), "n = " + n);
+            }
+        } finally {
+            Primes.setPrimalityBitmap(null);
+        }
+    }
+
+    @Test
+    void invalidBounds() {
+        final Path file = dir.resolve("primes.bin");
+        assertThrows(MathIllegalArgumentException.class, () -> PrimalityBitmap.load(file, 2));
+        assertThrows(MathIllegalArgumentException.class,
+                     () -> PrimalityBitmap.load(file, PrimalityBitmap.MAX_BOUND + 1));
+    }
+}
@@ -0,0 +1,85 @@
+package experimento;
+
+import java.util.Random;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PrimeCountingTest {
+
+    /** &pi;(10<sup>k</sup>) for k = 0..12. */
+    private static final long[] PI_POWERS_OF_TEN = {
+        0L, 4L, 25L, 168L, 1229L, 9592L, 78498L, 664579L, 5761455L, 50847534L, 455052511L,
+        4118054813L, 37607912018L
+    };
+
+    /** p<sub>n</sub> for n = 10<sup>k</sup>, k = 0..9. */
+    private static final long[] NTH_POWERS_OF_TEN = {
+        2L, 29L, 541L, 7919L, 104729L, 1299709L, 15485863L, 179424673L, 2038074743L, 22801763489L
+    };
+
+    @Test
+    void knownValuesOfPi() {
+        long x = 1;
+        for (final long expected : PI_POWERS_OF_TEN) {
+            assertEquals(expected, Primes.countPrimes(x), "x = " + x);
+            x *= 10;
+        }
+        assertEquals(203280221L, Primes.countPrimes(1L << 32));
+        assertEquals(105097565L, Primes.countPrimes(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void knownPrimesOfPowerOfTenRank() {
+        long n = 1;
+        for (final long expected : NTH_POWERS_OF_TEN) {
+            assertEquals(expected, Primes.nthPrime(n), "n = " + n);
+            n *= 10;
+        }
+        assertEquals(Integer.MAX_VALUE, Primes.nthPrime(105097565L));
+    }
+
+    @Test
+    void countAndRankMatchPlainSieve() {
+        final long[] primes = SegmentedSieveTest.reference(0, SegmentedSieveTest.LIMIT);
+        assertEquals(0, Primes.countPrimes(-3));
+        int count = 0;
+        for (int x = 0; x < 20000; x++) {
+            if (!SegmentedSieveTest.COMPOSITE[x]) {
+                ++count;
+            }
+            assertEquals(count, Primes.countPrimes(x), "x = " + x);
+        }
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(primes[i], Primes.nthPrime(i + 1), "n = " + (i + 1));
+        }
+        final Random random = new Random(16L);
+        for (int i = 0; i < 200; i++) {
+            final int k = random.nextInt(primes.length);
+            assertEquals(primes[k], Primes.nthPrime(k + 1), "n = " + (k + 1));
+            assertEquals(k + 1, Primes.countPrimes(primes[k]), "x = " + primes[k]);
+            assertEquals(k, Primes.countPrimes(primes[k] - 1), "x = " + (primes[k] - 1));
+        }
+    }
+
+    @Test
+    void countAndRankAgreeOnLargeValues() {
+        final Random random = new Random(17L);
+        for (int i = 0; i < 5; i++) {
+            final long n = 1 + (random.nextLong() >>> 29);
+            final long p = Primes.nthPrime(n);
+            assertEquals(p, Primes.nextPrime(p), "n = " + n);
+            assertEquals(n, Primes.countPrimes(p), "n = " + n);
+            assertEquals(n - 1, Primes.countPrimes(p - 1), "n = " + n);
+        }
+    }
+
+    @Test
+    void invalidArguments() {
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.nthPrime(0));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.countPrimes(SegmentedSieve.MAX_BOUND));
+    }
+}
@@ -0,0 +1,75 @@
+package experimento;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.stream.LongStream;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PrimeStreamTest {
+
+    private static final int LIMIT = SegmentedSieveTest.LIMIT;
+
+    @Test
+    void boundedStreamsMatchPlainSieve() {
+        final long[] expected = SegmentedSieveTest.reference(0, LIMIT);
+        assertArrayEquals(expected, Primes.stream(0, LIMIT).asLongStream().toArray());
+        assertArrayEquals(expected, Primes.stream(0L, LIMIT).toArray());
+        for (int lo = 0; lo < 30; lo++) {
+            assertArrayEquals(SegmentedSieveTest.reference(lo, 100), Primes.stream(lo, 100).asLongStream().toArray());
+        }
+        assertEquals(0, Primes.stream(20, 20).count());
+    }
+
+    @Test
+    void parallelStreamsMatchPlainSieve() {
+        final long[] expected = SegmentedSieveTest.reference(1000, LIMIT);
+        assertArrayEquals(expected, Primes.stream(1000, LIMIT).parallel().asLongStream().toArray());
+        assertArrayEquals(expected, Primes.stream(1000L, LIMIT).parallel().toArray());
+        assertEquals(expected.length, Primes.stream(1000L, LIMIT).parallel().count());
+        assertEquals(Arrays.stream(expected).sum(), Primes.stream(1000L, LIMIT).parallel().sum());
+    }
+
+    @Test
+    void unboundedStreamsAreLazy() {
+        final long[] expected = SegmentedSieveTest.reference(0, LIMIT);
+        assertArrayEquals(Arrays.copyOf(expected, 50000), Primes.stream(0).limit(50000).asLongStream().toArray());
+        assertArrayEquals(Arrays.copyOf(expected, 50000), Primes.stream(0L).limit(50000).toArray());
+        assertArrayEquals(Arrays.copyOf(expected, 50000), Primes.stream(0L).parallel().limit(50000).toArray());
+        assertEquals(1000000000039L, Primes.stream(1000000000000L).findFirst().getAsLong());
+    }
+
+    @Test
+    void unboundedIntStreamStopsAtIntegerMaxValue() {
+        assertArrayEquals(new int[] {2147483629, 2147483647}, Primes.stream(Integer.MAX_VALUE - 20).toArray());
+    }
+
+    @Test
+    void splitsCoverTheRangeInOrder() {
+        final Spliterator.OfLong whole = Primes.stream(0L, LIMIT).spliterator();
+        assertTrue(whole.hasCharacteristics(Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.ORDERED));
+        final Spliterator.OfLong prefix = whole.trySplit();
+        final LongStream.Builder builder = LongStream.builder();
+        if (prefix != null) {
+            prefix.forEachRemaining((long p) -> builder.add(p));
+        }
+        whole.forEachRemaining((long p) -> builder.add(p));
+        assertArrayEquals(SegmentedSieveTest.reference(0, LIMIT), builder.build().toArray());
+        assertFalse(whole.tryAdvance((long p) -> { }));
+    }
+
+    @Test
+    void invalidBounds() {
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.stream(-1));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.stream(5, 4));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.stream(-1L));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.stream(0L, SegmentedSieve.MAX_BOUND + 1));
+    }
+}
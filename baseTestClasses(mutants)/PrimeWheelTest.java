@@ -0,0 +1,98 @@
+package experimento;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PrimeWheelTest {
+
+    private static final long LARGEST_LONG_PRIME = 9223372036854775783L;
+
+    private static long referencePrevious(long n) {
+        while (!BigInteger.valueOf(n).isProbablePrime(64)) {
+            --n;
+        }
+        return n;
+    }
+
+    @Test
+    void nextAndPreviousMatchPlainSieve() {
+        final boolean[] composite = SegmentedSieveTest.COMPOSITE;
+        int next = -1;
+        for (int n = SegmentedSieveTest.LIMIT - 1; n >= 0; n--) {
+            if (!composite[n]) {
+                next = n;
+            }
+            if (next >= 0) {
+                assertEquals(next, Primes.nextPrime(n), "n = " + n);
+                assertEquals(next, Primes.nextPrime((long) n), "n = " + n);
+            }
+        }
+        int previous = -1;
+        for (int n = 2; n < SegmentedSieveTest.LIMIT; n++) {
+            if (!composite[n]) {
+                previous = n;
+            }
+            assertEquals(previous, Primes.previousPrime(n), "n = " + n);
+            assertEquals(previous, Primes.previousPrime((long) n), "n = " + n);
+        }
+    }
+
+    @Test
+    void previousPrimeAcrossIntBoundary() {
+        assertEquals(Integer.MAX_VALUE, Primes.previousPrime(Integer.MAX_VALUE));
+        assertEquals(2147483629, Primes.previousPrime(Integer.MAX_VALUE - 1));
+        assertEquals(Integer.MAX_VALUE, Primes.previousPrime((long) Integer.MAX_VALUE + 1));
+        assertEquals(Integer.MAX_VALUE, Primes.previousPrime(2147483658L));
+        assertEquals(2147483659L, Primes.previousPrime(2147483659L));
+        for (long n = Integer.MAX_VALUE - 500L; n < Integer.MAX_VALUE + 500L; n++) {
+            assertEquals(referencePrevious(n), Primes.previousPrime(n), "n = " + n);
+            if (n <= Integer.MAX_VALUE) {
+                assertEquals(referencePrevious(n), Primes.previousPrime((int) n), "n = " + n);
+            }
+        }
+        assertEquals(4294967291L, Primes.previousPrime(1L << 32));
+    }
+
+    @Test
+    void previousPrimeAtTopOfLongRange() {
+        assertEquals(LARGEST_LONG_PRIME, Primes.previousPrime(Long.MAX_VALUE));
+        assertEquals(LARGEST_LONG_PRIME, Primes.previousPrime(LARGEST_LONG_PRIME));
+        for (long n = Long.MAX_VALUE; n > Long.MAX_VALUE - 1000; n--) {
+            assertEquals(referencePrevious(n), Primes.previousPrime(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void previousPrimeMatchesBigIntegerOnRandomLongs() {
+        final Random random = new Random(18L);
+        for (int i = 0; i < 3000; i++) {
+            final long n = Math.max(2, random.nextLong() >>> (1 + random.nextInt(62)));
+            assertEquals(referencePrevious(n), Primes.previousPrime(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void nextAndPreviousAreConsistent() {
+        final Random random = new Random(19L);
+        for (int i = 0; i < 3000; i++) {
+            final long n = 3 + (random.nextLong() >>> (2 + random.nextInt(61)));
+            final long next = Primes.nextPrime(n);
+            assertEquals(next, Primes.previousPrime(next), "n = " + n);
+            assertEquals(Primes.previousPrime(n - 1), Primes.previousPrime(next - 1), "n = " + n);
+        }
+    }
+
+    @Test
+    void numbersBelowTwoAreRejected() {
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.previousPrime(1));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.previousPrime(Integer.MIN_VALUE));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.previousPrime(-7L));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.nextPrime(-1));
+    }
+}
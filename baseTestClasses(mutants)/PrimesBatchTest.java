@@ -0,0 +1,90 @@
+package experimento;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PrimesBatchTest {
+
+    private static final int[] LENGTHS = {
+        0, 1, 2, 63, 64, 65, BatchPrimalityTest.BLOCK - 1, BatchPrimalityTest.BLOCK, BatchPrimalityTest.BLOCK + 1,
+        3 * BatchPrimalityTest.BLOCK + 17, 100000
+    };
+
+    private static void check(int[] in) {
+        final boolean[] out = new boolean[in.length + 3];
+        Arrays.fill(out, true);
+        Primes.isPrime(in, out);
+        final long[] bitmask = new long[(in.length + 63) / 64];
+        Arrays.fill(bitmask, -1L);
+        Primes.isPrime(in, bitmask);
+        for (int i = 0; i < in.length; i++) {
+            final boolean expected = in[i] >= 0 && BigInteger.valueOf(in[i]).isProbablePrime(64);
+            assertEquals(expected, out[i], "n = " + in[i]);
+            assertEquals(expected, (bitmask[i >>> 6] & (1L << i)) != 0, "n = " + in[i]);
+        }
+        for (int i = in.length; i < out.length; i++) {
+            assertEquals(true, out[i]);
+        }
+        if ((in.length & 63) != 0) {
+            assertEquals(0L, bitmask[bitmask.length - 1] & (-1L << in.length), "trailing bits");
+        }
+    }
+
+    @Test
+    void randomArraysMatchBigInteger() {
+        final Random random = new Random(20L);
+        for (final int length : LENGTHS) {
+            final int[] in = new int[length];
+            for (int i = 0; i < length; i++) {
+                in[i] = random.nextInt() >>> random.nextInt(32);
+            }
+            check(in);
+        }
+    }
+
+    @Test
+    void hardNumbersMatchBigInteger() {
+        final int[] in = new int[400];
+        int k = 0;
+        for (final int n : new int[] {
+            -7, -2, -1, 0, 1, 2, 3, 4, 5, 25, 49, 53 * 53, 2047, 3277, 4033, 4681, 8321, 1373653,
+            1530787, 1987021, 2284453, 25326001, 161304001, 960946321, 561, 1105, 1729, 2465,
+            46337 * 46337, 46339, Integer.MAX_VALUE, Integer.MAX_VALUE - 1, Integer.MIN_VALUE
+        }) {
+            in[k++] = n;
+        }
+        for (int n = 0; k < in.length; n++) {
+            in[k++] = n;
+        }
+        check(in);
+        check(Arrays.copyOf(in, 40));
+    }
+
+    @Test
+    void plainSieveRange() {
+        final int[] in = new int[SegmentedSieveTest.LIMIT];
+        for (int i = 0; i < in.length; i++) {
+            in[i] = i;
+        }
+        final boolean[] out = new boolean[in.length];
+        Primes.isPrime(in, out);
+        for (int i = 0; i < in.length; i++) {
+            assertEquals(!SegmentedSieveTest.COMPOSITE[i], out[i], "n = " + i);
+        }
+    }
+
+    @Test
+    void shortOutputIsRejected() {
+        assertThrows(DimensionMismatchException.class, () -> Primes.isPrime(new int[5], new boolean[4]));
+        assertThrows(DimensionMismatchException.class, () -> Primes.isPrime(new int[65], new long[1]));
+        Primes.isPrime(new int[64], new long[1]);
+        Primes.isPrime(new int[0], new long[0]);
+    }
+}
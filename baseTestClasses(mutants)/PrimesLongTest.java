@@ -0,0 +1,144 @@
+package experimento;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PrimesLongTest {
+
+    /** Largest prime below 2^63. */
+    private static final long LARGEST_LONG_PRIME = 9223372036854775783L;
+
+    /** Strong pseudoprimes to the bases 2 to 7 and above, each one the smallest for its set of bases. */
+    private static final long[] STRONG_PSEUDOPRIMES = {
+        3215031751L, 2152302898747L, 3474749660383L, 341550071728321L, 3825123056546413051L
+    };
+
+    private static boolean reference(long n) {
+        return BigInteger.valueOf(n).isProbablePrime(64);
+    }
+
+    private static long referenceNext(long n) {
+        return n <= 2 ? 2 : BigInteger.valueOf(n - 1).nextProbablePrime().longValue();
+    }
+
+    @Test
+    void isPrimeMatchesIntOverload() {
+        for (int n = -10; n < 100000; n++) {
+            assertEquals(Primes.isPrime(n), Primes.isPrime((long) n), "n = " + n);
+        }
+    }
+
+    @Test
+    void isPrimeMatchesBigIntegerOnRandomLongs() {
+        final Random random = new Random(2L);
+        for (int i = 0; i < 20000; i++) {
+            final long n = random.nextLong() >>> (1 + random.nextInt(62));
+            assertEquals(reference(n), Primes.isPrime(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void isPrimeMatchesBigIntegerAroundPowersOfTwo() {
+        for (int bits = 31; bits < 63; bits++) {
+            final long power = 1L << bits;
+            for (long n = power - 200; n < power + 200; n++) {
+                assertEquals(reference(n), Primes.isPrime(n), "n = " + n);
+            }
+        }
+        for (long n = Long.MAX_VALUE; n > Long.MAX_VALUE - 400; n--) {
+            assertEquals(reference(n), Primes.isPrime(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void isPrimeRejectsStrongPseudoprimes() {
+        for (final long n : STRONG_PSEUDOPRIMES) {
+            assertFalse(Primes.isPrime(n), "n = " + n);
+            assertFalse(SmallPrimes.millerRabinPrimeTest(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void isPrimeRejectsSemiprimesOfLargePrimes() {
+        final long p = 3037000493L;
+        final long q = 3037000453L;
+        assertTrue(Primes.isPrime(p));
+        assertTrue(Primes.isPrime(q));
+        assertFalse(Primes.isPrime(p * q));
+        assertFalse(Primes.isPrime(p * p));
+    }
+
+    @Test
+    void isPrimeOfNegativeNumbers() {
+        assertFalse(Primes.isPrime(Long.MIN_VALUE));
+        assertFalse(Primes.isPrime(-2L));
+        assertFalse(Primes.isPrime(-7L));
+    }
+
+    @Test
+    void nextPrimeAcrossIntBoundary() {
+        assertEquals(Integer.MAX_VALUE, Primes.nextPrime((long) Integer.MAX_VALUE));
+        assertEquals(2147483659L, Primes.nextPrime((long) Integer.MAX_VALUE + 1));
+        for (long n = Integer.MAX_VALUE - 1000L; n < Integer.MAX_VALUE + 1000L; n++) {
+            assertEquals(referenceNext(n), Primes.nextPrime(n), "n = " + n);
+        }
+        for (long n = (1L << 32) - 1000; n < (1L << 32) + 1000; n++) {
+            assertEquals(referenceNext(n), Primes.nextPrime(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void nextPrimeMatchesBigIntegerOnRandomLongs() {
+        final Random random = new Random(3L);
+        for (int i = 0; i < 2000; i++) {
+            final long n = random.nextLong() >>> (1 + random.nextInt(62));
+            assertEquals(referenceNext(n), Primes.nextPrime(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void nextPrimeAtLargestLongPrime() {
+        assertTrue(reference(LARGEST_LONG_PRIME));
+        assertEquals(LARGEST_LONG_PRIME, Primes.nextPrime(LARGEST_LONG_PRIME));
+        assertEquals(LARGEST_LONG_PRIME, Primes.nextPrime(LARGEST_LONG_PRIME - 20));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.nextPrime(LARGEST_LONG_PRIME + 1));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.nextPrime(Long.MAX_VALUE));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.nextPrime(-1L));
+    }
+
+    @Test
+    void primeFactorsMultiplyBackToPrimes() {
+        final Random random = new Random(4L);
+        for (int i = 0; i < 3000; i++) {
+            final long n = Math.max(2, random.nextLong() >>> (1 + random.nextInt(62)));
+            final List<Long> factors = Primes.primeFactors(n);
+            long product = 1;
+            long previous = 2;
+            for (final long p : factors) {
+                assertTrue(reference(p), p + " in the factors of " + n);
+                assertTrue(p >= previous, "ascending factors of " + n);
+                product *= p;
+                previous = p;
+            }
+            assertEquals(n, product);
+        }
+    }
+
+    @Test
+    void primeFactorsOfSpecialValues() {
+        assertEquals(List.of(LARGEST_LONG_PRIME), Primes.primeFactors(LARGEST_LONG_PRIME));
+        assertEquals(List.of(7L, 7L, 73L, 127L, 337L, 92737L, 649657L), Primes.primeFactors(Long.MAX_VALUE));
+        assertEquals(62, Primes.primeFactors(1L << 62).size());
+        assertEquals(List.of(3037000453L, 3037000493L), Primes.primeFactors(3037000453L * 3037000493L));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.primeFactors(1L));
+    }
+}
@@ -0,0 +1,134 @@
+package experimento;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+public class PrimesMetricsTest {
+
+    /** Reflective access to the classes of an isolated class loader. */
+    private static final class Isolated {
+
+        private final ClassLoader loader;
+
+        Isolated(ClassLoader loader) {
+            this.loader = loader;
+        }
+
+        Object call(String className, String method, Class<?>[] types, Object... args) throws Exception {
+            final Method m = Class.forName("experimento." + className, true, loader).getDeclaredMethod(method, types);
+            m.setAccessible(true);
+            return m.invoke(null, args);
+        }
+
+        Object metric(String method, Object... args) throws Exception {
+            final Class<?>[] types = args.length == 0 ? new Class<?>[0] : new Class<?>[] {int.class};
+            return call("PrimesMetrics", method, types, args);
+        }
+
+        long millerRabinTotal() throws Exception {
+            long total = 0;
+            for (int t = 1; t <= PrimesMetrics.MAX_WITNESSES; t++) {
+                total += (Long) metric("getMillerRabinResolutions", t);
+            }
+            return total;
+        }
+    }
+
+    /** Load a fresh copy of the classes, with the metrics enabled. */
+    private static Isolated enabled() throws Exception {
+        return new Isolated(IsolatedClasses.initialize("PrimesMetrics", PrimesMetrics.ENABLED_PROPERTY, "true"));
+    }
+
+    @Test
+    void everyNumberIsCountedOnce() throws Exception {
+        final Isolated metrics = enabled();
+        assertEquals(true, metrics.metric("isEnabled"));
+        metrics.metric("reset");
+        int primes = 0;
+        for (int n = 2; n < 100000; n++) {
+            if ((Boolean) metrics.call("Primes", "isPrime", new Class<?>[] {int.class}, n)) {
+                ++primes;
+            }
+        }
+        assertEquals(9592, primes);
+        final long small = (Long) metrics.metric("getSmallPrimeResolutions");
+        final long millerRabin = metrics.millerRabinTotal();
+        assertEquals(100000 - 2, small + millerRabin);
+        assertTrue(small > millerRabin);
+        assertEquals(0L, metrics.metric("getBitmapResolutions"));
+
+        final boolean[] out = new boolean[1000];
+        final int[] in = new int[out.length];
+        for (int i = 0; i < in.length; i++) {
+            in[i] = 1000001 + 2 * i;
+        }
+        metrics.metric("reset");
+        metrics.call("Primes", "isPrime", new Class<?>[] {int[].class, boolean[].class}, in, out);
+        assertEquals(in.length, (Long) metrics.metric("getSmallPrimeResolutions") + metrics.millerRabinTotal());
+    }
+
+    @Test
+    void witnessesAreCountedByNumberOfBases() throws Exception {
+        final Isolated metrics = enabled();
+        metrics.metric("reset");
+        metrics.call("Primes", "isPrime", new Class<?>[] {int.class}, 1000000007);
+        metrics.call("Primes", "isPrime", new Class<?>[] {long.class}, 9223372036854775783L);
+        metrics.call("Primes", "isPrime", new Class<?>[] {long.class}, 4294967311L);
+        final long[] counts = new long[PrimesMetrics.MAX_WITNESSES + 1];
+        for (int t = 1; t <= PrimesMetrics.MAX_WITNESSES; t++) {
+            counts[t] = (Long) metrics.metric("getMillerRabinResolutions", t);
+        }
+        final long[] expected = new long[PrimesMetrics.MAX_WITNESSES + 1];
+        expected[4] = 1;
+        expected[5] = 1;
+        expected[12] = 1;
+        assertArrayEquals(expected, counts);
+    }
+
+    @Test
+    void boundedTrialDivisionHistogram() throws Exception {
+        final Isolated metrics = enabled();
+        metrics.metric("reset");
+        final int first = Primes.nextPrime(SmallPrimes.PRIMES_LAST + 2);
+        final int second = Primes.nextPrime(first + 1);
+        final List<Integer> factors = new ArrayList<Integer>();
+        metrics.call("SmallPrimes", "boundedTrialDivision", new Class<?>[] {int.class, int.class, List.class},
+                     first * second, second, factors);
+        assertEquals(List.of(first, second), factors);
+        assertEquals(1L, metrics.metric("getBoundedTrialDivisions"));
+        final long candidates = (Long) metrics.metric("getBoundedTrialDivisionCandidates");
+        assertEquals((first - SmallPrimes.TRIAL_DIVISION_START) / 3, candidates);
+        final long[] histogram = (long[]) metrics.metric("getBoundedTrialDivisionHistogram");
+        assertEquals(PrimesMetrics.HISTOGRAM_BUCKETS, histogram.length);
+        final long[] expected = new long[PrimesMetrics.HISTOGRAM_BUCKETS];
+        expected[Long.SIZE - Long.numberOfLeadingZeros(candidates)] = 1;
+        assertArrayEquals(expected, histogram);
+
+        metrics.metric("reset");
+        assertEquals(0L, metrics.metric("getBoundedTrialDivisions"));
+        assertArrayEquals(new long[PrimesMetrics.HISTOGRAM_BUCKETS], (long[]) metrics.metric("getBoundedTrialDivisionHistogram"));
+    }
+
+    @Test
+    void disabledMetricsStayAtZero() {
+        assumeFalse(PrimesMetrics.isEnabled());
+        for (int n = 0; n < 10000; n++) {
+            Primes.isPrime(n);
+            Primes.isPrime(Long.MAX_VALUE - n);
+        }
+        assertEquals(0, PrimesMetrics.getSmallPrimeResolutions());
+        assertEquals(0, PrimesMetrics.getBitmapResolutions());
+        for (int t = 1; t <= PrimesMetrics.MAX_WITNESSES; t++) {
+            assertEquals(0, PrimesMetrics.getMillerRabinResolutions(t));
+        }
+        assertEquals(0, PrimesMetrics.getBoundedTrialDivisions());
+    }
+}
@@ -0,0 +1,115 @@
+package experimento;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PrimitiveFactorsTest {
+
+    /** Product of the first 9 primes, the int with the most distinct prime factors. */
+    private static final int PRIMORIAL_INT = 223092870;
+
+    /** Product of the first 15 primes, the long with the most distinct prime factors. */
+    private static final long PRIMORIAL_LONG = 614889782588491410L;
+
+    /** Group ascending prime factors into {p1, e1, p2, e2, ...}. */
+    private static long[] powersOf(List<? extends Number> factors) {
+        final List<Long> powers = new ArrayList<Long>();
+        for (final Number f : factors) {
+            final long p = f.longValue();
+            if (!powers.isEmpty() && powers.get(powers.size() - 2) == p) {
+                powers.set(powers.size() - 1, powers.get(powers.size() - 1) + 1);
+            } else {
+                powers.add(p);
+                powers.add(1L);
+            }
+        }
+        return powers.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static void checkInt(int n) {
+        final List<Integer> expected = SmallPrimes.trialDivision(n);
+        final int[] factors = new int[32];
+        final int count = Primes.primeFactors(n, factors);
+        final int[] actual = new int[count];
+        System.arraycopy(factors, 0, actual, 0, count);
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), actual, "n = " + n);
+
+        final int[] powers = new int[18];
+        final int distinct = Primes.primePowers(n, powers);
+        final long[] actualPowers = new long[2 * distinct];
+        for (int i = 0; i < actualPowers.length; i++) {
+            actualPowers[i] = powers[i];
+        }
+        assertArrayEquals(powersOf(expected), actualPowers, "n = " + n);
+    }
+
+    private static void checkLong(long n) {
+        final List<Long> expected = Primes.primeFactors(n);
+        final long[] factors = new long[64];
+        final int count = Primes.primeFactors(n, factors);
+        final long[] actual = new long[count];
+        System.arraycopy(factors, 0, actual, 0, count);
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), actual, "n = " + n);
+
+        final long[] powers = new long[30];
+        final int distinct = Primes.primePowers(n, powers);
+        final long[] actualPowers = new long[2 * distinct];
+        System.arraycopy(powers, 0, actualPowers, 0, actualPowers.length);
+        assertArrayEquals(powersOf(expected), actualPowers, "n = " + n);
+    }
+
+    @Test
+    void intFactorsMatchTrialDivision() {
+        for (int n = 2; n < 100000; n++) {
+            checkInt(n);
+        }
+        final Random random = new Random(12L);
+        for (int i = 0; i < 20000; i++) {
+            checkInt(2 + random.nextInt(Integer.MAX_VALUE - 1));
+        }
+    }
+
+    @Test
+    void longFactorsMatchListFactors() {
+        final Random random = new Random(13L);
+        for (int i = 0; i < 3000; i++) {
+            checkLong(Math.max(2, random.nextLong() >>> (1 + random.nextInt(62))));
+        }
+    }
+
+    @Test
+    void documentedArraySizesAreEnough() {
+        assertEquals(30, Primes.primeFactors(1 << 30, new int[32]));
+        assertEquals(9, Primes.primePowers(PRIMORIAL_INT, new int[18]));
+        assertEquals(62, Primes.primeFactors(1L << 62, new long[64]));
+        assertEquals(15, Primes.primePowers(PRIMORIAL_LONG, new long[30]));
+        checkInt(Integer.MAX_VALUE);
+        checkInt(PRIMORIAL_INT);
+        checkLong(PRIMORIAL_LONG);
+        checkLong(Long.MAX_VALUE);
+    }
+
+    @Test
+    void documentedExample() {
+        final int[] powers = new int[18];
+        assertEquals(3, Primes.primePowers(360, powers));
+        assertArrayEquals(new int[] {2, 3, 3, 2, 5, 1}, Arrays.copyOf(powers, 6));
+    }
+
+    @Test
+    void numbersBelowTwoAreRejected() {
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.primeFactors(1, new int[32]));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.primeFactors(-5L, new long[64]));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.primePowers(0, new int[18]));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.primePowers(1L, new long[30]));
+    }
+}
@@ -0,0 +1,113 @@
+package experimento;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SegmentedSieveTest {
+
+    /** Bound of the plain sieve, spanning several segments. */
+    static final int LIMIT = 3 * 2 * SegmentedSieve.SEGMENT_BITS + 12345;
+
+    /** Plain sieve of Eratosthenes: COMPOSITE[n] is false for the primes below LIMIT. */
+    static final boolean[] COMPOSITE = new boolean[LIMIT];
+
+    static {
+        COMPOSITE[0] = true;
+        COMPOSITE[1] = true;
+        for (int p = 2; (long) p * p < LIMIT; p++) {
+            if (!COMPOSITE[p]) {
+                for (int m = p * p; m < LIMIT; m += p) {
+                    COMPOSITE[m] = true;
+                }
+            }
+        }
+    }
+
+    /** Primes of the plain sieve in [lo, hi). */
+    static long[] reference(long lo, long hi) {
+        return LongStream.range(lo, hi).filter(n -> !COMPOSITE[(int) n]).toArray();
+    }
+
+    /** Primes in [lo, hi), tested one by one with BigInteger. */
+    static long[] referenceLarge(long lo, long hi) {
+        return LongStream.range(lo, hi).filter(n -> BigInteger.valueOf(n).isProbablePrime(64)).toArray();
+    }
+
+    static long[] toLong(int[] primes) {
+        return Arrays.stream(primes).asLongStream().toArray();
+    }
+
+    @Test
+    void wholeRangeMatchesPlainSieve() {
+        assertArrayEquals(reference(0, LIMIT), toLong(Primes.primesInRange(0, LIMIT)));
+        assertArrayEquals(reference(0, LIMIT), Primes.primesInRange(0L, LIMIT));
+    }
+
+    @Test
+    void smallRangesMatchPlainSieve() {
+        for (int lo = 0; lo < 40; lo++) {
+            for (int hi = lo; hi < 60; hi++) {
+                assertArrayEquals(reference(lo, hi), toLong(Primes.primesInRange(lo, hi)), lo + ".." + hi);
+            }
+        }
+    }
+
+    @Test
+    void rangesAroundSegmentBoundariesMatchPlainSieve() {
+        final int span = 2 * SegmentedSieve.SEGMENT_BITS;
+        for (int k = 1; k <= 3; k++) {
+            for (int d = -3; d <= 3; d++) {
+                final int lo = k * span + d;
+                assertArrayEquals(reference(lo - 1000, lo), Primes.primesInRange(lo - 1000L, lo));
+                assertArrayEquals(reference(lo, lo + 1000), Primes.primesInRange((long) lo, lo + 1000L));
+                assertArrayEquals(reference(lo - span + 7, lo + 1), toLong(Primes.primesInRange(lo - span + 7, lo + 1)));
+            }
+        }
+    }
+
+    @Test
+    void randomRangesMatchPlainSieve() {
+        final Random random = new Random(10L);
+        for (int i = 0; i < 300; i++) {
+            final int lo = random.nextInt(LIMIT);
+            final int hi = lo + random.nextInt(LIMIT - lo + 1);
+            assertArrayEquals(reference(lo, hi), toLong(Primes.primesInRange(lo, hi)), lo + ".." + hi);
+        }
+    }
+
+    @Test
+    void consumerReceivesThePrimesInOrder() {
+        final long[] received = new long[LIMIT];
+        final int[] count = new int[1];
+        Primes.primesInRange(100L, LIMIT, p -> received[count[0]++] = p);
+        assertArrayEquals(reference(100, LIMIT), Arrays.copyOf(received, count[0]));
+    }
+
+    @Test
+    void largeRangesMatchBigInteger() {
+        final long[] starts = {
+            (1L << 31) - 5000, (1L << 32) - 5000, 1000000000000L, 1L << 42, (1L << 42) - 3000,
+            SegmentedSieve.MAX_BOUND - 20000
+        };
+        for (final long lo : starts) {
+            assertArrayEquals(referenceLarge(lo, lo + 10000), Primes.primesInRange(lo, lo + 10000), "lo = " + lo);
+        }
+        assertEquals(0, Primes.primesInRange(SegmentedSieve.MAX_BOUND, SegmentedSieve.MAX_BOUND).length);
+    }
+
+    @Test
+    void invalidRanges() {
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.primesInRange(-1, 10));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.primesInRange(10, 9));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.primesInRange(0L, SegmentedSieve.MAX_BOUND + 1));
+    }
+}
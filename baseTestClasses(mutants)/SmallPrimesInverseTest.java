@@ -0,0 +1,122 @@
+package experimento;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SmallPrimesInverseTest {
+
+    /** Reference extraction of the small factors, with the remainder operator. */
+    private static long referenceSmallTrialDivision(long n, List<Long> factors) {
+        for (final int p : SmallPrimes.PRIMES) {
+            while (Long.remainderUnsigned(n, p) == 0) {
+                n = Long.divideUnsigned(n, p);
+                factors.add((long) p);
+            }
+        }
+        return n;
+    }
+
+    private static void checkDivisibility(int n) {
+        for (int i = 1; i < SmallPrimes.PRIMES.length; i++) {
+            final int p = SmallPrimes.PRIMES[i];
+            final boolean divisible = Integer.remainderUnsigned(n, p) == 0;
+            final int quotient = n * SmallPrimes.INVERSES_32[i];
+            assertEquals(divisible, Integer.compareUnsigned(quotient, SmallPrimes.LIMITS_32[i]) <= 0, () -> n + " / " + p);
+            if (divisible) {
+                assertEquals(Integer.divideUnsigned(n, p), quotient, () -> n + " / " + p);
+            }
+        }
+    }
+
+    private static void checkDivisibility(long n) {
+        for (int i = 1; i < SmallPrimes.PRIMES.length; i++) {
+            final int p = SmallPrimes.PRIMES[i];
+            final boolean divisible = Long.remainderUnsigned(n, p) == 0;
+            final long quotient = n * SmallPrimes.INVERSES_64[i];
+            assertEquals(divisible, Long.compareUnsigned(quotient, SmallPrimes.LIMITS_64[i]) <= 0, () -> n + " / " + p);
+            if (divisible) {
+                assertEquals(Long.divideUnsigned(n, p), quotient, () -> n + " / " + p);
+            }
+        }
+    }
+
+    @Test
+    void inversesAndLimits() {
+        for (int i = 1; i < SmallPrimes.PRIMES.length; i++) {
+            final int p = SmallPrimes.PRIMES[i];
+            assertEquals(1, p * SmallPrimes.INVERSES_32[i], "p = " + p);
+            assertEquals(1L, p * SmallPrimes.INVERSES_64[i], "p = " + p);
+            assertEquals(Integer.divideUnsigned(-1, p), SmallPrimes.LIMITS_32[i], "p = " + p);
+            assertEquals(Long.divideUnsigned(-1L, p), SmallPrimes.LIMITS_64[i], "p = " + p);
+        }
+    }
+
+    @Test
+    void divisibilityMatchesRemainder() {
+        for (int n = 0; n < 30000; n++) {
+            checkDivisibility(n);
+            checkDivisibility(-n);
+            checkDivisibility((long) n);
+            checkDivisibility(-(long) n);
+        }
+        final Random random = new Random(21L);
+        for (int i = 0; i < 30000; i++) {
+            checkDivisibility(random.nextInt());
+            checkDivisibility(random.nextLong());
+            // multiples, to exercise the quotient
+            final int p = SmallPrimes.PRIMES[random.nextInt(SmallPrimes.PRIMES.length)];
+            checkDivisibility(p * (random.nextInt() >>> 8));
+            checkDivisibility(p * (random.nextLong() >>> 12));
+        }
+    }
+
+    @Test
+    void smallTrialDivisionMatchesRemainder() {
+        final Random random = new Random(22L);
+        for (int i = 0; i < 100000; i++) {
+            final int n = 1 + random.nextInt(Integer.MAX_VALUE);
+            final List<Long> expected = new ArrayList<Long>();
+            final long expectedRest = referenceSmallTrialDivision(n, expected);
+
+            final List<Integer> factors = new ArrayList<Integer>();
+            assertEquals(expectedRest, SmallPrimes.smallTrialDivision(n, factors), "n = " + n);
+            assertEquals(expected.size(), factors.size(), "n = " + n);
+            for (int k = 0; k < factors.size(); k++) {
+                assertEquals(expected.get(k).longValue(), factors.get(k).longValue(), "n = " + n);
+            }
+
+            final int[] array = new int[32];
+            final int count = SmallPrimes.smallTrialDivision(n, array);
+            assertEquals(expected.size(), count, "n = " + n);
+            for (int k = 0; k < count; k++) {
+                assertEquals(expected.get(k).longValue(), array[k], "n = " + n);
+            }
+            assertEquals(expectedRest, array[count], "n = " + n);
+        }
+    }
+
+    @Test
+    void longSmallTrialDivisionMatchesRemainder() {
+        final Random random = new Random(23L);
+        for (int i = 0; i < 100000; i++) {
+            long n = 1 + (random.nextLong() >>> (1 + random.nextInt(40)));
+            // make sure numbers with many small factors are covered
+            for (int k = random.nextInt(4); k > 0; k--) {
+                final int p = SmallPrimes.PRIMES[random.nextInt(SmallPrimes.PRIMES.length)];
+                if (n < Long.MAX_VALUE / p) {
+                    n *= p;
+                }
+            }
+            final List<Long> expected = new ArrayList<Long>();
+            final long expectedRest = referenceSmallTrialDivision(n, expected);
+            final List<Long> factors = new ArrayList<Long>();
+            assertEquals(expectedRest, SmallPrimes.smallTrialDivision(n, factors), "n = " + n);
+            assertEquals(expected, factors, "n = " + n);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package experimento;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SmallPrimesMillerRabinTest {
+
+    /** Strong pseudoprimes to base 2, the larger ones also to bases 3 and 5. */
+    private static final int[] STRONG_PSEUDOPRIMES = {
+        2047, 3277, 4033, 4681, 8321, 1373653, 1530787, 1987021, 2284453, 25326001, 161304001, 960946321
+    };
+
+    /** Carmichael numbers, which are Fermat pseudoprimes to all the coprime bases. */
+    private static final int[] CARMICHAEL = {
+        561, 1105, 1729, 2465, 2821, 6601, 8911, 41041, 62745, 63973, 75361, 101101, 126217, 172081, 188461, 252601
+    };
+
+    private static boolean reference(long n) {
+        return BigInteger.valueOf(n).isProbablePrime(64);
+    }
+
+    @Test
+    void matchesBigIntegerOnSmallOddNumbers() {
+        for (int n = 3; n < 200000; n += 2) {
+            assertEquals(reference(n), SmallPrimes.millerRabinPrimeTest(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void matchesBigIntegerOnRandomOddInts() {
+        final Random random = new Random(1L);
+        for (int i = 0; i < 100000; i++) {
+            final int n = (random.nextInt(Integer.MAX_VALUE / 2) << 1) + 3;
+            assertEquals(reference(n), SmallPrimes.millerRabinPrimeTest(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void matchesBigIntegerBelowIntegerMaxValue() {
+        for (int n = Integer.MAX_VALUE; n > Integer.MAX_VALUE - 20000; n -= 2) {
+            assertEquals(reference(n), SmallPrimes.millerRabinPrimeTest(n), "n = " + n);
+        }
+        assertTrue(SmallPrimes.millerRabinPrimeTest(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void rejectsStrongPseudoprimes() {
+        for (final int n : STRONG_PSEUDOPRIMES) {
+            assertFalse(SmallPrimes.millerRabinPrimeTest(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void rejectsCarmichaelNumbers() {
+        for (final int n : CARMICHAEL) {
+            assertFalse(SmallPrimes.millerRabinPrimeTest(n), "n = " + n);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package experimento;
+
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SmallPrimesTableTest {
+
+    /** Initialize a fresh copy of SmallPrimes with a system property set, and get a static field. */
+    private static Object fieldWithProperty(String property, String value, String field) throws Exception {
+        final ClassLoader loader = IsolatedClasses.initialize("SmallPrimes", property, value);
+        final Field f = Class.forName("experimento.SmallPrimes", false, loader).getField(field);
+        f.setAccessible(true);
+        return f.get(null);
+    }
+
+    @Test
+    void tableMatchesPlainSieve() {
+        final long[] expected = SegmentedSieveTest.reference(0, SegmentedSieveTest.LIMIT);
+        final int[] table = SmallPrimes.PRIMES;
+        assertEquals(SmallPrimes.DEFAULT_TABLE_SIZE, table.length);
+        for (int i = 0; i < table.length; i++) {
+            assertEquals(expected[i], table[i], "i = " + i);
+        }
+        assertEquals(table[table.length - 1], SmallPrimes.PRIMES_LAST);
+        assertEquals(SmallPrimes.DEFAULT_PREFILTER_LENGTH, SmallPrimes.PREFILTER_LENGTH);
+        // the first primes not in the table cube above the int range, see the PRIMES javadoc
+        final long next = Primes.nextPrime(SmallPrimes.PRIMES_LAST + 1);
+        assertTrue(next * next * next > Integer.MAX_VALUE);
+    }
+
+    @Test
+    void prefilterLengthDoesNotChangeTheResult() {
+        final int[] lengths = {
+            SmallPrimes.MIN_PREFILTER_LENGTH, 5, 16, SmallPrimes.PREFILTER_LENGTH, 200, SmallPrimes.PRIMES.length
+        };
+        for (int n = -3; n < SegmentedSieveTest.LIMIT; n++) {
+            final boolean expected = n >= 0 && !SegmentedSieveTest.COMPOSITE[n];
+            for (final int length : lengths) {
+                assertEquals(expected, Primes.isPrime(n, length), n + " with " + length);
+            }
+        }
+        final Random random = new Random(34L);
+        for (int i = 0; i < 20000; i++) {
+            final int n = random.nextInt() >>> random.nextInt(32);
+            final boolean expected = n >= 0 && BigInteger.valueOf(n).isProbablePrime(64);
+            for (final int length : lengths) {
+                assertEquals(expected, Primes.isPrime(n, length), n + " with " + length);
+            }
+        }
+    }
+
+    @Test
+    void invalidPrefilterLength() {
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.isPrime(7, SmallPrimes.MIN_PREFILTER_LENGTH - 1));
+        assertThrows(MathIllegalArgumentException.class, () -> Primes.isPrime(7, SmallPrimes.PRIMES.length + 1));
+    }
+
+    @Test
+    void tableSizeProperty() throws Exception {
+        final int[] small = (int[]) fieldWithProperty(SmallPrimes.TABLE_SIZE_PROPERTY,
+                                                      Integer.toString(SmallPrimes.MIN_TABLE_SIZE), "PRIMES");
+        assertArrayEquals(Arrays.copyOf(SmallPrimes.PRIMES, SmallPrimes.MIN_TABLE_SIZE), small);
+        final int[] large = (int[]) fieldWithProperty(SmallPrimes.TABLE_SIZE_PROPERTY, "5000", "PRIMES");
+        assertEquals(5000, large.length);
+        assertEquals(48611, large[large.length - 1]);
+        assertEquals(16, fieldWithProperty(SmallPrimes.PREFILTER_LENGTH_PROPERTY, "16", "PREFILTER_LENGTH"));
+    }
+
+    @Test
+    void outOfRangePropertiesAreRejected() {
+        for (final String[] property : new String[][] {
+            {SmallPrimes.TABLE_SIZE_PROPERTY, Integer.toString(SmallPrimes.MIN_TABLE_SIZE - 1)},
+            {SmallPrimes.TABLE_SIZE_PROPERTY, Integer.toString(SmallPrimes.MAX_TABLE_SIZE + 1)},
+            {SmallPrimes.PREFILTER_LENGTH_PROPERTY, Integer.toString(SmallPrimes.MIN_PREFILTER_LENGTH - 1)},
+            {SmallPrimes.PREFILTER_LENGTH_PROPERTY, Integer.toString(SmallPrimes.DEFAULT_TABLE_SIZE + 1)}
+        }) {
+            final Throwable error = assertThrows(ExceptionInInitializerError.class,
+                                                 () -> fieldWithProperty(property[0], property[1], "PRIMES"));
+            assertEquals(MathIllegalArgumentException.class.getName(), error.getCause().getClass().getName());
+        }
+    }
+
+    @Test
+    void previousPropertyValueIsRestored() throws Exception {
+        final String property = SmallPrimes.PREFILTER_LENGTH_PROPERTY;
+        final String previous = System.getProperty(property);
+        System.setProperty(property, "32");
+        try {
+            assertEquals(16, fieldWithProperty(property, "16", "PREFILTER_LENGTH"));
+            assertEquals("32", System.getProperty(property));
+        } finally {
+            if (previous == null) {
+                System.clearProperty(property);
+            } else {
+                System.setProperty(property, previous);
+            }
+        }
+    }
+}
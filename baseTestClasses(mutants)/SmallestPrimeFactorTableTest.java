@@ -0,0 +1,87 @@
+package experimento;
+
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SmallestPrimeFactorTableTest {
+
+    private static final int BOUND = 10000000;
+
+    private static final SmallestPrimeFactorTable TABLE = new SmallestPrimeFactorTable(BOUND);
+
+    private static void check(SmallestPrimeFactorTable table, int n) {
+        final List<Integer> expected = SmallPrimes.trialDivision(n);
+        assertEquals(expected.get(0).intValue(), table.smallestPrimeFactor(n), "n = " + n);
+        assertEquals(expected, table.primeFactors(n), "n = " + n);
+
+        final int[] factors = new int[31];
+        final int count = table.primeFactors(n, factors);
+        assertEquals(expected.size(), count, "n = " + n);
+        for (int i = 0; i < count; i++) {
+            assertEquals(expected.get(i).intValue(), factors[i], "n = " + n);
+        }
+
+        final int[] expectedPowers = new int[18];
+        final int distinct = Primes.primePowers(n, expectedPowers);
+        final int[] powers = new int[18];
+        assertEquals(distinct, table.primePowers(n, powers), "n = " + n);
+        assertArrayEquals(expectedPowers, powers, "n = " + n);
+    }
+
+    @Test
+    void smallNumbersMatchTrialDivision() {
+        for (int n = 2; n < 200000; n++) {
+            check(TABLE, n);
+        }
+        check(TABLE, BOUND);
+        check(TABLE, BOUND - 1);
+    }
+
+    @Test
+    void randomNumbersMatchTrialDivision() {
+        final Random random = new Random(14L);
+        for (int i = 0; i < 100000; i++) {
+            check(TABLE, 2 + random.nextInt(BOUND - 1));
+        }
+    }
+
+    @Test
+    void tinyAndOddBounds() {
+        for (int bound = 2; bound < 200; bound++) {
+            final SmallestPrimeFactorTable table = new SmallestPrimeFactorTable(bound);
+            assertEquals(bound, table.getBound());
+            for (int n = 2; n <= bound; n++) {
+                check(table, n);
+            }
+        }
+        assertThrows(MathIllegalArgumentException.class, () -> new SmallestPrimeFactorTable(1));
+    }
+
+    @Test
+    void primesUseTheTableBelowItsBound() {
+        final SmallestPrimeFactorTable table = new SmallestPrimeFactorTable(100000);
+        Primes.setSmallestPrimeFactorTable(table);
+        try {
+            assertSame(table, Primes.getSmallestPrimeFactorTable());
+            final Random random = new Random(15L);
+            for (int i = 0; i < 20000; i++) {
+                // half of the numbers are above the bound and use the default path
+                final int n = 2 + random.nextInt(200000);
+                assertEquals(SmallPrimes.trialDivision(n), Primes.primeFactors(n), "n = " + n);
+                final int[] factors = new int[32];
+                final int count = Primes.primeFactors(n, factors);
+                assertEquals(SmallPrimes.trialDivision(n).size(), count, "n = " + n);
+            }
+        } finally {
+            Primes.setSmallestPrimeFactorTable(null);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run benchmarks with the GC profiler attached.
+ * <p>
+ * The profiler adds the allocation rate per operation (<code>gc.alloc.rate.norm</code>) and the
+ * number of collections to each result, so a change which starts allocating in a hot path shows
+ * up next to its latency. The results are also written in JSON to <code>jmh-result.json</code>,
+ * to be compared between two runs.
+ * <p>
+ * Usage: <code>java experimento.BenchmarkRunner [regexp...]</code>, the regular expressions select
+ * the benchmarks and default to {@link NumberTheoryBenchmark}.
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Hide utility class.
+     */
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Run the benchmarks.
+     * @param args regular expressions selecting the benchmarks
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        final OptionsBuilder builder = new OptionsBuilder();
+        if (args.length == 0) {
+            builder.include(NumberTheoryBenchmark.class.getSimpleName());
+        }
+        for (String regexp : args) {
+            builder.include(regexp);
+        }
+        final Options options = builder.addProfiler(GCProfiler.class)
+                                       .resultFormat(ResultFormatType.JSON)
+                                       .result("jmh-result.json")
+                                       .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,86 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Factorization of hard semiprimes (two factors of the same size) by Pollard's rho
+ * and by plain trial division.
+ * <p>
+ * Trial division needs several seconds per 62 bits semiprime, so that case is better
+ * run on its own with <code>-p bits=62 -bm ss</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FactorizationBenchmark {
+
+    /** Number of inputs per invocation. */
+    private static final int SIZE = 16;
+
+    /** Bit length of the semiprimes. */
+    @Param({"32", "48", "62"})
+    public int bits;
+
+    /** Semiprimes to factor. */
+    private long[] inputs;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42L);
+        inputs = new long[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            final long p = BigInteger.probablePrime(bits / 2, random).longValue();
+            final long q = BigInteger.probablePrime(bits - bits / 2, random).longValue();
+            inputs[i] = p * q;
+        }
+    }
+
+    @Benchmark
+    public void pollardRho(Blackhole bh) {
+        for (long n : inputs) {
+            bh.consume(Primes.primeFactors(n));
+        }
+    }
+
+    @Benchmark
+    public void trialDivision(Blackhole bh) {
+        for (long n : inputs) {
+            bh.consume(SmallPrimes.trialDivision(n));
+        }
+    }
+}
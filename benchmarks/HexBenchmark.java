@@ -0,0 +1,250 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.DecoderException;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the {@link Hex} codec.
+ * <p>
+ * Besides the operations per second, each benchmark reports a <code>bytes</code> counter: the number of binary
+ * bytes encoded or decoded per second, divide it by 10<sup>9</sup> for GB/s.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HexBenchmark {
+
+    /** Lowercase ASCII hexadecimal digits. */
+    private static final byte[] ASCII_DIGITS = {
+        '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+    };
+
+    /** Number of binary bytes per operation. */
+    @Param({"32", "4096", "1048576"})
+    public int size;
+
+    /** Random binary data. */
+    private byte[] bytes;
+
+    /** The same data as mixed case hexadecimal characters. */
+    private char[] chars;
+
+    /** The same characters as ASCII bytes. */
+    private byte[] ascii;
+
+    /** Preallocated output of the caller buffer methods, large enough for the characters. */
+    private char[] charBuffer;
+
+    /** Preallocated output of the caller buffer methods, large enough for the ASCII characters. */
+    private byte[] byteBuffer;
+
+    /** The binary data in a direct buffer. */
+    private ByteBuffer directBytes;
+
+    /** The ASCII characters in a direct buffer. */
+    private ByteBuffer directAscii;
+
+    /** Direct output buffer, large enough for the ASCII characters. */
+    private ByteBuffer directBuffer;
+
+    /** Codec with the default charset. */
+    private final Hex codec = new Hex();
+
+    /** Bytes processed, reported as a rate. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+
+        /** Binary bytes encoded or decoded. */
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42L);
+        bytes = new byte[size];
+        random.nextBytes(bytes);
+        chars = Hex.encodeHex(bytes, random.nextBoolean());
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = random.nextBoolean() ? Character.toUpperCase(chars[i]) : chars[i];
+        }
+        ascii = new String(chars).getBytes(StandardCharsets.US_ASCII);
+        charBuffer = new char[chars.length];
+        byteBuffer = new byte[ascii.length];
+        directBytes = ByteBuffer.allocateDirect(size).put(bytes);
+        directAscii = ByteBuffer.allocateDirect(ascii.length).put(ascii);
+        directBuffer = ByteBuffer.allocateDirect(ascii.length);
+    }
+
+    @Benchmark
+    public char[] encodeHex(Counters counters) {
+        counters.bytes += size;
+        return Hex.encodeHex(bytes);
+    }
+
+    @Benchmark
+    public byte[] encodeHexAscii(Counters counters) {
+        counters.bytes += size;
+        return Hex.encodeHexAscii(bytes);
+    }
+
+    @Benchmark
+    public byte[] encodeHexAsciiTable(Counters counters) {
+        counters.bytes += size;
+        return encodeHexAsciiTable(bytes);
+    }
+
+    @Benchmark
+    public byte[] decodeHex(Counters counters) throws DecoderException {
+        counters.bytes += size;
+        return Hex.decodeHex(chars);
+    }
+
+    @Benchmark
+    public byte[] decodeHexCharacterDigit(Counters counters) throws DecoderException {
+        counters.bytes += size;
+        return decodeHexCharacterDigit(chars);
+    }
+
+    @Benchmark
+    public int encodeHexIntoChars(Counters counters) {
+        counters.bytes += size;
+        return Hex.encodeHex(bytes, 0, size, charBuffer, 0);
+    }
+
+    @Benchmark
+    public int encodeHexIntoBytes(Counters counters) {
+        counters.bytes += size;
+        return Hex.encodeHex(bytes, 0, size, byteBuffer, 0);
+    }
+
+    @Benchmark
+    public int decodeHexFromChars(Counters counters) throws DecoderException {
+        counters.bytes += size;
+        return Hex.decodeHex(chars, 0, chars.length, byteBuffer, 0);
+    }
+
+    @Benchmark
+    public int decodeHexFromBytes(Counters counters) throws DecoderException {
+        counters.bytes += size;
+        return Hex.decodeHex(ascii, 0, ascii.length, byteBuffer, 0);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeHexDirect(Counters counters) {
+        counters.bytes += size;
+        directBytes.clear();
+        directBuffer.clear();
+        Hex.encodeHex(directBytes, directBuffer);
+        return directBuffer;
+    }
+
+    @Benchmark
+    public ByteBuffer decodeHexDirect(Counters counters) {
+        counters.bytes += size;
+        directAscii.clear();
+        directBuffer.clear();
+        Hex.decodeHex(directAscii, directBuffer);
+        return directBuffer;
+    }
+
+    @Benchmark
+    public byte[] encode(Counters counters) {
+        counters.bytes += size;
+        return codec.encode(bytes);
+    }
+
+    @Benchmark
+    public byte[] encodeThroughString(Counters counters) {
+        counters.bytes += size;
+        return StringUtils.getBytesUnchecked(Hex.encodeHexString(bytes), codec.getCharsetName());
+    }
+
+    @Benchmark
+    public byte[] decode(Counters counters) throws DecoderException {
+        counters.bytes += size;
+        return codec.decode(ascii);
+    }
+
+    @Benchmark
+    public byte[] decodeThroughString(Counters counters) throws DecoderException, UnsupportedEncodingException {
+        counters.bytes += size;
+        return Hex.decodeHex(new String(ascii, codec.getCharsetName()).toCharArray());
+    }
+
+    /**
+     * Table lookup ASCII encoding, one byte at a time, kept here as the baseline of {@link Hex#encodeHexAscii(byte[])}.
+     * @param data the bytes to encode
+     * @return the lowercase hexadecimal characters, one byte each
+     */
+    private static byte[] encodeHexAsciiTable(final byte[] data) {
+        final byte[] out = new byte[data.length << 1];
+        for (int i = 0, j = 0; i < data.length; i++) {
+            out[j++] = ASCII_DIGITS[(0xF0 & data[i]) >>> 4];
+            out[j++] = ASCII_DIGITS[0x0F & data[i]];
+        }
+        return out;
+    }
+
+    /**
+     * The former implementation, decoding each character with {@link Character#digit(char, int)}, kept here as the
+     * baseline.
+     * @param data the characters to decode
+     * @return the decoded bytes
+     * @throws DecoderException if a character is not a hexadecimal digit
+     */
+    private static byte[] decodeHexCharacterDigit(final char[] data) throws DecoderException {
+        final byte[] out = new byte[data.length >> 1];
+        for (int i = 0, j = 0; j < data.length; i++) {
+            int f = Hex.toDigit(data[j], j) << 4;
+            j++;
+            f = f | Hex.toDigit(data[j], j);
+            j++;
+            out[i] = (byte) (f & 0xFF);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,101 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Random;
+
+/**
+ * Distributions of <code>int</code> inputs for the number theory benchmarks.
+ * <p>
+ * Each distribution stresses a different path: trial division rejects most small and
+ * highly composite numbers at once, while primes and semiprimes go through the whole small
+ * primes table and then the Miller-Rabin test or Pollard's rho.
+ */
+public enum InputDistribution {
+
+    /** Uniform numbers below 2<sup>16</sup>. */
+    SMALL {
+        @Override
+        int next(final Random random) {
+            return 2 + random.nextInt((1 << 16) - 2);
+        }
+    },
+
+    /** Uniform numbers among the 2<sup>20</sup> largest <code>int</code> values. */
+    NEAR_2_31 {
+        @Override
+        int next(final Random random) {
+            return Integer.MAX_VALUE - random.nextInt(1 << 20);
+        }
+    },
+
+    /** Uniform primes among the <code>int</code> values &ge; 2<sup>30</sup>. */
+    PRIME {
+        @Override
+        int next(final Random random) {
+            return Primes.nextPrime((1 << 30) + random.nextInt(1 << 30) - 1);
+        }
+    },
+
+    /** Products of two primes of 15 or 16 bits, which trial division cannot split early. */
+    SEMIPRIME {
+        @Override
+        int next(final Random random) {
+            final int p = Primes.nextPrime((1 << 14) + random.nextInt(1 << 14));
+            final int q = Primes.nextPrime((1 << 14) + random.nextInt(1 << 14));
+            return p * q;
+        }
+    },
+
+    /** Products of many primes &le; 31, below 2<sup>31</sup>. */
+    HIGHLY_COMPOSITE {
+        @Override
+        int next(final Random random) {
+            long n = 1;
+            while (true) {
+                final long next = n * SmallPrimes.PRIMES[random.nextInt(11)];
+                if (next > Integer.MAX_VALUE) {
+                    return (int) n;
+                }
+                n = next;
+            }
+        }
+    };
+
+    /**
+     * Draw one input.
+     * @param random source of randomness
+     * @return an input &ge; 2
+     */
+    abstract int next(Random random);
+
+    /**
+     * Draw inputs.
+     * @param size number of inputs
+     * @param seed seed of the random generator, for reproducible inputs
+     * @return the inputs
+     */
+    public int[] generate(final int size, final long seed) {
+        final Random random = new Random(seed);
+        final int[] inputs = new int[size];
+        for (int i = 0; i < size; i++) {
+            inputs[i] = next(random);
+        }
+        return inputs;
+    }
+}
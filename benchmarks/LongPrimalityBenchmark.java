@@ -0,0 +1,93 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of the deterministic <code>long</code> primality test of {@link Primes}
+ * against {@link BigInteger#isProbablePrime(int)}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LongPrimalityBenchmark {
+
+    /** Number of inputs per invocation. */
+    private static final int SIZE = 1024;
+
+    /** Bit length of the inputs. */
+    @Param({"32", "48", "62"})
+    public int bits;
+
+    /** Certainty given to {@link BigInteger#isProbablePrime(int)}. */
+    @Param({"50", "100"})
+    public int certainty;
+
+    /** Inputs, half of them primes. */
+    private long[] inputs;
+
+    /** The same inputs as {@link BigInteger}. */
+    private BigInteger[] bigInputs;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42L);
+        inputs = new long[SIZE];
+        bigInputs = new BigInteger[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            final BigInteger n = (i & 1) == 0 ?
+                                 BigInteger.probablePrime(bits, random) :
+                                 new BigInteger(bits, random).setBit(bits - 1).setBit(0);
+            inputs[i] = n.longValue();
+            bigInputs[i] = n;
+        }
+    }
+
+    @Benchmark
+    public void isPrime(Blackhole bh) {
+        for (long n : inputs) {
+            bh.consume(Primes.isPrime(n));
+        }
+    }
+
+    @Benchmark
+    public void isProbablePrime(Blackhole bh) {
+        for (BigInteger n : bigInputs) {
+            bh.consume(n.isProbablePrime(certainty));
+        }
+    }
+}
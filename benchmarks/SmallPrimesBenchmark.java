@@ -0,0 +1,122 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the primitive Miller-Rabin test of {@link SmallPrimes} with the former
+ * {@link BigInteger#modPow(BigInteger, BigInteger)} based implementation.
+ * <p>
+ * Run with <code>-prof gc</code> to see the allocation rate of both variants.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SmallPrimesBenchmark {
+
+    /** Number of inputs per invocation. */
+    private static final int SIZE = 1024;
+
+    /** Odd inputs above the small primes table, i.e. values reaching Miller-Rabin. */
+    private int[] inputs;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42L);
+        inputs = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            inputs[i] = (SmallPrimes.PRIMES_LAST + 2 + random.nextInt(Integer.MAX_VALUE - SmallPrimes.PRIMES_LAST - 2)) | 1;
+        }
+    }
+
+    @Benchmark
+    public void millerRabinPrimeTest(Blackhole bh) {
+        for (int n : inputs) {
+            bh.consume(SmallPrimes.millerRabinPrimeTest(n));
+        }
+    }
+
+    @Benchmark
+    public void millerRabinPrimeTestBigInteger(Blackhole bh) {
+        for (int n : inputs) {
+            bh.consume(millerRabinBigInteger(n));
+        }
+    }
+
+    /**
+     * The original implementation, kept here as the baseline.
+     * @param n number to test: an odd integer &ge; 3
+     * @return true if n is prime
+     */
+    private static boolean millerRabinBigInteger(final int n) {
+        final int nMinus1 = n - 1;
+        final int s = Integer.numberOfTrailingZeros(nMinus1);
+        final int r = nMinus1 >> s;
+        int t = 1;
+        if (n >= 2047) {
+            t = 2;
+        }
+        if (n >= 1373653) {
+            t = 3;
+        }
+        if (n >= 25326001) {
+            t = 4;
+        }
+        BigInteger br = BigInteger.valueOf(r);
+        BigInteger bn = BigInteger.valueOf(n);
+
+        for (int i = 0; i < t; i++) {
+            BigInteger a = BigInteger.valueOf(SmallPrimes.PRIMES[i]);
+            BigInteger bPow = a.modPow(br, bn);
+            int y = bPow.intValue();
+            if ((1 != y) && (y != nMinus1)) {
+                int j = 1;
+                while ((j <= s - 1) && (nMinus1 != y)) {
+                    long square = ((long) y) * y;
+                    y = (int) (square % n);
+                    if (1 == y) {
+                        return false;
+                    }
+                    j++;
+                }
+                if (nMinus1 != y) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,146 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the small primes trial division based on precomputed inverses with the former
+ * implementation using the <code>%</code> and <code>/</code> operators.
+ * <p>
+ * Each invocation divides random numbers by the whole {@link SmallPrimes#PRIMES} table,
+ * which is what every factorization does before Pollard's rho.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrialDivisionBenchmark {
+
+    /** Number of inputs per invocation. */
+    private static final int SIZE = 256;
+
+    /** Random positive <code>int</code> inputs. */
+    private int[] intInputs;
+
+    /** Random positive <code>long</code> inputs. */
+    private long[] longInputs;
+
+    /** Factors buffer for the <code>int</code> inputs. */
+    private final int[] intFactors = new int[32];
+
+    /** Factors buffer for the <code>long</code> inputs. */
+    private final long[] longFactors = new long[64];
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42L);
+        intInputs  = new int[SIZE];
+        longInputs = new long[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            intInputs[i]  = 1 + random.nextInt(Integer.MAX_VALUE);
+            longInputs[i] = 1 + (random.nextLong() >>> 1);
+        }
+    }
+
+    @Benchmark
+    public int intInverse() {
+        int sum = 0;
+        for (int n : intInputs) {
+            sum += SmallPrimes.smallTrialDivision(n, intFactors);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int intModulo() {
+        int sum = 0;
+        for (int n : intInputs) {
+            sum += smallTrialDivisionModulo(n, intFactors);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int longInverse() {
+        int sum = 0;
+        for (long n : longInputs) {
+            sum += SmallPrimes.smallTrialDivision(n, longFactors);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int longModulo() {
+        int sum = 0;
+        for (long n : longInputs) {
+            sum += smallTrialDivisionModulo(n, longFactors);
+        }
+        return sum;
+    }
+
+    /**
+     * The former <code>int</code> implementation, kept here as the baseline.
+     * @param n the number to factor
+     * @param factors the array where to store the factors
+     * @return the number of factors stored
+     */
+    private static int smallTrialDivisionModulo(int n, final int[] factors) {
+        int count = 0;
+        for (int p : SmallPrimes.PRIMES) {
+            while (0 == n % p) {
+                n = n / p;
+                factors[count++] = p;
+            }
+        }
+        factors[count] = n;
+        return count;
+    }
+
+    /**
+     * The former <code>long</code> implementation, kept here as the baseline.
+     * @param n the number to factor
+     * @param factors the array where to store the factors
+     * @return the number of factors stored
+     */
+    private static int smallTrialDivisionModulo(long n, final long[] factors) {
+        int count = 0;
+        for (int p : SmallPrimes.PRIMES) {
+            while (0 == n % p) {
+                n = n / p;
+                factors[count++] = p;
+            }
+        }
+        factors[count] = n;
+        return count;
+    }
+}
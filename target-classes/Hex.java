@@ -18,6 +18,17 @@
 package experimento;
 
 import java.io.UnsupportedEncodingException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
 
 import org.apache.commons.codec.BinaryDecoder;
 import org.apache.commons.codec.BinaryEncoder;
@@ -50,6 +61,64 @@ public class Hex implements BinaryEncoder, BinaryDecoder {
      */
     private static final char[] DIGITS_UPPER = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
 
+    /**
+     * Offset from <code>'0' + 10</code> to <code>'a'</code>, for the ASCII encoder.
+     */
+    private static final long LETTERS_LOWER = 'a' - '0' - 10;
+
+    /**
+     * Offset from <code>'0' + 10</code> to <code>'A'</code>, for the ASCII encoder.
+     */
+    private static final long LETTERS_UPPER = 'A' - '0' - 10;
+
+    /**
+     * A long with 1 in each of its bytes.
+     */
+    private static final long ONES = 0x0101010101010101L;
+
+    /**
+     * Reads a last group of 4 input bytes of the ASCII encoder.
+     */
+    private static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    /**
+     * Reads the input and writes the output of the ASCII encoder 8 bytes at a time.
+     */
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    /**
+     * Number of characters decoded between two checks of the error sentinel.
+     */
+    private static final int DECODE_BLOCK = 64;
+
+    /**
+     * Error sentinel of the decoding tables, above any byte value. The characters outside of ISO-8859-1 are caught by
+     * the same mask, as their high byte is not zero.
+     */
+    private static final int DECODE_ERROR = 0xFF00;
+
+    /**
+     * Value of the ASCII hexadecimal digits shifted to the high nibble, indexed by character, {@link #DECODE_ERROR} for
+     * the other characters.
+     */
+    private static final int[] DECODE_HIGH = new int[256];
+
+    /**
+     * Value of the ASCII hexadecimal digits, indexed by character, {@link #DECODE_ERROR} for the other characters.
+     */
+    private static final int[] DECODE_LOW = new int[256];
+
+    static {
+        Arrays.fill(DECODE_HIGH, DECODE_ERROR);
+        Arrays.fill(DECODE_LOW, DECODE_ERROR);
+        for (int digit = 0; digit < 16; digit++) {
+            DECODE_HIGH[DIGITS_LOWER[digit]] = digit << 4;
+            DECODE_HIGH[DIGITS_UPPER[digit]] = digit << 4;
+            DECODE_LOW[DIGITS_LOWER[digit]] = digit;
+            DECODE_LOW[DIGITS_UPPER[digit]] = digit;
+        }
+    }
+
     /**
      * Converts an array of characters representing hexadecimal values into an array of bytes of those same values. The
      * returned array will be half the length of the passed array, as it takes two characters to represent any given
@@ -70,17 +139,174 @@ public class Hex implements BinaryEncoder, BinaryDecoder {
         }
 
         byte[] out = new byte[len >> 1];
+        decodeHexBlocks(data, 0, len, out, 0);
+        return out;
+    }
 
-        // two characters form the hex value.
-        for (int i = 0, j = 0; j < len; i++) {
-            int f = toDigit(data[j], j) << 4;
-            j++;
-            f = f | toDigit(data[j], j);
-            j++;
-            out[i] = (byte) (f & 0xFF);
+    /**
+     * Converts a range of an array of characters representing hexadecimal values into bytes of those same values,
+     * stored into a given array. It takes two characters to represent any given byte, so half as many bytes as
+     * characters are stored. An exception is thrown if the range has an odd number of elements.
+     * 
+     * @param src
+     *            An array of characters containing hexadecimal digits
+     * @param off
+     *            The index of the first character to decode
+     * @param len
+     *            The number of characters to decode
+     * @param dst
+     *            The array where to store the decoded bytes
+     * @param dstOff
+     *            The index in dst of the first decoded byte
+     * @return The number of bytes stored, len / 2
+     * @throws DecoderException
+     *             Thrown if an odd number or illegal of characters is supplied, the index of an illegal character is
+     *             its index in src
+     * @throws IndexOutOfBoundsException
+     *             Thrown if the characters or the bytes are out of the bounds of their array
+     */
+    public static int decodeHex(char[] src, int off, int len, byte[] dst, int dstOff) throws DecoderException {
+        Objects.checkFromIndexSize(off, len, src.length);
+        if ((len & 0x01) != 0) {
+            throw new DecoderException("Odd number of characters.");
         }
+        Objects.checkFromIndexSize(dstOff, len >> 1, dst.length);
+        decodeHexBlocks(src, off, len, dst, dstOff);
+        return len >> 1;
+    }
 
-        return out;
+    /**
+     * Converts a range of an array of ASCII bytes representing hexadecimal values into bytes of those same values,
+     * stored into a given array. It takes two characters to represent any given byte, so half as many bytes are
+     * stored. An exception is thrown if the range has an odd number of elements.
+     * <p>
+     * Each byte is read as one ISO-8859-1 character, so the only legal bytes are the ASCII hexadecimal digits.
+     * </p>
+     * 
+     * @param src
+     *            An array of ASCII bytes containing hexadecimal digits
+     * @param off
+     *            The index of the first byte to decode
+     * @param len
+     *            The number of bytes to decode
+     * @param dst
+     *            The array where to store the decoded bytes
+     * @param dstOff
+     *            The index in dst of the first decoded byte
+     * @return The number of bytes stored, len / 2
+     * @throws DecoderException
+     *             Thrown if an odd number or illegal of characters is supplied, the index of an illegal character is
+     *             its index in src
+     * @throws IndexOutOfBoundsException
+     *             Thrown if the source or the decoded bytes are out of the bounds of their array
+     */
+    public static int decodeHex(byte[] src, int off, int len, byte[] dst, int dstOff) throws DecoderException {
+        Objects.checkFromIndexSize(off, len, src.length);
+        if ((len & 0x01) != 0) {
+            throw new DecoderException("Odd number of characters.");
+        }
+        Objects.checkFromIndexSize(dstOff, len >> 1, dst.length);
+        if (!decodeHexAscii(src, off, len, dst, dstOff)) {
+            // find the first illegal byte
+            for (int i = dstOff, j = off; j < off + len; i++, j += 2) {
+                dst[i] = (byte) (toDigit((char) (src[j] & 0xFF), j) << 4 | toDigit((char) (src[j + 1] & 0xFF), j + 1));
+            }
+        }
+        return len >> 1;
+    }
+
+    /**
+     * Decodes pairs of hexadecimal characters with lookup tables.
+     * <p>
+     * Each pair is decoded with two table lookups and no branch; the table values of illegal characters and the high
+     * bytes of the characters are OR-ed into an error word, which is checked once per block of {@link #DECODE_BLOCK}
+     * characters. A block with an error is decoded again with {@link #toDigit(char, int)}, which accepts the
+     * non-ASCII digits known to {@link Character#digit(char, int)} and reports the first illegal character exactly
+     * as before.
+     * </p>
+     * 
+     * @param data
+     *            An array of characters containing hexadecimal digits
+     * @param off
+     *            The index of the first character to decode
+     * @param len
+     *            The number of characters to decode, must be even
+     * @param out
+     *            The array where to store the decoded bytes, len / 2 bytes starting at outOff
+     * @param outOff
+     *            The index of the first decoded byte
+     * @throws DecoderException
+     *             Thrown if an illegal character is supplied
+     */
+    private static void decodeHexBlocks(char[] data, int off, int len, byte[] out, int outOff) throws DecoderException {
+        for (int start = off; start < off + len; start += DECODE_BLOCK) {
+            final int end = Math.min(off + len, start + DECODE_BLOCK);
+            int errors = 0;
+            for (int i = outOff + ((start - off) >> 1), j = start; j < end; i++, j += 2) {
+                final char high = data[j];
+                final char low = data[j + 1];
+                final int f = DECODE_HIGH[high & 0xFF] | DECODE_LOW[low & 0xFF];
+                errors |= f | high | low;
+                out[i] = (byte) f;
+            }
+            if ((errors & DECODE_ERROR) != 0) {
+                for (int i = outOff + ((start - off) >> 1), j = start; j < end; i++, j += 2) {
+                    out[i] = (byte) (toDigit(data[j], j) << 4 | toDigit(data[j + 1], j + 1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes pairs of ASCII hexadecimal characters with the lookup tables of
+     * {@link #decodeHexBlocks(char[], int, int, byte[], int)}.
+     * <p>
+     * Bytes outside of ASCII are illegal for the tables, so any input this method accepts decodes to the same
+     * characters in every ASCII compatible charset. On failure the caller decodes again through the charset, which
+     * accepts the other digits known to {@link Character#digit(char, int)} and reports the errors.
+     * </p>
+     * 
+     * @param data
+     *            An array of ASCII bytes
+     * @param off
+     *            The index of the first byte to decode
+     * @param len
+     *            The number of bytes to decode, must be even
+     * @param out
+     *            The array where to store the decoded bytes, len / 2 bytes starting at outOff
+     * @param outOff
+     *            The index of the first decoded byte
+     * @return <code>true</code> if all the bytes were ASCII hexadecimal digits, otherwise the content of out is
+     *         undefined
+     */
+    private static boolean decodeHexAscii(byte[] data, int off, int len, byte[] out, int outOff) {
+        int errors = 0;
+        for (int i = outOff, j = off; j < off + len; i++, j += 2) {
+            final int f = DECODE_HIGH[data[j] & 0xFF] | DECODE_LOW[data[j + 1] & 0xFF];
+            errors |= f;
+            out[i] = (byte) f;
+        }
+        return (errors & DECODE_ERROR) == 0;
+    }
+
+    /**
+     * Checks a range of bytes with the lookup tables of {@link #decodeHexAscii(byte[], int, int, byte[], int)}, without
+     * decoding them.
+     * 
+     * @param data
+     *            An array of ASCII bytes
+     * @param off
+     *            The index of the first byte to check
+     * @param len
+     *            The number of bytes to check, must be even
+     * @return <code>true</code> if all the bytes are ASCII hexadecimal digits
+     */
+    private static boolean isHexAscii(byte[] data, int off, int len) {
+        int errors = 0;
+        for (int j = off; j < off + len; j += 2) {
+            errors |= DECODE_HIGH[data[j] & 0xFF] | DECODE_LOW[data[j + 1] & 0xFF];
+        }
+        return (errors & DECODE_ERROR) == 0;
     }
 
     /**
@@ -127,14 +353,246 @@ public class Hex implements BinaryEncoder, BinaryDecoder {
     protected static char[] encodeHex(byte[] data, char[] toDigits) {
         int l = data.length;
         char[] out = new char[l << 1];
+        encodeHex(data, 0, l, toDigits, out, 0);
+        return out;
+    }
+
+    /**
+     * Converts a range of an array of bytes into characters representing the hexadecimal values of each byte in order,
+     * stored into a given array. It takes two characters to represent any given byte, so twice as many characters as
+     * bytes are stored.
+     * 
+     * @param src
+     *            a byte[] to convert to Hex characters
+     * @param off
+     *            the index of the first byte to convert
+     * @param len
+     *            the number of bytes to convert
+     * @param dst
+     *            the array where to store the lowercase hexadecimal characters
+     * @param dstOff
+     *            the index in dst of the first character
+     * @return the number of characters stored, 2 &middot; len
+     * @throws IndexOutOfBoundsException
+     *             if the bytes or the characters are out of the bounds of their array
+     */
+    public static int encodeHex(byte[] src, int off, int len, char[] dst, int dstOff) {
+        return encodeHex(src, off, len, dst, dstOff, true);
+    }
+
+    /**
+     * Converts a range of an array of bytes into characters representing the hexadecimal values of each byte in order,
+     * stored into a given array. It takes two characters to represent any given byte, so twice as many characters as
+     * bytes are stored.
+     * 
+     * @param src
+     *            a byte[] to convert to Hex characters
+     * @param off
+     *            the index of the first byte to convert
+     * @param len
+     *            the number of bytes to convert
+     * @param dst
+     *            the array where to store the hexadecimal characters
+     * @param dstOff
+     *            the index in dst of the first character
+     * @param toLowerCase
+     *            <code>true</code> converts to lowercase, <code>false</code> to uppercase
+     * @return the number of characters stored, 2 &middot; len
+     * @throws IndexOutOfBoundsException
+     *             if the bytes or the characters are out of the bounds of their array
+     */
+    public static int encodeHex(byte[] src, int off, int len, char[] dst, int dstOff, boolean toLowerCase) {
+        Objects.checkFromIndexSize(off, len, src.length);
+        // a negative size, from an overflow, is out of bounds too
+        Objects.checkFromIndexSize(dstOff, len << 1, dst.length);
+        encodeHex(src, off, len, toLowerCase ? DIGITS_LOWER : DIGITS_UPPER, dst, dstOff);
+        return len << 1;
+    }
+
+    /**
+     * Converts bytes into hexadecimal characters of an alphabet.
+     * 
+     * @param data
+     *            the bytes to convert
+     * @param off
+     *            the index of the first byte to convert
+     * @param len
+     *            the number of bytes to convert
+     * @param toDigits
+     *            the output alphabet
+     * @param out
+     *            the array where to store the characters, 2 &middot; len characters starting at outOff
+     * @param outOff
+     *            the index of the first character
+     */
+    private static void encodeHex(byte[] data, int off, int len, char[] toDigits, char[] out, int outOff) {
         // two characters form the hex value.
-        for (int i = 0, j = 0; i < l; i++) {
+        for (int i = off, j = outOff; i < off + len; i++) {
             out[j++] = toDigits[(0xF0 & data[i]) >>> 4];
             out[j++] = toDigits[0x0F & data[i]];
         }
+    }
+
+    /**
+     * Converts an array of bytes into an array of ASCII bytes representing the hexadecimal values of each byte in
+     * order. The returned array will be double the length of the passed array, as it takes two characters to represent
+     * any given byte. The characters are the ones of {@link #encodeHex(byte[])}, encoded in ASCII.
+     * 
+     * @param data
+     *            a byte[] to convert to Hex characters
+     * @return A byte[] containing lowercase hexadecimal characters, one byte each
+     */
+    public static byte[] encodeHexAscii(byte[] data) {
+        return encodeHexAscii(data, true);
+    }
+
+    /**
+     * Converts an array of bytes into an array of ASCII bytes representing the hexadecimal values of each byte in
+     * order. The returned array will be double the length of the passed array, as it takes two characters to represent
+     * any given byte. The characters are the ones of {@link #encodeHex(byte[], boolean)}, encoded in ASCII.
+     * <p>
+     * Unlike {@link #encodeHex(byte[], boolean)}, which looks up each character in a table, this method computes 16
+     * characters at a time with 64-bit arithmetic and stores them with two 64-bit writes.
+     * </p>
+     * 
+     * @param data
+     *            a byte[] to convert to Hex characters
+     * @param toLowerCase
+     *            <code>true</code> converts to lowercase, <code>false</code> to uppercase
+     * @return A byte[] containing hexadecimal characters, one byte each
+     */
+    public static byte[] encodeHexAscii(byte[] data, boolean toLowerCase) {
+        byte[] out = new byte[data.length << 1];
+        encodeHexAscii(data, 0, data.length, out, 0, toLowerCase ? LETTERS_LOWER : LETTERS_UPPER);
         return out;
     }
 
+    /**
+     * Converts a range of an array of bytes into ASCII bytes for the characters representing the hexadecimal values of
+     * each byte in order, stored into a given array. It takes two characters to represent any given byte, so twice as
+     * many characters as bytes are stored.
+     * 
+     * @param src
+     *            a byte[] to convert to Hex characters
+     * @param off
+     *            the index of the first byte to convert
+     * @param len
+     *            the number of bytes to convert
+     * @param dst
+     *            the array where to store the lowercase hexadecimal characters, one byte each
+     * @param dstOff
+     *            the index in dst of the first character
+     * @return the number of characters stored, 2 &middot; len
+     * @throws IndexOutOfBoundsException
+     *             if the bytes or the characters are out of the bounds of their array
+     * @see #encodeHexAscii(byte[])
+     */
+    public static int encodeHex(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        return encodeHex(src, off, len, dst, dstOff, true);
+    }
+
+    /**
+     * Converts a range of an array of bytes into ASCII bytes for the characters representing the hexadecimal values of
+     * each byte in order, stored into a given array. It takes two characters to represent any given byte, so twice as
+     * many characters as bytes are stored.
+     * 
+     * @param src
+     *            a byte[] to convert to Hex characters
+     * @param off
+     *            the index of the first byte to convert
+     * @param len
+     *            the number of bytes to convert
+     * @param dst
+     *            the array where to store the hexadecimal characters, one byte each
+     * @param dstOff
+     *            the index in dst of the first character
+     * @param toLowerCase
+     *            <code>true</code> converts to lowercase, <code>false</code> to uppercase
+     * @return the number of characters stored, 2 &middot; len
+     * @throws IndexOutOfBoundsException
+     *             if the bytes or the characters are out of the bounds of their array
+     * @see #encodeHexAscii(byte[], boolean)
+     */
+    public static int encodeHex(byte[] src, int off, int len, byte[] dst, int dstOff, boolean toLowerCase) {
+        Objects.checkFromIndexSize(off, len, src.length);
+        // a negative size, from an overflow, is out of bounds too
+        Objects.checkFromIndexSize(dstOff, len << 1, dst.length);
+        encodeHexAscii(src, off, len, dst, dstOff, toLowerCase ? LETTERS_LOWER : LETTERS_UPPER);
+        return len << 1;
+    }
+
+    /**
+     * Converts bytes into ASCII hexadecimal characters, 8 bytes at a time.
+     * 
+     * @param data
+     *            the bytes to convert
+     * @param off
+     *            the index of the first byte to convert
+     * @param len
+     *            the number of bytes to convert
+     * @param out
+     *            the array where to store the characters, 2 &middot; len bytes starting at outOff
+     * @param outOff
+     *            the index of the first character
+     * @param letters
+     *            {@link #LETTERS_LOWER} or {@link #LETTERS_UPPER}
+     */
+    private static void encodeHexAscii(byte[] data, int off, int len, byte[] out, int outOff, long letters) {
+        final int bulk = off + (len & ~7);
+        int i = off;
+        int j = outOff;
+        for (; i < bulk; i += 8, j += 16) {
+            final long bytes = (long) LONGS.get(data, i);
+            LONGS.set(out, j, toAsciiDigits((int) (bytes >>> 32), letters));
+            LONGS.set(out, j + 8, toAsciiDigits((int) bytes, letters));
+        }
+        if ((len & 4) != 0) {
+            LONGS.set(out, j, toAsciiDigits((int) INTS.get(data, i), letters));
+            i += 4;
+            j += 8;
+        }
+        for (; i < off + len; i++) {
+            final int v = data[i] & 0xFF;
+            out[j++] = toAsciiDigit(v >>> 4, letters);
+            out[j++] = toAsciiDigit(v & 0x0F, letters);
+        }
+    }
+
+    /**
+     * Converts 4 bytes into 8 ASCII hexadecimal characters without branch.
+     * <p>
+     * The nibbles are first spread over the 8 bytes of a long, high nibble first. Adding <code>'0'</code> to each byte
+     * gives the digits 0 to 9. Adding 6 to a nibble carries into bit 4 exactly for 10 to 15, which selects the bytes
+     * that also get the offset to the letters. No byte ever exceeds 0x7F, so nothing carries between bytes.
+     * </p>
+     * 
+     * @param bytes
+     *            the 4 bytes, the first one in the high byte
+     * @param letters
+     *            {@link #LETTERS_LOWER} or {@link #LETTERS_UPPER}
+     * @return the 8 characters, the first one in the high byte
+     */
+    private static long toAsciiDigits(int bytes, long letters) {
+        long x = bytes & 0xFFFFFFFFL;
+        x = (x | x << 16) & 0x0000FFFF0000FFFFL;
+        x = (x | x << 8) & 0x00FF00FF00FF00FFL;
+        x = (x << 4 & 0x0F000F000F000F00L) | (x & 0x000F000F000F000FL);
+        return x + '0' * ONES + ((x + 6 * ONES) >>> 4 & ONES) * letters;
+    }
+
+    /**
+     * Converts a nibble into an ASCII hexadecimal character, as {@link #toAsciiDigits(int, long)} does.
+     * 
+     * @param nibble
+     *            a value from 0 to 15
+     * @param letters
+     *            {@link #LETTERS_LOWER} or {@link #LETTERS_UPPER}
+     * @return the character
+     */
+    private static byte toAsciiDigit(int nibble, long letters) {
+        return (byte) (nibble + '0' + ((nibble + 6) >>> 4) * letters);
+    }
+
     /**
      * Converts an array of bytes into a String representing the hexadecimal values of each byte in order. The returned
      * String will be double the length of the passed array, as it takes two characters to represent any given byte.
@@ -148,6 +606,270 @@ public class Hex implements BinaryEncoder, BinaryDecoder {
         return new String(encodeHex(data));
     }
 
+    /**
+     * Converts the remaining bytes of a buffer into lowercase characters representing the hexadecimal values of each
+     * byte in order, put into a character buffer.
+     * 
+     * @param src
+     *            the bytes to convert, from the position to the limit
+     * @param dst
+     *            the buffer where to put the hexadecimal characters
+     * @return {@link CoderResult#UNDERFLOW} if all the bytes were converted, {@link CoderResult#OVERFLOW} if dst is
+     *         full
+     * @throws java.nio.ReadOnlyBufferException
+     *             if dst is read-only
+     * @see #encodeHex(ByteBuffer, CharBuffer, boolean)
+     */
+    public static CoderResult encodeHex(ByteBuffer src, CharBuffer dst) {
+        return encodeHex(src, dst, true);
+    }
+
+    /**
+     * Converts the remaining bytes of a buffer into characters representing the hexadecimal values of each byte in
+     * order, put into a character buffer.
+     * <p>
+     * As {@link java.nio.charset.CharsetEncoder#encode(CharBuffer, ByteBuffer, boolean)} does, this method converts as
+     * many bytes as the output has room for, and advances the positions of both buffers past the bytes read and the
+     * characters written. Direct buffers are read and written in place, without copy.
+     * </p>
+     * 
+     * @param src
+     *            the bytes to convert, from the position to the limit
+     * @param dst
+     *            the buffer where to put the hexadecimal characters
+     * @param toLowerCase
+     *            <code>true</code> converts to lowercase, <code>false</code> to uppercase
+     * @return {@link CoderResult#UNDERFLOW} if all the bytes were converted, {@link CoderResult#OVERFLOW} if dst is
+     *         full
+     * @throws java.nio.ReadOnlyBufferException
+     *             if dst is read-only
+     */
+    public static CoderResult encodeHex(ByteBuffer src, CharBuffer dst, boolean toLowerCase) {
+        final int len = Math.min(src.remaining(), dst.remaining() >> 1);
+        final int off = src.position();
+        final int dstOff = dst.position();
+        final char[] toDigits = toLowerCase ? DIGITS_LOWER : DIGITS_UPPER;
+        if (src.hasArray() && dst.hasArray()) {
+            encodeHex(src.array(), src.arrayOffset() + off, len, toDigits, dst.array(), dst.arrayOffset() + dstOff);
+        } else {
+            for (int i = off, j = dstOff; i < off + len; i++) {
+                final int v = src.get(i);
+                dst.put(j++, toDigits[(0xF0 & v) >>> 4]);
+                dst.put(j++, toDigits[0x0F & v]);
+            }
+        }
+        src.position(off + len);
+        dst.position(dstOff + (len << 1));
+        return src.hasRemaining() ? CoderResult.OVERFLOW : CoderResult.UNDERFLOW;
+    }
+
+    /**
+     * Converts the remaining bytes of a buffer into ASCII bytes for the lowercase characters representing the
+     * hexadecimal values of each byte in order, put into a byte buffer.
+     * 
+     * @param src
+     *            the bytes to convert, from the position to the limit
+     * @param dst
+     *            the buffer where to put the hexadecimal characters, one byte each
+     * @return {@link CoderResult#UNDERFLOW} if all the bytes were converted, {@link CoderResult#OVERFLOW} if dst is
+     *         full
+     * @throws java.nio.ReadOnlyBufferException
+     *             if dst is read-only
+     * @see #encodeHex(ByteBuffer, ByteBuffer, boolean)
+     */
+    public static CoderResult encodeHex(ByteBuffer src, ByteBuffer dst) {
+        return encodeHex(src, dst, true);
+    }
+
+    /**
+     * Converts the remaining bytes of a buffer into ASCII bytes for the characters representing the hexadecimal values
+     * of each byte in order, put into a byte buffer.
+     * <p>
+     * As {@link java.nio.charset.CharsetEncoder#encode(CharBuffer, ByteBuffer, boolean)} does, this method converts as
+     * many bytes as the output has room for, and advances the positions of both buffers past the bytes read and the
+     * characters written. Direct buffers are read and written in place, without copy, 8 bytes at a time as
+     * {@link #encodeHexAscii(byte[], boolean)} does.
+     * </p>
+     * 
+     * @param src
+     *            the bytes to convert, from the position to the limit
+     * @param dst
+     *            the buffer where to put the hexadecimal characters, one byte each
+     * @param toLowerCase
+     *            <code>true</code> converts to lowercase, <code>false</code> to uppercase
+     * @return {@link CoderResult#UNDERFLOW} if all the bytes were converted, {@link CoderResult#OVERFLOW} if dst is
+     *         full
+     * @throws java.nio.ReadOnlyBufferException
+     *             if dst is read-only
+     */
+    public static CoderResult encodeHex(ByteBuffer src, ByteBuffer dst, boolean toLowerCase) {
+        final int len = Math.min(src.remaining(), dst.remaining() >> 1);
+        final int off = src.position();
+        final int dstOff = dst.position();
+        final long letters = toLowerCase ? LETTERS_LOWER : LETTERS_UPPER;
+        if (src.hasArray() && dst.hasArray()) {
+            encodeHexAscii(src.array(), src.arrayOffset() + off, len, dst.array(), dst.arrayOffset() + dstOff, letters);
+        } else {
+            // the multi-byte accesses follow the byte order of each buffer
+            final boolean srcBigEndian = src.order() == ByteOrder.BIG_ENDIAN;
+            final boolean dstBigEndian = dst.order() == ByteOrder.BIG_ENDIAN;
+            final int bulk = off + (len & ~7);
+            int i = off;
+            int j = dstOff;
+            for (; i < bulk; i += 8, j += 16) {
+                final long bytes = srcBigEndian ? src.getLong(i) : Long.reverseBytes(src.getLong(i));
+                final long high = toAsciiDigits((int) (bytes >>> 32), letters);
+                final long low = toAsciiDigits((int) bytes, letters);
+                dst.putLong(j, dstBigEndian ? high : Long.reverseBytes(high));
+                dst.putLong(j + 8, dstBigEndian ? low : Long.reverseBytes(low));
+            }
+            if ((len & 4) != 0) {
+                final int bytes = srcBigEndian ? src.getInt(i) : Integer.reverseBytes(src.getInt(i));
+                final long digits = toAsciiDigits(bytes, letters);
+                dst.putLong(j, dstBigEndian ? digits : Long.reverseBytes(digits));
+                i += 4;
+                j += 8;
+            }
+            for (; i < off + len; i++) {
+                final int v = src.get(i) & 0xFF;
+                dst.put(j++, toAsciiDigit(v >>> 4, letters));
+                dst.put(j++, toAsciiDigit(v & 0x0F, letters));
+            }
+        }
+        src.position(off + len);
+        dst.position(dstOff + (len << 1));
+        return src.hasRemaining() ? CoderResult.OVERFLOW : CoderResult.UNDERFLOW;
+    }
+
+    /**
+     * Converts the remaining characters of a buffer representing hexadecimal values into bytes of those same values,
+     * put into a byte buffer.
+     * <p>
+     * As {@link java.nio.charset.CharsetDecoder#decode(ByteBuffer, CharBuffer, boolean)} does, this method converts as
+     * many pairs of characters as the output has room for, and advances the positions of both buffers past the
+     * characters read and the bytes written. A pair with an illegal character stops the conversion, with the position
+     * of src on its first character, and dst is not written past its new position. A last single character is left in
+     * src, to be completed by the next input. Direct buffers are read and written in place, without copy.
+     * </p>
+     * 
+     * @param src
+     *            the hexadecimal characters, from the position to the limit
+     * @param dst
+     *            the buffer where to put the decoded bytes
+     * @return {@link CoderResult#UNDERFLOW} if all the pairs were converted, {@link CoderResult#OVERFLOW} if dst is
+     *         full, a malformed input result of length 2 if a pair has an illegal character
+     * @throws java.nio.ReadOnlyBufferException
+     *             if dst is read-only
+     */
+    public static CoderResult decodeHex(CharBuffer src, ByteBuffer dst) {
+        final int len = Math.min(src.remaining() >> 1, dst.remaining());
+        final int off = src.position();
+        final int dstOff = dst.position();
+        int n = 0;
+        for (; n < len; n++) {
+            final int j = off + (n << 1);
+            final int b = decodePair(src.get(j), src.get(j + 1));
+            if (b < 0) {
+                break;
+            }
+            dst.put(dstOff + n, (byte) b);
+        }
+        return decodeResult(src, off, dst, dstOff, n, len);
+    }
+
+    /**
+     * Converts the remaining ASCII bytes of a buffer representing hexadecimal values into bytes of those same values,
+     * put into a byte buffer.
+     * <p>
+     * This method works as {@link #decodeHex(CharBuffer, ByteBuffer)}, each byte being read as one ISO-8859-1
+     * character.
+     * </p>
+     * 
+     * @param src
+     *            the hexadecimal characters, one byte each, from the position to the limit
+     * @param dst
+     *            the buffer where to put the decoded bytes
+     * @return {@link CoderResult#UNDERFLOW} if all the pairs were converted, {@link CoderResult#OVERFLOW} if dst is
+     *         full, a malformed input result of length 2 if a pair has an illegal character
+     * @throws java.nio.ReadOnlyBufferException
+     *             if dst is read-only
+     */
+    public static CoderResult decodeHex(ByteBuffer src, ByteBuffer dst) {
+        final int len = Math.min(src.remaining() >> 1, dst.remaining());
+        final int off = src.position();
+        final int dstOff = dst.position();
+        int n = 0;
+        if (src.hasArray() && dst.hasArray()) {
+            // only the blocks checked beforehand are decoded, so that dst is not written past an illegal pair
+            final byte[] in = src.array();
+            final byte[] out = dst.array();
+            while (n < len) {
+                final int j = src.arrayOffset() + off + (n << 1);
+                final int count = Math.min(len - n, DECODE_BLOCK >> 1);
+                if (!isHexAscii(in, j, count << 1)) {
+                    break;
+                }
+                decodeHexAscii(in, j, count << 1, out, dst.arrayOffset() + dstOff + n);
+                n += count;
+            }
+        }
+        // direct buffers, and the pairs of the block with an illegal character
+        for (; n < len; n++) {
+            final int j = off + (n << 1);
+            final int b = decodePair((char) (src.get(j) & 0xFF), (char) (src.get(j + 1) & 0xFF));
+            if (b < 0) {
+                break;
+            }
+            dst.put(dstOff + n, (byte) b);
+        }
+        return decodeResult(src, off, dst, dstOff, n, len);
+    }
+
+    /**
+     * Decodes a pair of hexadecimal characters, accepting the same digits as {@link #toDigit(char, int)}.
+     * 
+     * @param high
+     *            the character of the high nibble
+     * @param low
+     *            the character of the low nibble
+     * @return the decoded byte, from 0 to 255, or -1 if a character is illegal
+     */
+    private static int decodePair(char high, char low) {
+        final int f = DECODE_HIGH[high & 0xFF] | DECODE_LOW[low & 0xFF];
+        if (((f | high | low) & DECODE_ERROR) == 0) {
+            return f;
+        }
+        final int h = Character.digit(high, 16);
+        final int l = Character.digit(low, 16);
+        return (h | l) < 0 ? -1 : h << 4 | l;
+    }
+
+    /**
+     * Advances the buffers of a decoding and tells how it ended.
+     * 
+     * @param src
+     *            the hexadecimal characters
+     * @param off
+     *            the position of src before the decoding
+     * @param dst
+     *            the decoded bytes
+     * @param dstOff
+     *            the position of dst before the decoding
+     * @param n
+     *            the number of bytes decoded
+     * @param len
+     *            the number of bytes to decode
+     * @return the result of the decoding
+     */
+    private static CoderResult decodeResult(Buffer src, int off, Buffer dst, int dstOff, int n, int len) {
+        src.position(off + (n << 1));
+        dst.position(dstOff + n);
+        if (n < len) {
+            return CoderResult.malformedForLength(2);
+        }
+        return src.remaining() < 2 ? CoderResult.UNDERFLOW : CoderResult.OVERFLOW;
+    }
+
     /**
      * Converts a hexadecimal character to an integer.
      * 
@@ -167,14 +889,41 @@ public class Hex implements BinaryEncoder, BinaryDecoder {
         return digit;
     }
 
+    /**
+     * Checks if a charset encodes and decodes the hexadecimal digits as ASCII, one byte each.
+     * 
+     * @param csName
+     *            the charset name
+     * @return <code>true</code> if the charset is supported and ASCII compatible for the hexadecimal digits
+     */
+    private static boolean isAsciiCompatible(String csName) {
+        try {
+            Charset charset = Charset.forName(csName);
+            String digits = new String(DIGITS_LOWER) + new String(DIGITS_UPPER);
+            byte[] bytes = digits.getBytes(charset);
+            return Arrays.equals(bytes, digits.getBytes(StandardCharsets.US_ASCII)) &&
+                   digits.equals(new String(bytes, charset));
+        } catch (IllegalArgumentException e) {
+            // illegal, unsupported or null name: the charset is looked up again, and reported, when used
+            return false;
+        }
+    }
+
     private final String charsetName;
 
+    /**
+     * Indicator for a charset which maps the hexadecimal digits to their ASCII bytes, so that {@link #encode(byte[])}
+     * and {@link #decode(byte[])} can skip the charset.
+     */
+    private final boolean asciiCompatible;
+
     /**
      * Creates a new codec with the default charset name {@link #DEFAULT_CHARSET_NAME}
      */
     public Hex() {
         // use default encoding
         this.charsetName = DEFAULT_CHARSET_NAME;
+        this.asciiCompatible = true;
     }
 
     /**
@@ -186,6 +935,7 @@ public class Hex implements BinaryEncoder, BinaryDecoder {
      */
     public Hex(String csName) {
         this.charsetName = csName;
+        this.asciiCompatible = isAsciiCompatible(csName);
     }
 
     /**
@@ -201,6 +951,13 @@ public class Hex implements BinaryEncoder, BinaryDecoder {
      * @see #decodeHex(char[])
      */
     public byte[] decode(byte[] array) throws DecoderException {
+        if (asciiCompatible && (array.length & 0x01) == 0) {
+            byte[] out = new byte[array.length >> 1];
+            if (decodeHexAscii(array, 0, array.length, out, 0)) {
+                return out;
+            }
+        }
+        // other charsets, non-ASCII digits and errors
         try {
             return decodeHex(new String(array, getCharsetName()).toCharArray());
         } catch (UnsupportedEncodingException e) {
@@ -236,7 +993,8 @@ public class Hex implements BinaryEncoder, BinaryDecoder {
      * represent any given byte.
      * <p>
      * The conversion from hexadecimal characters to the returned bytes is performed with the charset named by
-     * {@link #getCharsetName()}.
+     * {@link #getCharsetName()}. When this charset maps the hexadecimal digits to their ASCII bytes, as UTF-8, US-ASCII
+     * and ISO-8859-1 do, the bytes are written directly, without building the characters first.
      * </p>
      * 
      * @param array
@@ -248,6 +1006,9 @@ public class Hex implements BinaryEncoder, BinaryDecoder {
      * @see #encodeHex(byte[])
      */
     public byte[] encode(byte[] array) {
+        if (asciiCompatible) {
+            return encodeHexAscii(array);
+        }
         return StringUtils.getBytesUnchecked(encodeHexString(array), getCharsetName());
     }
 
@@ -18,18 +18,27 @@ package experimento;
  */
 
 
+import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.MathIllegalArgumentException;
 import org.apache.commons.math3.exception.util.LocalizedFormats;
 
+import java.math.BigInteger;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 
 /**
- * Methods related to prime numbers in the range of <code>int</code>:
+ * Methods related to prime numbers in the range of <code>int</code> and <code>long</code>:
  * <ul>
  * <li>primality test</li>
  * <li>prime number generation</li>
  * <li>factorization</li>
+ * <li>enumeration of the primes in a range</li>
+ * <li>prime counting</li>
  * </ul>
  *
  * @version $Id$
@@ -37,6 +46,18 @@ import java.util.List;
  */
 public class Primes {
 
+    /** The largest prime number which fits in a <code>long</code>: 2<sup>63</sup> - 25. */
+    private static final long LARGEST_LONG_PRIME = 9223372036854775783L;
+
+    /** Optional bitmap used by the primality tests, null if none. */
+    private static volatile PrimalityBitmap primalityBitmap;
+
+    /** Optional table used by the <code>int</code> factorization methods, null if none. */
+    private static volatile SmallestPrimeFactorTable factorTable;
+
+    /** Optional cache used by the factorization methods, null if none. */
+    private static volatile FactorizationCache factorizationCache;
+
     /**
      * Hide utility class.
      */
@@ -49,6 +70,8 @@ public class Primes {
      * It uses the Miller-Rabin probabilistic test in such a way that a result is guaranteed:
      * it uses the firsts prime numbers as successive base (see Handbook of applied cryptography
      * by Menezes, table 4.1).
+     * If a {@link #setPrimalityBitmap(PrimalityBitmap) primality bitmap} is set, numbers below
+     * its bound are looked up instead.
      *
      * @param n number to test.
      * @return true if n is prime. (All numbers &lt; 2 return false).
@@ -57,17 +80,122 @@ public class Primes {
         if (n < 2) {
             return false;
         }
+        return isPrimeSkipping(n, 0);
+    }
 
-        for (int p : SmallPrimes.PRIMES) {
-            if (0 == (n % p)) {
-                return n == p;
-            }
+    /**
+     * Primality test with a given number of trial divisions before the Miller-Rabin test.
+     * <p>
+     * The result is the same as {@link #isPrime(int)}, which uses
+     * {@link SmallPrimes#PREFILTER_LENGTH} primes. This method is meant to tune that length
+     * for a given input distribution.
+     *
+     * @param n number to test.
+     * @param prefilterLength number of primes of {@link SmallPrimes#PRIMES} tried first.
+     * @return true if n is prime. (All numbers &lt; 2 return false).
+     * @throws MathIllegalArgumentException if prefilterLength is smaller than
+     * {@link SmallPrimes#MIN_PREFILTER_LENGTH} or larger than the table.
+     */
+    public static boolean isPrime(int n, int prefilterLength) {
+        if (prefilterLength < SmallPrimes.MIN_PREFILTER_LENGTH) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL,
+                                                   prefilterLength, SmallPrimes.MIN_PREFILTER_LENGTH);
         }
-        return SmallPrimes.millerRabinPrimeTest(n);
+        if (prefilterLength > SmallPrimes.PRIMES.length) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_LARGE,
+                                                   prefilterLength, SmallPrimes.PRIMES.length);
+        }
+        if (n < 2) {
+            return false;
+        }
+        return isPrimeSkipping(n, 0, prefilterLength);
+    }
+
+    /**
+     * Primality test: tells if the argument is a (provable) prime or not.
+     * <p>
+     * It uses the Miller-Rabin test with the first twelve prime numbers as successive bases,
+     * which gives a guaranteed result over the whole <code>long</code> range.
+     * If a {@link #setPrimalityBitmap(PrimalityBitmap) primality bitmap} is set, numbers below
+     * its bound are looked up instead.
+     *
+     * @param n number to test.
+     * @return true if n is prime. (All numbers &lt; 2 return false).
+     */
+    public static boolean isPrime(long n) {
+        if (n <= Integer.MAX_VALUE) {
+            return n >= 2 && isPrime((int) n);
+        }
+        return isPrimeSkipping(n, 0);
+    }
+
+    /**
+     * Probable primality test of an arbitrary size number.
+     * <p>
+     * Numbers which fit in a <code>long</code> get the guaranteed result of
+     * {@link #isPrime(long)}. Larger numbers go through the Baillie-PSW test: trial division by
+     * the first primes (as a gcd with their products), a strong probable prime test to base 2
+     * and a strong Lucas probable prime test. No composite number is known to pass it, and it is
+     * much faster than {@link BigInteger#isProbablePrime(int)} with a high certainty.
+     *
+     * @param n number to test.
+     * @return true if n is a probable prime, false if n is composite. (All numbers &lt; 2 return false).
+     */
+    public static boolean isProbablePrime(BigInteger n) {
+        if (n.signum() <= 0) {
+            return false;
+        }
+        if (n.bitLength() < Long.SIZE) {
+            return isPrime(n.longValue());
+        }
+        return BailliePSW.isProbablePrime(n);
+    }
+
+    /**
+     * Primality test of an array of numbers.
+     * <p>
+     * The result is the same as calling {@link #isPrime(int)} on each element, but the numbers
+     * are processed in blocks: trial division by the first primes is done without data dependent
+     * branches, then the remaining candidates go through a batched Miller-Rabin test.
+     * This is much faster for large arrays of unrelated numbers.
+     *
+     * @param in numbers to test.
+     * @param out array where to store the results: out[i] is true if in[i] is prime.
+     * @throws DimensionMismatchException if out is shorter than in.
+     */
+    public static void isPrime(int[] in, boolean[] out) {
+        if (out.length < in.length) {
+            throw new DimensionMismatchException(out.length, in.length);
+        }
+        new BatchPrimalityTest().isPrime(in, out);
+    }
+
+    /**
+     * Primality test of an array of numbers, with the results packed in a bit mask.
+     * <p>
+     * The result is the same as calling {@link #isPrime(int)} on each element, but the numbers
+     * are processed in blocks: trial division by the first primes is done without data dependent
+     * branches, then the remaining candidates go through a batched Miller-Rabin test.
+     * This is much faster for large arrays of unrelated numbers.
+     *
+     * @param in numbers to test.
+     * @param bitmask array where to store the results: bit (i &amp; 63) of bitmask[i / 64] is set
+     * if in[i] is prime. The bits after the last number are cleared.
+     * @throws DimensionMismatchException if bitmask has less than (in.length + 63) / 64 elements.
+     */
+    public static void isPrime(int[] in, long[] bitmask) {
+        final int words = (in.length + 63) >>> 6;
+        if (bitmask.length < words) {
+            throw new DimensionMismatchException(bitmask.length, words);
+        }
+        new BatchPrimalityTest().isPrime(in, bitmask);
     }
 
     /**
      * Return the smallest prime greater than or equal to n.
+     * <p>
+     * Candidates are enumerated on a wheel of modulus 210, so multiples of 2, 3, 5 and 7
+     * are never tested.
      *
      * @param n a positive number.
      * @return the smallest prime greater than or equal to n.
@@ -77,37 +205,124 @@ public class Primes {
         if (n < 0) {
             throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, n, 0);
         }
-        if (n == 2) {
-            return 2;
+        for (int i = 0; i < PrimeWheel.PRIMES; i++) {
+            if (n <= SmallPrimes.PRIMES[i]) {
+                return SmallPrimes.PRIMES[i];
+            }
         }
-        n = n | 1;//make sure n is odd
-        if (n == 1) {
-            return 2;
+
+        // Integer.MAX_VALUE is a prime on the wheel, so the candidates never overflow
+        int index = PrimeWheel.ceilingIndex(n);
+        int candidate = n - n % PrimeWheel.MODULUS + PrimeWheel.RESIDUES[index];
+        while (!isPrimeSkipping(candidate, PrimeWheel.PRIMES)) {
+            candidate += PrimeWheel.GAPS[index];
+            index = index + 1 < PrimeWheel.SIZE ? index + 1 : 0;
         }
+        return candidate;
+    }
 
-        if (isPrime(n)) {
-            return n;
+    /**
+     * Return the smallest prime greater than or equal to n.
+     * <p>
+     * Candidates are enumerated on a wheel of modulus 210, so multiples of 2, 3, 5 and 7
+     * are never tested.
+     *
+     * @param n a positive number.
+     * @return the smallest prime greater than or equal to n.
+     * @throws MathIllegalArgumentException if n &lt; 0 or if n is larger than the largest
+     * prime which fits in a <code>long</code>.
+     */
+    public static long nextPrime(long n) {
+        if (n <= Integer.MAX_VALUE) {
+            if (n < 0) {
+                throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, n, 0);
+            }
+            return nextPrime((int) n);
+        }
+        if (n > LARGEST_LONG_PRIME) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_LARGE, n, LARGEST_LONG_PRIME);
         }
 
-        // prepare entry in the +2, +4 loop:
-        // n should not be a multiple of 3
-        final int rem = n % 3;
-        if (0 == rem) { // if n % 3 == 0
-            n += 2; // n % 3 == 2
-        } else if (1 == rem) { // if n % 3 == 1
-            // if (isPrime(n)) return n;
-            n += 4; // n % 3 == 2
+        int index = PrimeWheel.ceilingIndex(n);
+        long candidate = n - n % PrimeWheel.MODULUS + PrimeWheel.RESIDUES[index];
+        while (!isPrimeSkipping(candidate, PrimeWheel.PRIMES)) {
+            candidate += PrimeWheel.GAPS[index];
+            index = index + 1 < PrimeWheel.SIZE ? index + 1 : 0;
         }
-        while (true) { // this loop skips all multiple of 3
-            if (isPrime(n)) {
-                return n;
-            }
-            n += 2; // n % 3 == 1
-            if (isPrime(n)) {
-                return n;
+        return candidate;
+    }
+
+    /**
+     * Return the smallest probable prime greater than or equal to n.
+     * <p>
+     * Numbers up to the largest prime which fits in a <code>long</code> are handled by
+     * {@link #nextPrime(long)}. Above, windows of odd candidates are sieved by the first primes
+     * and the survivors are checked with the test of {@link #isProbablePrime(BigInteger)}.
+     *
+     * @param n a positive number.
+     * @return the smallest probable prime greater than or equal to n.
+     * @throws MathIllegalArgumentException if n &lt; 0.
+     */
+    public static BigInteger nextProbablePrime(BigInteger n) {
+        if (n.signum() < 0) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, n, 0);
+        }
+        if (n.bitLength() < Long.SIZE && n.longValue() <= LARGEST_LONG_PRIME) {
+            return BigInteger.valueOf(nextPrime(n.longValue()));
+        }
+        return BailliePSW.nextProbablePrime(n);
+    }
+
+    /**
+     * Return the largest prime less than or equal to n.
+     * <p>
+     * Candidates are enumerated on a wheel of modulus 210, so multiples of 2, 3, 5 and 7
+     * are never tested.
+     *
+     * @param n a number &ge; 2.
+     * @return the largest prime less than or equal to n.
+     * @throws MathIllegalArgumentException if n &lt; 2.
+     */
+    public static int previousPrime(int n) {
+        return (int) previousPrime((long) n);
+    }
+
+    /**
+     * Return the largest prime less than or equal to n.
+     * <p>
+     * Candidates are enumerated on a wheel of modulus 210, so multiples of 2, 3, 5 and 7
+     * are never tested.
+     *
+     * @param n a number &ge; 2.
+     * @return the largest prime less than or equal to n.
+     * @throws MathIllegalArgumentException if n &lt; 2.
+     */
+    public static long previousPrime(long n) {
+        if (n < 2) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, n, 2);
+        }
+        if (n < SmallPrimes.PRIMES[PrimeWheel.PRIMES]) {
+            int i = PrimeWheel.PRIMES - 1;
+            while (SmallPrimes.PRIMES[i] > n) {
+                --i;
             }
-            n += 4; // n % 3 == 2
+            return SmallPrimes.PRIMES[i];
+        }
+
+        int index = PrimeWheel.floorIndex(n);
+        long candidate = n - n % PrimeWheel.MODULUS;
+        if (index < 0) {
+            // n is a multiple of the modulus, start from the last residue of the previous turn
+            index = PrimeWheel.SIZE - 1;
+            candidate -= PrimeWheel.MODULUS;
         }
+        candidate += PrimeWheel.RESIDUES[index];
+        // 11 is the first prime on the wheel, the loop stops there at the latest
+        while (!isPrimeSkipping(candidate, PrimeWheel.PRIMES)) {
+            index = index > 0 ? index - 1 : PrimeWheel.SIZE - 1;
+            candidate -= PrimeWheel.GAPS[index];
+        }
+        return candidate;
     }
 
     /**
@@ -122,11 +337,454 @@ public class Primes {
         if (n < 2) {
             throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, n, 2);
         }
-        // slower than trial div unless we do an awful lot of computation
-        // (then it finally gets JIT-compiled efficiently
-        // List<Integer> out = PollardRho.primeFactors(n);
-        return SmallPrimes.trialDivision(n);
+        final SmallestPrimeFactorTable table = factorTable;
+        if (table != null && n <= table.getBound()) {
+            return table.primeFactors(n);
+        }
+        final FactorizationCache cache = factorizationCache;
+        if (cache != null) {
+            return cache.primeFactors(n);
+        }
+        // small factors are removed by trial division, a remaining
+        // composite part is split with Pollard's rho
+        return PollardRho.primeFactors(n);
+
+    }
+
+    /**
+     * Prime factors decomposition
+     *
+     * @param n number to factorize: must be &ge; 2
+     * @return list of prime factors of n
+     * @throws MathIllegalArgumentException if n &lt; 2.
+     */
+    public static List<Long> primeFactors(long n) {
+
+        if (n < 2) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, n, 2);
+        }
+        final FactorizationCache cache = factorizationCache;
+        if (cache != null) {
+            return cache.primeFactors(n);
+        }
+        return PollardRho.primeFactors(n);
+
+    }
+
+    /**
+     * Prime factors decomposition, without allocation.
+     * <p>
+     * This is the same decomposition as {@link #primeFactors(int)}, stored in a caller supplied array
+     * so that factoring many numbers does not create any garbage.
+     *
+     * @param n number to factorize: must be &ge; 2
+     * @param factors array where to store the prime factors of n in ascending order, an array
+     * of 32 elements is always large enough
+     * @return the number of prime factors stored in the array
+     * @throws MathIllegalArgumentException if n &lt; 2.
+     */
+    public static int primeFactors(int n, int[] factors) {
+        if (n < 2) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, n, 2);
+        }
+        final SmallestPrimeFactorTable table = factorTable;
+        if (table != null && n <= table.getBound()) {
+            return table.primeFactors(n, factors);
+        }
+        final FactorizationCache cache = factorizationCache;
+        if (cache != null) {
+            return cache.primeFactors(n, factors);
+        }
+        return PollardRho.primeFactors(n, factors);
+    }
+
+    /**
+     * Prime factors decomposition, without allocation.
+     * <p>
+     * This is the same decomposition as {@link #primeFactors(long)}, stored in a caller supplied array
+     * so that factoring many numbers does not create any garbage.
+     *
+     * @param n number to factorize: must be &ge; 2
+     * @param factors array where to store the prime factors of n in ascending order, an array
+     * of 64 elements is always large enough
+     * @return the number of prime factors stored in the array
+     * @throws MathIllegalArgumentException if n &lt; 2.
+     */
+    public static int primeFactors(long n, long[] factors) {
+        if (n < 2) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, n, 2);
+        }
+        final FactorizationCache cache = factorizationCache;
+        if (cache != null) {
+            return cache.primeFactors(n, factors);
+        }
+        return PollardRho.primeFactors(n, factors);
+    }
+
+    /**
+     * Decomposition into prime powers, without allocation.
+     * <p>
+     * The distinct primes of n are stored in ascending order, each one followed by its exponent:
+     * 360 = 2<sup>3</sup>&middot;3<sup>2</sup>&middot;5 gives {2, 3, 3, 2, 5, 1}.
+     *
+     * @param n number to factorize: must be &ge; 2
+     * @param powers array where to store the prime powers of n, an array of 18 elements
+     * is always large enough
+     * @return the number of distinct primes stored in the array (half the number of elements used)
+     * @throws MathIllegalArgumentException if n &lt; 2.
+     */
+    public static int primePowers(int n, int[] powers) {
+        if (n < 2) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, n, 2);
+        }
+        final SmallestPrimeFactorTable table = factorTable;
+        if (table != null && n <= table.getBound()) {
+            return table.primePowers(n, powers);
+        }
+        return PollardRho.primePowers(n, powers);
+    }
+
+    /**
+     * Decomposition into prime powers, without allocation.
+     * <p>
+     * The distinct primes of n are stored in ascending order, each one followed by its exponent:
+     * 360 = 2<sup>3</sup>&middot;3<sup>2</sup>&middot;5 gives {2, 3, 3, 2, 5, 1}.
+     *
+     * @param n number to factorize: must be &ge; 2
+     * @param powers array where to store the prime powers of n, an array of 30 elements
+     * is always large enough
+     * @return the number of distinct primes stored in the array (half the number of elements used)
+     * @throws MathIllegalArgumentException if n &lt; 2.
+     */
+    public static int primePowers(long n, long[] powers) {
+        if (n < 2) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, n, 2);
+        }
+        return PollardRho.primePowers(n, powers);
+    }
+
+    /**
+     * Select the primality test strategy for small numbers.
+     * <p>
+     * When a bitmap is set, {@link #isPrime(int)} and {@link #isPrime(long)} look up all numbers
+     * below its bound, and fall back to trial division and Miller-Rabin above.
+     *
+     * @param bitmap primality bitmap to use, null to always use trial division and Miller-Rabin
+     */
+    public static void setPrimalityBitmap(PrimalityBitmap bitmap) {
+        primalityBitmap = bitmap;
+    }
+
+    /**
+     * Get the primality bitmap used for small numbers.
+     *
+     * @return primality bitmap in use, null if none
+     */
+    public static PrimalityBitmap getPrimalityBitmap() {
+        return primalityBitmap;
+    }
+
+    /**
+     * Select the factorization strategy for <code>int</code> numbers.
+     * <p>
+     * When a table is set, {@link #primeFactors(int)}, {@link #primeFactors(int, int[])} and
+     * {@link #primePowers(int, int[])} use it for all numbers up to its bound, and fall back
+     * to trial division and Pollard's rho above.
+     *
+     * @param table smallest prime factor table to use, null to always use trial division
+     * and Pollard's rho
+     */
+    public static void setSmallestPrimeFactorTable(SmallestPrimeFactorTable table) {
+        factorTable = table;
+    }
+
+    /**
+     * Get the smallest prime factor table used for <code>int</code> numbers.
+     *
+     * @return smallest prime factor table in use, null if none
+     */
+    public static SmallestPrimeFactorTable getSmallestPrimeFactorTable() {
+        return factorTable;
+    }
+
+    /**
+     * Select the factorization cache.
+     * <p>
+     * When a cache is set, {@link #primeFactors(int)}, {@link #primeFactors(long)},
+     * {@link #primeFactors(int, int[])} and {@link #primeFactors(long, long[])} look up the
+     * factorizations there first, and store the ones they compute. Numbers covered by the
+     * {@link #setSmallestPrimeFactorTable(SmallestPrimeFactorTable) smallest prime factor table}
+     * are factorized by the table without going through the cache.
+     *
+     * @param cache factorization cache to use, null to always compute the factorizations
+     */
+    public static void setFactorizationCache(FactorizationCache cache) {
+        factorizationCache = cache;
+    }
+
+    /**
+     * Get the factorization cache.
+     *
+     * @return factorization cache in use, null if none
+     */
+    public static FactorizationCache getFactorizationCache() {
+        return factorizationCache;
+    }
+
+    /**
+     * Enumerate all primes in a range.
+     * <p>
+     * It uses a segmented sieve of Eratosthenes, which is much faster than repeated calls to
+     * {@link #nextPrime(int)} when the range holds many primes.
+     *
+     * @param lo the inclusive lower bound, must be &ge; 0
+     * @param hi the exclusive upper bound, must be &ge; lo
+     * @return the primes p such that lo &le; p &lt; hi, in ascending order
+     * @throws MathIllegalArgumentException if lo &lt; 0 or hi &lt; lo
+     */
+    public static int[] primesInRange(int lo, int hi) {
+        checkRange(lo, hi);
+        final SegmentedSieve.IntCollector collector = new SegmentedSieve.IntCollector(hi - lo);
+        SegmentedSieve.forRange(lo, hi).sieve(lo, hi, collector);
+        return collector.toArray();
+    }
+
+    /**
+     * Enumerate all primes in a range.
+     * <p>
+     * It uses a segmented sieve of Eratosthenes, which is much faster than repeated calls to
+     * {@link #nextPrime(long)} when the range holds many primes.
+     *
+     * @param lo the inclusive lower bound, must be &ge; 0
+     * @param hi the exclusive upper bound, must be &ge; lo and &le; (2<sup>31</sup>-1)<sup>2</sup>
+     * @return the primes p such that lo &le; p &lt; hi, in ascending order
+     * @throws MathIllegalArgumentException if lo &lt; 0, hi &lt; lo or hi is too large
+     */
+    public static long[] primesInRange(long lo, long hi) {
+        checkRange(lo, hi);
+        final SegmentedSieve.LongCollector collector = new SegmentedSieve.LongCollector(hi - lo);
+        SegmentedSieve.forRange(lo, hi).sieve(lo, hi, collector);
+        return collector.toArray();
+    }
+
+    /**
+     * Enumerate all primes in a range without storing them.
+     *
+     * @param lo the inclusive lower bound, must be &ge; 0
+     * @param hi the exclusive upper bound, must be &ge; lo and &le; (2<sup>31</sup>-1)<sup>2</sup>
+     * @param action the action to call for each prime p such that lo &le; p &lt; hi, in ascending order
+     * @throws MathIllegalArgumentException if lo &lt; 0, hi &lt; lo or hi is too large
+     */
+    public static void primesInRange(long lo, long hi, LongConsumer action) {
+        checkRange(lo, hi);
+        SegmentedSieve.forRange(lo, hi).sieve(lo, hi, action);
+    }
+
+    /**
+     * Enumerate all primes in a range, using several threads.
+     * <p>
+     * The range is split into parts sieved in parallel by the pool, each with its own segment buffer.
+     *
+     * @param lo the inclusive lower bound, must be &ge; 0
+     * @param hi the exclusive upper bound, must be &ge; lo and &le; (2<sup>31</sup>-1)<sup>2</sup>
+     * @param pool the pool running the sieve
+     * @return the primes p such that lo &le; p &lt; hi, in ascending order
+     * @throws MathIllegalArgumentException if lo &lt; 0, hi &lt; lo or hi is too large
+     */
+    public static long[] primesInRange(long lo, long hi, ForkJoinPool pool) {
+        checkRange(lo, hi);
+        return SegmentedSieve.sieve(lo, hi, pool);
+    }
+
+    /**
+     * Lazy stream of the primes greater than or equal to a number.
+     * <p>
+     * The stream is backed by an incremental segmented sieve: primes are sieved in chunks as they
+     * are consumed, so short-circuiting operations like <code>limit</code> only pay for what they use.
+     *
+     * @param from the inclusive lower bound, must be &ge; 0
+     * @return the sequential stream of the primes p such that from &le; p, in ascending order
+     * @throws MathIllegalArgumentException if from &lt; 0
+     */
+    public static IntStream stream(int from) {
+        checkRange(from, Integer.MAX_VALUE + 1L);
+        return StreamSupport.longStream(new PrimeSpliterator(from, Integer.MAX_VALUE + 1L, true), false).
+               mapToInt(p -> (int) p);
+    }
+
+    /**
+     * Lazy stream of the primes in a range.
+     * <p>
+     * The stream is backed by an incremental segmented sieve, its spliterator splits the range
+     * in halves so that parallel streams share the work evenly.
+     *
+     * @param from the inclusive lower bound, must be &ge; 0
+     * @param to the exclusive upper bound, must be &ge; from
+     * @return the sequential stream of the primes p such that from &le; p &lt; to, in ascending order
+     * @throws MathIllegalArgumentException if from &lt; 0 or to &lt; from
+     */
+    public static IntStream stream(int from, int to) {
+        checkRange(from, to);
+        return StreamSupport.longStream(new PrimeSpliterator(from, to, false), false).
+               mapToInt(p -> (int) p);
+    }
+
+    /**
+     * Lazy stream of the primes greater than or equal to a number.
+     * <p>
+     * The stream is backed by an incremental segmented sieve: primes are sieved in chunks as they
+     * are consumed, so short-circuiting operations like <code>limit</code> only pay for what they use.
+     * It stops at (2<sup>31</sup>-1)<sup>2</sup>.
+     *
+     * @param from the inclusive lower bound, must be &ge; 0
+     * @return the sequential stream of the primes p such that from &le; p, in ascending order
+     * @throws MathIllegalArgumentException if from &lt; 0 or from is too large
+     */
+    public static LongStream stream(long from) {
+        checkRange(from, SegmentedSieve.MAX_BOUND);
+        return StreamSupport.longStream(new PrimeSpliterator(from, SegmentedSieve.MAX_BOUND, true), false);
+    }
+
+    /**
+     * Lazy stream of the primes in a range.
+     * <p>
+     * The stream is backed by an incremental segmented sieve, its spliterator splits the range
+     * in halves so that parallel streams share the work evenly.
+     *
+     * @param from the inclusive lower bound, must be &ge; 0
+     * @param to the exclusive upper bound, must be &ge; from and &le; (2<sup>31</sup>-1)<sup>2</sup>
+     * @return the sequential stream of the primes p such that from &le; p &lt; to, in ascending order
+     * @throws MathIllegalArgumentException if from &lt; 0, to &lt; from or to is too large
+     */
+    public static LongStream stream(long from, long to) {
+        checkRange(from, to);
+        return StreamSupport.longStream(new PrimeSpliterator(from, to, false), false);
+    }
+
+    /**
+     * Prime counting function &pi;(x).
+     * <p>
+     * It uses Meissel's formula, so it needs about x<sup>2/3</sup> operations and a table of
+     * x<sup>2/3</sup>/10 bytes instead of enumerating all the primes: &pi;(10<sup>12</sup>)
+     * takes well under a second.
+     *
+     * @param x upper bound, must be &lt; (2<sup>31</sup>-1)<sup>2</sup>
+     * @return the number of primes p such that p &le; x (0 if x &lt; 2)
+     * @throws MathIllegalArgumentException if x is too large
+     */
+    public static long countPrimes(long x) {
+        if (x >= SegmentedSieve.MAX_BOUND) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_LARGE, x, SegmentedSieve.MAX_BOUND - 1);
+        }
+        return PrimeCounting.countPrimes(x);
+    }
 
+    /**
+     * Find the n<sup>th</sup> prime number.
+     * <p>
+     * The prime is estimated from the logarithmic integral, the estimate is corrected by
+     * {@link #countPrimes(long) counting the primes} up to it and sieving the remaining gap.
+     *
+     * @param n rank of the prime, nthPrime(1) is 2
+     * @return the n<sup>th</sup> prime number
+     * @throws MathIllegalArgumentException if n &lt; 1 or if the prime is too large
+     */
+    public static long nthPrime(long n) {
+        if (n < 1) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, n, 1);
+        }
+        return PrimeCounting.nthPrime(n);
+    }
+
+    /**
+     * Primality test for a number known not to be divisible by the first primes.
+     *
+     * @param n number to test, must be &ge; 2 and not divisible by the skipped primes
+     * @param skipped number of primes of {@link SmallPrimes#PRIMES} skipped by trial division
+     * @return true if n is prime
+     */
+    private static boolean isPrimeSkipping(int n, int skipped) {
+        return isPrimeSkipping(n, skipped, SmallPrimes.PREFILTER_LENGTH);
+    }
+
+    /**
+     * Primality test for a number known not to be divisible by the first primes.
+     *
+     * @param n number to test, must be &ge; 2 and not divisible by the skipped primes
+     * @param skipped number of primes of {@link SmallPrimes#PRIMES} skipped by trial division
+     * @param prefilterLength number of primes of {@link SmallPrimes#PRIMES} tried before the
+     * Miller-Rabin test, must be &ge; {@link SmallPrimes#MIN_PREFILTER_LENGTH}
+     * @return true if n is prime
+     */
+    private static boolean isPrimeSkipping(int n, int skipped, int prefilterLength) {
+        final PrimalityBitmap bitmap = primalityBitmap;
+        if (bitmap != null && n < bitmap.getBound()) {
+            PrimesMetrics.recordBitmap();
+            return bitmap.isPrime(n);
+        }
+
+        if (skipped == 0 && (n & 1) == 0) {
+            PrimesMetrics.recordSmallPrimes(1);
+            return n == 2;
+        }
+        // n * p^-1 is at most (2^32 - 1) / p if and only if p divides n, see SmallPrimes.INVERSES_32
+        for (int i = Math.max(skipped, 1); i < prefilterLength; i++) {
+            if (Integer.compareUnsigned(n * SmallPrimes.INVERSES_32[i], SmallPrimes.LIMITS_32[i]) <= 0) {
+                PrimesMetrics.recordSmallPrimes(1);
+                return n == SmallPrimes.PRIMES[i];
+            }
+        }
+        return SmallPrimes.millerRabinPrimeTest(n);
+    }
+
+    /**
+     * Primality test for a number known not to be divisible by the first primes.
+     *
+     * @param n number to test, must be &ge; 2 and not divisible by the skipped primes
+     * @param skipped number of primes of {@link SmallPrimes#PRIMES} skipped by trial division
+     * @return true if n is prime
+     */
+    private static boolean isPrimeSkipping(long n, int skipped) {
+        if (n <= Integer.MAX_VALUE) {
+            return isPrimeSkipping((int) n, skipped);
+        }
+        final PrimalityBitmap bitmap = primalityBitmap;
+        if (bitmap != null && n < bitmap.getBound()) {
+            PrimesMetrics.recordBitmap();
+            return bitmap.isPrime(n);
+        }
+
+        if (skipped == 0 && (n & 1) == 0) {
+            PrimesMetrics.recordSmallPrimes(1);
+            return false;
+        }
+        // n * p^-1 is at most (2^64 - 1) / p if and only if p divides n, see SmallPrimes.INVERSES_64
+        for (int i = Math.max(skipped, 1); i < SmallPrimes.PREFILTER_LENGTH; i++) {
+            if (Long.compareUnsigned(n * SmallPrimes.INVERSES_64[i], SmallPrimes.LIMITS_64[i]) <= 0) {
+                PrimesMetrics.recordSmallPrimes(1);
+                return false;
+            }
+        }
+        return SmallPrimes.millerRabinPrimeTest(n);
+    }
+
+    /**
+     * Check the bounds of a range of primes.
+     *
+     * @param lo the inclusive lower bound
+     * @param hi the exclusive upper bound
+     * @throws MathIllegalArgumentException if lo &lt; 0, hi &lt; lo or hi is too large
+     */
+    private static void checkRange(long lo, long hi) {
+        if (lo < 0) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, lo, 0);
+        }
+        if (hi < lo) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, hi, lo);
+        }
+        if (hi > SegmentedSieve.MAX_BOUND) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_LARGE, hi, SegmentedSieve.MAX_BOUND);
+        }
     }
 
 }
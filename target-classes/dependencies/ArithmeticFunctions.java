@@ -0,0 +1,495 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.function.Consumer;
+
+import org.apache.commons.math3.exception.MathArithmeticException;
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+
+/**
+ * Multiplicative arithmetic functions: Euler's totient &phi;, M&ouml;bius &mu;, number of divisors
+ * &sigma;<sub>0</sub>, sum of divisors &sigma;<sub>1</sub> and number of distinct prime factors &omega;.
+ * <p>
+ * The bulk methods compute the functions for all numbers of a range with a segmented sieve:
+ * each segment starts with the numbers themselves, every base prime p (up to the square root of the
+ * range end) divides out its power from its multiples and updates the functions, and what remains
+ * after all base primes is either 1 or a prime factor larger than the square root. Exact divisions
+ * by the base primes use multiplicative inverses, as {@link SmallPrimes#INVERSES_32}. The whole range
+ * costs O(n log log n) operations instead of one factorization per number, and the segments keep
+ * the working set in cache. {@link #forEachSegment(int, int, Consumer)} gives access to the segments
+ * without allocating the arrays for the whole range.
+ * <p>
+ * The single value methods work on the {@link Primes#primePowers(long, long[]) prime powers}
+ * of a number, so that one factorization can be shared by all the functions.
+ * <p>
+ * By convention, all functions are 0 for 0.
+ * @version $Id$
+ * @since 3.2
+ */
+public final class ArithmeticFunctions {
+
+    /** Number of numbers per segment. */
+    private static final int SEGMENT_SIZE = 1 << 15;
+
+    /**
+     * Hide utility class.
+     */
+    private ArithmeticFunctions() {
+    }
+
+    /**
+     * Compute Euler's totient of all numbers up to a bound.
+     * @param n largest number, must be &ge; 0
+     * @return array of n + 1 elements, element i is &phi;(i)
+     * @throws MathIllegalArgumentException if n &lt; 0
+     */
+    public static int[] totientTable(final int n) {
+        final int[] result = new int[checkBound(n) + 1];
+        forEachSegment(0, n + 1, s -> System.arraycopy(s.totient, 0, result, s.lo, s.size));
+        return result;
+    }
+
+    /**
+     * Compute the M&ouml;bius function of all numbers up to a bound.
+     * @param n largest number, must be &ge; 0
+     * @return array of n + 1 elements, element i is &mu;(i)
+     * @throws MathIllegalArgumentException if n &lt; 0
+     */
+    public static byte[] moebiusTable(final int n) {
+        final byte[] result = new byte[checkBound(n) + 1];
+        forEachSegment(0, n + 1, s -> System.arraycopy(s.moebius, 0, result, s.lo, s.size));
+        return result;
+    }
+
+    /**
+     * Compute the number of divisors of all numbers up to a bound.
+     * @param n largest number, must be &ge; 0
+     * @return array of n + 1 elements, element i is &sigma;<sub>0</sub>(i)
+     * @throws MathIllegalArgumentException if n &lt; 0
+     */
+    public static int[] divisorCountTable(final int n) {
+        final int[] result = new int[checkBound(n) + 1];
+        forEachSegment(0, n + 1, s -> System.arraycopy(s.divisorCount, 0, result, s.lo, s.size));
+        return result;
+    }
+
+    /**
+     * Compute the sum of divisors of all numbers up to a bound.
+     * @param n largest number, must be &ge; 0
+     * @return array of n + 1 elements, element i is &sigma;<sub>1</sub>(i)
+     * @throws MathIllegalArgumentException if n &lt; 0
+     */
+    public static long[] divisorSumTable(final int n) {
+        final long[] result = new long[checkBound(n) + 1];
+        forEachSegment(0, n + 1, s -> System.arraycopy(s.divisorSum, 0, result, s.lo, s.size));
+        return result;
+    }
+
+    /**
+     * Compute the number of distinct prime factors of all numbers up to a bound.
+     * @param n largest number, must be &ge; 0
+     * @return array of n + 1 elements, element i is &omega;(i)
+     * @throws MathIllegalArgumentException if n &lt; 0
+     */
+    public static byte[] distinctPrimeFactorCountTable(final int n) {
+        final byte[] result = new byte[checkBound(n) + 1];
+        forEachSegment(0, n + 1, s -> System.arraycopy(s.omega, 0, result, s.lo, s.size));
+        return result;
+    }
+
+    /**
+     * Compute all the functions over a range, one segment at a time.
+     * <p>
+     * The same {@link Segment} instance is passed to all calls, its content is only valid
+     * during the call.
+     * @param lo the inclusive lower bound, must be &ge; 0
+     * @param hi the exclusive upper bound, must be &ge; lo
+     * @param action the action called for each segment, in ascending order
+     * @throws MathIllegalArgumentException if lo &lt; 0 or hi &lt; lo
+     */
+    public static void forEachSegment(final int lo, final int hi, final Consumer<Segment> action) {
+        if (lo < 0) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, lo, 0);
+        }
+        if (hi < lo) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, hi, lo);
+        }
+
+        // odd base primes and the inverses used to divide by them
+        final int[] primes   = SegmentedSieve.basePrimes(hi);
+        final int[] inverses = new int[primes.length];
+        final int[] limits   = new int[primes.length];
+        for (int i = 0; i < primes.length; i++) {
+            inverses[i] = (int) MontgomeryContext.inverse(primes[i]);
+            limits[i]   = (int) (0xFFFFFFFFL / primes[i]);
+        }
+
+        final Segment segment = new Segment(Math.min(SEGMENT_SIZE, hi - lo));
+        for (long start = lo; start < hi; start += SEGMENT_SIZE) {
+            segment.sieve((int) start, (int) Math.min(SEGMENT_SIZE, hi - start), primes, inverses, limits);
+            action.accept(segment);
+        }
+    }
+
+    /**
+     * Compute Euler's totient.
+     * @param n number, must be &ge; 1
+     * @return &phi;(n), the number of integers between 1 and n coprime to n
+     * @throws MathIllegalArgumentException if n &lt; 1
+     */
+    public static long totient(final long n) {
+        final long[] powers = new long[30];
+        return totient(powers, primePowers(n, powers));
+    }
+
+    /**
+     * Compute Euler's totient from the prime powers of a number.
+     * @param powers prime powers of the number, as computed by {@link Primes#primePowers(long, long[])}
+     * @param count number of distinct primes
+     * @return &phi;(n)
+     */
+    public static long totient(final long[] powers, final int count) {
+        long phi = 1;
+        for (int i = 0; i < count; i++) {
+            final long p = powers[2 * i];
+            phi *= p - 1;
+            for (long e = powers[2 * i + 1]; e > 1; e--) {
+                phi *= p;
+            }
+        }
+        return phi;
+    }
+
+    /**
+     * Compute the M&ouml;bius function.
+     * @param n number, must be &ge; 1
+     * @return &mu;(n): 0 if n has a square factor, otherwise (-1)<sup>k</sup> for k prime factors
+     * @throws MathIllegalArgumentException if n &lt; 1
+     */
+    public static int moebius(final long n) {
+        final long[] powers = new long[30];
+        return moebius(powers, primePowers(n, powers));
+    }
+
+    /**
+     * Compute the M&ouml;bius function from the prime powers of a number.
+     * @param powers prime powers of the number, as computed by {@link Primes#primePowers(long, long[])}
+     * @param count number of distinct primes
+     * @return &mu;(n)
+     */
+    public static int moebius(final long[] powers, final int count) {
+        for (int i = 0; i < count; i++) {
+            if (powers[2 * i + 1] > 1) {
+                return 0;
+            }
+        }
+        return (count & 1) == 0 ? 1 : -1;
+    }
+
+    /**
+     * Compute the number of divisors.
+     * @param n number, must be &ge; 1
+     * @return &sigma;<sub>0</sub>(n)
+     * @throws MathIllegalArgumentException if n &lt; 1
+     */
+    public static long divisorCount(final long n) {
+        final long[] powers = new long[30];
+        return divisorCount(powers, primePowers(n, powers));
+    }
+
+    /**
+     * Compute the number of divisors from the prime powers of a number.
+     * @param powers prime powers of the number, as computed by {@link Primes#primePowers(long, long[])}
+     * @param count number of distinct primes
+     * @return &sigma;<sub>0</sub>(n)
+     */
+    public static long divisorCount(final long[] powers, final int count) {
+        long d = 1;
+        for (int i = 0; i < count; i++) {
+            d *= powers[2 * i + 1] + 1;
+        }
+        return d;
+    }
+
+    /**
+     * Compute the sum of divisors.
+     * @param n number, must be &ge; 1
+     * @return &sigma;<sub>1</sub>(n)
+     * @throws MathIllegalArgumentException if n &lt; 1
+     * @throws MathArithmeticException if the sum does not fit in a <code>long</code>
+     */
+    public static long divisorSum(final long n) {
+        final long[] powers = new long[30];
+        return divisorSum(powers, primePowers(n, powers));
+    }
+
+    /**
+     * Compute the sum of divisors from the prime powers of a number.
+     * @param powers prime powers of the number, as computed by {@link Primes#primePowers(long, long[])}
+     * @param count number of distinct primes
+     * @return &sigma;<sub>1</sub>(n)
+     * @throws MathArithmeticException if the sum does not fit in a <code>long</code>
+     */
+    public static long divisorSum(final long[] powers, final int count) {
+        long sigma = 1;
+        for (int i = 0; i < count; i++) {
+            final long p = powers[2 * i];
+            // 1 + p + ... + p^e, which may overflow even though p^e <= n (5^27, 13^17)
+            long term = 1;
+            for (long e = powers[2 * i + 1]; e > 0; e--) {
+                if (term > (Long.MAX_VALUE - 1) / p) {
+                    throw new MathArithmeticException(LocalizedFormats.OVERFLOW_IN_MULTIPLICATION, term, p);
+                }
+                term = term * p + 1;
+            }
+            if (sigma > Long.MAX_VALUE / term) {
+                throw new MathArithmeticException(LocalizedFormats.OVERFLOW_IN_MULTIPLICATION, sigma, term);
+            }
+            sigma *= term;
+        }
+        return sigma;
+    }
+
+    /**
+     * Compute the number of distinct prime factors.
+     * @param n number, must be &ge; 1
+     * @return &omega;(n)
+     * @throws MathIllegalArgumentException if n &lt; 1
+     */
+    public static int distinctPrimeFactorCount(final long n) {
+        final long[] powers = new long[30];
+        return primePowers(n, powers);
+    }
+
+    /**
+     * Decompose a number into prime powers.
+     * @param n number, must be &ge; 1
+     * @param powers array where to store the prime powers
+     * @return number of distinct primes, 0 for 1
+     * @throws MathIllegalArgumentException if n &lt; 1
+     */
+    private static int primePowers(final long n, final long[] powers) {
+        if (n < 1) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, n, 1);
+        }
+        return n == 1 ? 0 : Primes.primePowers(n, powers);
+    }
+
+    /**
+     * Check the bound of a bulk computation.
+     * @param n largest number
+     * @return n
+     * @throws MathIllegalArgumentException if n &lt; 0 or n + 1 overflows
+     */
+    private static int checkBound(final int n) {
+        if (n < 0) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, n, 0);
+        }
+        if (n == Integer.MAX_VALUE) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_LARGE, n, Integer.MAX_VALUE - 1);
+        }
+        return n;
+    }
+
+    /** Values of the functions over a segment of consecutive numbers. */
+    public static final class Segment {
+
+        /** First number of the segment. */
+        private int lo;
+
+        /** Number of numbers in the segment. */
+        private int size;
+
+        /** Part of the numbers not yet factorized, only used while sieving. */
+        private final int[] remaining;
+
+        /** Euler's totient. */
+        private final int[] totient;
+
+        /** M&ouml;bius function. */
+        private final byte[] moebius;
+
+        /** Number of divisors. */
+        private final int[] divisorCount;
+
+        /** Sum of divisors. */
+        private final long[] divisorSum;
+
+        /** Number of distinct prime factors. */
+        private final byte[] omega;
+
+        /**
+         * Build a segment.
+         * @param capacity largest number of numbers in the segment
+         */
+        Segment(final int capacity) {
+            remaining    = new int[capacity];
+            totient      = new int[capacity];
+            moebius      = new byte[capacity];
+            divisorCount = new int[capacity];
+            divisorSum   = new long[capacity];
+            omega        = new byte[capacity];
+        }
+
+        /**
+         * Get the first number of the segment.
+         * @return first number of the segment
+         */
+        public int getLo() {
+            return lo;
+        }
+
+        /**
+         * Get the number of numbers in the segment.
+         * @return number of numbers in the segment
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Get Euler's totient of a number of the segment.
+         * @param n number, between {@link #getLo()} and {@link #getLo()} + {@link #getSize()} - 1
+         * @return &phi;(n)
+         */
+        public int totient(final int n) {
+            return totient[n - lo];
+        }
+
+        /**
+         * Get the M&ouml;bius function of a number of the segment.
+         * @param n number, between {@link #getLo()} and {@link #getLo()} + {@link #getSize()} - 1
+         * @return &mu;(n)
+         */
+        public int moebius(final int n) {
+            return moebius[n - lo];
+        }
+
+        /**
+         * Get the number of divisors of a number of the segment.
+         * @param n number, between {@link #getLo()} and {@link #getLo()} + {@link #getSize()} - 1
+         * @return &sigma;<sub>0</sub>(n)
+         */
+        public int divisorCount(final int n) {
+            return divisorCount[n - lo];
+        }
+
+        /**
+         * Get the sum of divisors of a number of the segment.
+         * @param n number, between {@link #getLo()} and {@link #getLo()} + {@link #getSize()} - 1
+         * @return &sigma;<sub>1</sub>(n)
+         */
+        public long divisorSum(final int n) {
+            return divisorSum[n - lo];
+        }
+
+        /**
+         * Get the number of distinct prime factors of a number of the segment.
+         * @param n number, between {@link #getLo()} and {@link #getLo()} + {@link #getSize()} - 1
+         * @return &omega;(n)
+         */
+        public int distinctPrimeFactorCount(final int n) {
+            return omega[n - lo];
+        }
+
+        /**
+         * Compute the functions over the segment.
+         * @param start first number of the segment
+         * @param length number of numbers in the segment
+         * @param primes odd base primes
+         * @param inverses inverses of the base primes modulo 2<sup>32</sup>
+         * @param limits divisibility limits (2<sup>32</sup> - 1) / p of the base primes
+         */
+        void sieve(final int start, final int length,
+                   final int[] primes, final int[] inverses, final int[] limits) {
+            lo   = start;
+            size = length;
+            for (int j = 0; j < size; j++) {
+                remaining[j]    = lo + j;
+                totient[j]      = lo + j;
+                moebius[j]      = 1;
+                divisorCount[j] = 1;
+                divisorSum[j]   = 1;
+                omega[j]        = 0;
+            }
+
+            // factor 2, extracted with a shift
+            for (int j = lo == 0 ? 2 : (lo & 1); j < size; j += 2) {
+                final int e = Integer.numberOfTrailingZeros(remaining[j]);
+                remaining[j] >>>= e;
+                update(j, 2, e, 1L << e);
+            }
+
+            for (int i = 0; i < primes.length; i++) {
+                final int p       = primes[i];
+                final int inverse = inverses[i];
+                final int limit   = limits[i];
+                long m = ((lo + (long) p - 1) / p) * p;
+                if (m == 0) {
+                    m = p;
+                }
+                for (int j = (int) (m - lo); j < size; j += p) {
+                    // the first division is known to be exact, the next ones are checked
+                    int r = remaining[j] * inverse;
+                    int e = 1;
+                    long power = p;
+                    int q = r * inverse;
+                    while (Integer.compareUnsigned(q, limit) <= 0) {
+                        r = q;
+                        ++e;
+                        power *= p;
+                        q = r * inverse;
+                    }
+                    remaining[j] = r;
+                    update(j, p, e, power);
+                }
+            }
+
+            // what remains is 1 or a prime larger than the square root of the range end
+            for (int j = 0; j < size; j++) {
+                if (remaining[j] > 1) {
+                    update(j, remaining[j], 1, remaining[j]);
+                }
+            }
+            if (lo == 0 && size > 0) {
+                totient[0]      = 0;
+                moebius[0]      = 0;
+                divisorCount[0] = 0;
+                divisorSum[0]   = 0;
+            }
+        }
+
+        /**
+         * Account for a prime power dividing a number.
+         * @param j index of the number in the segment
+         * @param p prime
+         * @param e exponent of p in the number
+         * @param power p<sup>e</sup>
+         */
+        private void update(final int j, final int p, final int e, final long power) {
+            totient[j]      -= totient[j] / p;
+            moebius[j]       = e > 1 ? 0 : (byte) -moebius[j];
+            divisorCount[j] *= e + 1;
+            divisorSum[j]   *= (power * p - 1) / (p - 1);
+            ++omega[j];
+        }
+    }
+
+}
@@ -0,0 +1,377 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Baillie-PSW probable prime test for arbitrary size numbers.
+ * <p>
+ * The test is made of:
+ * <ol>
+ * <li>a gcd with products of the {@link SmallPrimes#PRIMES small primes}, each product fitting
+ * in a <code>long</code> so that only one big remainder is needed per product,</li>
+ * <li>a strong probable prime test to base 2,</li>
+ * <li>a perfect square check, needed for the parameter search of the next step to end,</li>
+ * <li>a strong Lucas probable prime test with the parameters of Selfridge's method A:
+ * D is the first of 5, -7, 9, -11, ... with Jacobi symbol (D/n) = -1, P = 1 and Q = (1 - D) / 4.</li>
+ * </ol>
+ * No composite number passing both tests is known, and there is none below 2<sup>64</sup>
+ * (Feitsma and Galway). The cost is about three modular exponentiations, much less than
+ * {@link BigInteger#isProbablePrime(int)} at a high certainty.
+ * <p>
+ * All methods expect numbers greater than {@link SmallPrimes#PRIMES_LAST}<sup>2</sup>, so that
+ * any small factor proves that the number is composite.
+ * @version $Id$
+ * @since 3.2
+ */
+class BailliePSW {
+
+    /** Odd primes of {@link SmallPrimes#PRIMES}, grouped for the gcd prefilter. */
+    private static final PrimeProducts PREFILTER =
+        new PrimeProducts(Arrays.copyOfRange(SmallPrimes.PRIMES, 1, SmallPrimes.PRIMES.length));
+
+    /** Odd primes &lt; 2<sup>16</sup>, grouped for the sieve of {@link #nextProbablePrime(BigInteger)}. */
+    private static final PrimeProducts SIEVE = new PrimeProducts(SegmentedSieve.basePrimes(1L << 32));
+
+    /**
+     * Hide utility class.
+     */
+    private BailliePSW() {
+    }
+
+    /**
+     * Baillie-PSW probable prime test.
+     * @param n number to test, must be &gt; {@link SmallPrimes#PRIMES_LAST}<sup>2</sup>
+     * @return true if n is a probable prime, false if n is composite
+     */
+    static boolean isProbablePrime(final BigInteger n) {
+        if (!n.testBit(0)) {
+            return false;
+        }
+        for (final long product : PREFILTER.products) {
+            final long r = n.mod(BigInteger.valueOf(product)).longValue();
+            if (r == 0 || PollardRho.gcdPositive(r, product) != 1) {
+                return false;
+            }
+        }
+        return isProbablePrimeNoSmallFactor(n, new Barrett(n));
+    }
+
+    /**
+     * Find the smallest probable prime greater than or equal to n.
+     * <p>
+     * The candidates are sieved by windows of odd numbers with the primes &lt; 2<sup>16</sup>,
+     * only the survivors go through the Baillie-PSW test.
+     * @param n lower bound, must be &ge; 2<sup>32</sup> so that no sieving prime is a candidate
+     * @return the smallest probable prime &ge; n
+     */
+    static BigInteger nextProbablePrime(final BigInteger n) {
+        // the average gap near n is ln(n) ~ 0.69 bitLength, a window of bitLength odd numbers
+        // spans about 3 gaps
+        final int window = Math.max(64, n.bitLength());
+        final boolean[] composite = new boolean[window];
+        BigInteger start = n.testBit(0) ? n : n.add(BigInteger.ONE);
+        while (true) {
+            Arrays.fill(composite, false);
+            for (int g = 0; g < SIEVE.products.length; g++) {
+                final long r = start.mod(BigInteger.valueOf(SIEVE.products[g])).longValue();
+                for (int i = SIEVE.starts[g]; i < SIEVE.starts[g + 1]; i++) {
+                    final int p = SIEVE.primes[i];
+                    // start + 2j = 0 (mod p)  <=>  j = -r / 2 (mod p), and 1/2 = (p + 1) / 2 (mod p)
+                    final long minus = (p - r % p) % p;
+                    for (int j = (int) (minus * ((p + 1) >>> 1) % p); j < window; j += p) {
+                        composite[j] = true;
+                    }
+                }
+            }
+            for (int j = 0; j < window; j++) {
+                if (!composite[j]) {
+                    final BigInteger candidate = start.add(BigInteger.valueOf(2L * j));
+                    if (isProbablePrimeNoSmallFactor(candidate, new Barrett(candidate))) {
+                        return candidate;
+                    }
+                }
+            }
+            start = start.add(BigInteger.valueOf(2L * window));
+        }
+    }
+
+    /**
+     * Baillie-PSW test of a number without small factors.
+     * @param n odd number to test, without factors in {@link SmallPrimes#PRIMES}
+     * @param reduction reduction modulo n
+     * @return true if n is a probable prime, false if n is composite
+     */
+    private static boolean isProbablePrimeNoSmallFactor(final BigInteger n, final Barrett reduction) {
+        return strongProbablePrimeBase2(n) && !isPerfectSquare(n) && strongLucasProbablePrime(n, reduction);
+    }
+
+    /**
+     * Strong probable prime test to base 2.
+     * @param n odd number to test
+     * @return true if n is a strong probable prime to base 2
+     */
+    private static boolean strongProbablePrimeBase2(final BigInteger n) {
+        final BigInteger nMinusOne = n.subtract(BigInteger.ONE);
+        final int s = nMinusOne.getLowestSetBit();
+        BigInteger x = BigInteger.valueOf(2).modPow(nMinusOne.shiftRight(s), n);
+        if (x.equals(BigInteger.ONE) || x.equals(nMinusOne)) {
+            return true;
+        }
+        for (int r = 1; r < s; r++) {
+            x = x.multiply(x).mod(n);
+            if (x.equals(nMinusOne)) {
+                return true;
+            }
+            if (x.equals(BigInteger.ONE)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if a number is a perfect square.
+     * @param n number to check
+     * @return true if n is the square of an integer
+     */
+    private static boolean isPerfectSquare(final BigInteger n) {
+        // squares are 0, 1, 4 or 9 modulo 16
+        final int low = n.intValue() & 0xf;
+        if (low != 0 && low != 1 && low != 4 && low != 9) {
+            return false;
+        }
+        final BigInteger root = n.sqrt();
+        return root.multiply(root).equals(n);
+    }
+
+    /**
+     * Strong Lucas probable prime test with the parameters of Selfridge's method A.
+     * @param n odd number to test, without small factors and not a perfect square
+     * @param reduction reduction modulo n
+     * @return true if n is a strong Lucas probable prime
+     */
+    private static boolean strongLucasProbablePrime(final BigInteger n, final Barrett reduction) {
+        // n is not a square, so the search ends
+        long d = 5;
+        for (int j = jacobi(d, n); j != -1; j = jacobi(d, n)) {
+            if (j == 0) {
+                // |D| < n shares a factor with n
+                return false;
+            }
+            d = d > 0 ? -(d + 2) : -d + 2;
+        }
+        final BigInteger bigD = BigInteger.valueOf(d);
+        final BigInteger q    = BigInteger.valueOf((1 - d) / 4).mod(n);
+
+        // n + 1 = k 2^s with k odd, the binary expansion of k is scanned from its top bit
+        final BigInteger nPlusOne = n.add(BigInteger.ONE);
+        final int s = nPlusOne.getLowestSetBit();
+        final BigInteger k = nPlusOne.shiftRight(s);
+
+        // U_1 = 1, V_1 = P = 1
+        BigInteger u  = BigInteger.ONE;
+        BigInteger v  = BigInteger.ONE;
+        BigInteger qk = q;
+        for (int bit = k.bitLength() - 2; bit >= 0; bit--) {
+            // U_2m = U_m V_m, V_2m = V_m^2 - 2 Q^m
+            u  = reduction.multiply(u, v);
+            v  = reduction.subtract(reduction.multiply(v, v), qk.shiftLeft(1));
+            qk = reduction.multiply(qk, qk);
+            if (k.testBit(bit)) {
+                // U_m+1 = (P U_m + V_m) / 2, V_m+1 = (D U_m + P V_m) / 2
+                final BigInteger uNext = half(u.add(v).mod(n), n);
+                v  = half(bigD.multiply(u).add(v).mod(n), n);
+                u  = uNext;
+                qk = qk.multiply(q).mod(n);
+            }
+        }
+
+        if (u.signum() == 0 || v.signum() == 0) {
+            return true;
+        }
+        for (int r = 1; r < s; r++) {
+            v = reduction.subtract(reduction.multiply(v, v), qk.shiftLeft(1));
+            if (v.signum() == 0) {
+                return true;
+            }
+            qk = reduction.multiply(qk, qk);
+        }
+        return false;
+    }
+
+    /**
+     * Divide by 2 modulo an odd number.
+     * @param x number to divide, must be in [0, n)
+     * @param n odd modulus
+     * @return x / 2 mod n
+     */
+    private static BigInteger half(final BigInteger x, final BigInteger n) {
+        return (x.testBit(0) ? x.add(n) : x).shiftRight(1);
+    }
+
+    /**
+     * Compute the Jacobi symbol (a/n) for a small a.
+     * @param a numerator, must be odd
+     * @param n denominator, must be odd and &gt; |a|
+     * @return the Jacobi symbol (a/n)
+     */
+    private static int jacobi(long a, final BigInteger n) {
+        final int n8 = n.intValue() & 7;
+        int result = 1;
+        if (a < 0) {
+            // (-1/n) = -1 if n = 3 (mod 4)
+            a = -a;
+            if ((n8 & 3) == 3) {
+                result = -result;
+            }
+        }
+        // reciprocity, both a and n are odd
+        if ((a & 3) == 3 && (n8 & 3) == 3) {
+            result = -result;
+        }
+        return result * jacobi(n.mod(BigInteger.valueOf(a)).longValue(), a);
+    }
+
+    /**
+     * Compute the Jacobi symbol (a/n).
+     * @param a numerator, must be &ge; 0
+     * @param n denominator, must be odd and positive
+     * @return the Jacobi symbol (a/n)
+     */
+    private static int jacobi(long a, long n) {
+        int result = 1;
+        while (a != 0) {
+            final int twos = Long.numberOfTrailingZeros(a);
+            a >>= twos;
+            // (2/n) = -1 if n = 3 or 5 (mod 8)
+            final long n8 = n & 7;
+            if ((twos & 1) == 1 && (n8 == 3 || n8 == 5)) {
+                result = -result;
+            }
+            if ((a & 3) == 3 && (n & 3) == 3) {
+                result = -result;
+            }
+            final long t = a;
+            a = n % t;
+            n = t;
+        }
+        return n == 1 ? result : 0;
+    }
+
+    /** Primes grouped in products which fit in a <code>long</code>. */
+    private static class PrimeProducts {
+
+        /** Primes, in ascending order. */
+        private final int[] primes;
+
+        /** Products of consecutive primes, each &le; Long.MAX_VALUE. */
+        private final long[] products;
+
+        /** Index in {@link #primes} of the first prime of each product, with a final sentinel. */
+        private final int[] starts;
+
+        /**
+         * Group primes.
+         * @param primes primes to group, in ascending order
+         */
+        PrimeProducts(final int[] primes) {
+            final long[] allProducts = new long[primes.length];
+            final int[] allStarts = new int[primes.length + 1];
+            int count = 0;
+            long product = 1;
+            for (int i = 0; i < primes.length; i++) {
+                if (product > Long.MAX_VALUE / primes[i]) {
+                    allProducts[count] = product;
+                    allStarts[++count] = i;
+                    product = 1;
+                }
+                product *= primes[i];
+            }
+            allProducts[count] = product;
+            allStarts[++count] = primes.length;
+            this.primes   = primes;
+            this.products = Arrays.copyOf(allProducts, count);
+            this.starts   = Arrays.copyOf(allStarts, count + 1);
+        }
+
+    }
+
+    /**
+     * Barrett reduction modulo a fixed number.
+     * <p>
+     * {@link BigInteger#mod(BigInteger)} is a long division, several times slower than a
+     * multiplication at the sizes of interest; Barrett's method replaces it with two
+     * multiplications by a precomputed reciprocal.
+     */
+    private static class Barrett {
+
+        /** Modulus. */
+        private final BigInteger n;
+
+        /** Number of bits of the modulus. */
+        private final int k;
+
+        /** Reciprocal floor(4<sup>k</sup> / n). */
+        private final BigInteger mu;
+
+        /**
+         * Prepare the reduction.
+         * @param n modulus, must be positive
+         */
+        Barrett(final BigInteger n) {
+            this.n  = n;
+            this.k  = n.bitLength();
+            this.mu = BigInteger.ONE.shiftLeft(2 * k).divide(n);
+        }
+
+        /**
+         * Multiply modulo n.
+         * @param a first factor, must be in [0, n)
+         * @param b second factor, must be in [0, n)
+         * @return a b mod n
+         */
+        BigInteger multiply(final BigInteger a, final BigInteger b) {
+            final BigInteger x = a.multiply(b);
+            // the estimated quotient is at most 2 below the exact one
+            BigInteger r = x.subtract(x.shiftRight(k - 1).multiply(mu).shiftRight(k + 1).multiply(n));
+            while (r.compareTo(n) >= 0) {
+                r = r.subtract(n);
+            }
+            return r;
+        }
+
+        /**
+         * Subtract modulo n.
+         * @param a number to subtract from, must be in [0, n)
+         * @param b number to subtract, must be in [0, 2n)
+         * @return a - b mod n
+         */
+        BigInteger subtract(final BigInteger a, final BigInteger b) {
+            BigInteger r = a.subtract(b);
+            while (r.signum() < 0) {
+                r = r.add(n);
+            }
+            return r;
+        }
+
+    }
+
+}
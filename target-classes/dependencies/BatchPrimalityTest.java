@@ -0,0 +1,148 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Primality test of arrays of <code>int</code> numbers.
+ * <p>
+ * Numbers are processed in blocks of {@link #BLOCK} elements, in three passes:
+ * <ol>
+ * <li>trial division by the first {@link #PREFILTER} primes: the loop over the block runs once
+ * per prime without any data dependent branch, so it does not suffer from mispredictions and
+ * is a candidate for auto-vectorization,</li>
+ * <li>compaction of the survivors which are too large to be known primes,</li>
+ * <li>{@link SmallPrimes#millerRabinPrimeTest(int[], int, boolean[]) batched Miller-Rabin test}
+ * of the survivors.</li>
+ * </ol>
+ * The first pass leaves about 14% of uniformly distributed numbers for the last one.
+ * <p>
+ * An instance holds the block buffers and is not thread safe.
+ * @version $Id$
+ * @since 3.2
+ */
+class BatchPrimalityTest {
+
+    /** Number of numbers processed together, a multiple of 64. */
+    static final int BLOCK = 256;
+
+    /** Number of primes used for the branch free trial division: 2 to 53. */
+    private static final int PREFILTER = 16;
+
+    /** Square of the first prime not used by the trial division, smaller survivors are prime. */
+    private static final int PREFILTER_LIMIT = SmallPrimes.PRIMES[PREFILTER] * SmallPrimes.PRIMES[PREFILTER];
+
+    /** Numbers of the current block. */
+    private final int[] values = new int[BLOCK];
+
+    /** Result of the trial division, 1 for numbers known to be composite (or &lt; 2). */
+    private final int[] composite = new int[BLOCK];
+
+    /** Numbers left for the Miller-Rabin test. */
+    private final int[] survivors = new int[BLOCK];
+
+    /** Index in the block of the survivors. */
+    private final int[] positions = new int[BLOCK];
+
+    /** Result of the Miller-Rabin test of the survivors. */
+    private final boolean[] prime = new boolean[BLOCK];
+
+    /**
+     * Test the primality of numbers.
+     * @param in numbers to test
+     * @param out array where to store the results, out[i] is true if in[i] is prime,
+     * must be at least as long as in
+     */
+    void isPrime(final int[] in, final boolean[] out) {
+        for (int offset = 0; offset < in.length; offset += BLOCK) {
+            final int length = Math.min(BLOCK, in.length - offset);
+            classify(in, offset, length);
+            for (int j = 0; j < length; j++) {
+                out[offset + j] = composite[j] == 0;
+            }
+        }
+    }
+
+    /**
+     * Test the primality of numbers.
+     * @param in numbers to test
+     * @param bitmask array where to store the results, bit (i &amp; 63) of element i / 64 is set
+     * if in[i] is prime, bits after the last number are cleared,
+     * must have at least (in.length + 63) / 64 elements
+     */
+    void isPrime(final int[] in, final long[] bitmask) {
+        for (int offset = 0; offset < in.length; offset += BLOCK) {
+            final int length = Math.min(BLOCK, in.length - offset);
+            classify(in, offset, length);
+            for (int w = 0; w < (length + 63) >>> 6; w++) {
+                long word = 0;
+                for (int bit = 0; bit < 64 && (w << 6) + bit < length; bit++) {
+                    word |= (long) (composite[(w << 6) + bit] ^ 1) << bit;
+                }
+                bitmask[(offset >>> 6) + w] = word;
+            }
+        }
+    }
+
+    /**
+     * Classify one block.
+     * <p>
+     * On return, the first <code>length</code> elements of {@link #composite} are 0 for
+     * primes and 1 for other numbers.
+     * @param in numbers to test
+     * @param offset index of the first number of the block
+     * @param length number of numbers in the block, at most {@link #BLOCK}
+     */
+    private void classify(final int[] in, final int offset, final int length) {
+        System.arraycopy(in, offset, values, 0, length);
+        for (int j = 0; j < length; j++) {
+            composite[j] = values[j] < 2 ? 1 : 0;
+        }
+
+        // branch free trial division, one pass over the block per prime; the numbers < 2
+        // are already marked, so the others can be read as unsigned for the inverse check
+        for (int j = 0; j < length; j++) {
+            final int v = values[j];
+            composite[j] |= ~v & (v == 2 ? 0 : 1);
+        }
+        for (int i = 1; i < PREFILTER; i++) {
+            final int p       = SmallPrimes.PRIMES[i];
+            final int inverse = SmallPrimes.INVERSES_32[i];
+            // v * inverse <= limit (unsigned) if and only if p divides v, biased for a signed comparison
+            final int limit   = SmallPrimes.LIMITS_32[i] + Integer.MIN_VALUE;
+            for (int j = 0; j < length; j++) {
+                final int v = values[j];
+                composite[j] |= (v * inverse + Integer.MIN_VALUE <= limit) & (v != p) ? 1 : 0;
+            }
+        }
+
+        int count = 0;
+        for (int j = 0; j < length; j++) {
+            if (composite[j] == 0 && values[j] >= PREFILTER_LIMIT) {
+                survivors[count]   = values[j];
+                positions[count++] = j;
+            }
+        }
+
+        PrimesMetrics.recordSmallPrimes(length - count);
+        SmallPrimes.millerRabinPrimeTest(survivors, count, prime);
+        for (int k = 0; k < count; k++) {
+            composite[positions[k]] = prime[k] ? 0 : 1;
+        }
+    }
+
+}
@@ -0,0 +1,611 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+
+/**
+ * Bounded cache of prime factorizations.
+ * <p>
+ * The cache is meant for workloads factoring the same numbers again and again, see
+ * {@link Primes#setFactorizationCache(FactorizationCache)}. Numbers are primitive keys of an
+ * open addressing table, factorizations are stored as packed arrays (<code>int[]</code> for
+ * numbers in the <code>int</code> range, <code>long[]</code> above) which are never modified
+ * nor exposed, so nothing is boxed until a {@link List} is requested.
+ * <p>
+ * The cache is split into up to {@link #STRIPES} independently locked stripes, so concurrent
+ * threads rarely contend. Factorizations are computed outside the locks. When a stripe is full,
+ * the victim is chosen by the CLOCK algorithm: a hit marks an entry as referenced, and the clock
+ * hand skips (and unmarks) referenced entries. With {@link Eviction#TINY_LFU} (W-TinyLFU,
+ * Einziger, Friedman and Manes, 2017), new entries always enter a small admission window; the
+ * entries leaving the window are admitted into the main part of the stripe only if a frequency
+ * sketch of recent accesses rates them above the main victim. This protects the frequent numbers
+ * from a stream of one-time numbers, while numbers requested again shortly are still cached.
+ * <p>
+ * Hit, miss and eviction counts are available to tune the capacity.
+ * <p>
+ * Instances are thread safe.
+ * @version $Id$
+ * @since 3.2
+ */
+public final class FactorizationCache {
+
+    /** Eviction policies. */
+    public enum Eviction {
+
+        /** Evict the first entry not referenced since the clock hand last passed it. */
+        CLOCK,
+
+        /**
+         * New entries go through a CLOCK window of about 1% of the capacity, then are admitted
+         * into the main CLOCK part based on their access frequency.
+         */
+        TINY_LFU
+
+    }
+
+    /** Maximal number of stripes, a power of two. */
+    private static final int STRIPES = 16;
+
+    /** Multiplier spreading the keys over the stripes and the tables (golden ratio). */
+    private static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+    /** Eviction policy. */
+    private final Eviction eviction;
+
+    /** Independently locked parts of the cache. */
+    private final Stripe[] stripes;
+
+    /** Number of lookups which found their factorization. */
+    private final LongAdder hits;
+
+    /** Number of lookups which had to compute their factorization. */
+    private final LongAdder misses;
+
+    /** Number of entries evicted to make room for a new one. */
+    private final LongAdder evictions;
+
+    /**
+     * Build an empty cache.
+     * <p>
+     * The capacity is shared exactly between the stripes, small caches use fewer stripes.
+     * @param capacity maximum number of factorizations held, must be &ge; 1
+     * @param eviction eviction policy
+     * @throws MathIllegalArgumentException if capacity &lt; 1
+     */
+    public FactorizationCache(final int capacity, final Eviction eviction) {
+        if (capacity < 1) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, capacity, 1);
+        }
+        this.eviction  = eviction;
+        this.stripes   = new Stripe[Math.min(STRIPES, Integer.highestOneBit(capacity))];
+        this.hits      = new LongAdder();
+        this.misses    = new LongAdder();
+        this.evictions = new LongAdder();
+        for (int i = 0; i < stripes.length; i++) {
+            final int stripeCapacity = capacity / stripes.length + (i < capacity % stripes.length ? 1 : 0);
+            stripes[i] = new Stripe(stripeCapacity, eviction == Eviction.TINY_LFU);
+        }
+    }
+
+    /**
+     * Get the maximum number of factorizations held.
+     * @return maximum number of factorizations held, as given at construction
+     */
+    public int getCapacity() {
+        int capacity = 0;
+        for (final Stripe stripe : stripes) {
+            capacity += stripe.keys.length;
+        }
+        return capacity;
+    }
+
+    /**
+     * Get the eviction policy.
+     * @return eviction policy
+     */
+    public Eviction getEviction() {
+        return eviction;
+    }
+
+    /**
+     * Get the number of factorizations currently held.
+     * @return number of factorizations currently held
+     */
+    public int size() {
+        int size = 0;
+        for (final Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Get the number of lookups which found their factorization in the cache.
+     * @return number of hits since the cache was built
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of lookups which had to compute their factorization.
+     * @return number of misses since the cache was built
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of factorizations evicted to make room for new ones.
+     * @return number of evictions since the cache was built
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Remove all factorizations. The counters are not reset.
+     */
+    public void clear() {
+        for (final Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * Prime factors decomposition.
+     * @param n number to factorize, must be &ge; 2
+     * @return list of prime factors of n, in ascending order
+     */
+    public List<Integer> primeFactors(final int n) {
+        final int[] packed = lookup(n);
+        final List<Integer> factors = new ArrayList<Integer>(packed.length);
+        for (final int p : packed) {
+            factors.add(p);
+        }
+        return factors;
+    }
+
+    /**
+     * Prime factors decomposition.
+     * @param n number to factorize, must be &ge; 2
+     * @return list of prime factors of n, in ascending order
+     */
+    public List<Long> primeFactors(final long n) {
+        if (n <= Integer.MAX_VALUE) {
+            final int[] packed = lookup((int) n);
+            final List<Long> factors = new ArrayList<Long>(packed.length);
+            for (final int p : packed) {
+                factors.add((long) p);
+            }
+            return factors;
+        }
+        final long[] packed = lookup(n);
+        final List<Long> factors = new ArrayList<Long>(packed.length);
+        for (final long p : packed) {
+            factors.add(p);
+        }
+        return factors;
+    }
+
+    /**
+     * Prime factors decomposition, without allocation when the factorization is cached.
+     * @param n number to factorize, must be &ge; 2
+     * @param factors array where to store the prime factors of n in ascending order, an array
+     * of 32 elements is always large enough
+     * @return the number of prime factors stored in the array
+     */
+    public int primeFactors(final int n, final int[] factors) {
+        final int[] packed = lookup(n);
+        System.arraycopy(packed, 0, factors, 0, packed.length);
+        return packed.length;
+    }
+
+    /**
+     * Prime factors decomposition, without allocation when the factorization is cached.
+     * @param n number to factorize, must be &ge; 2
+     * @param factors array where to store the prime factors of n in ascending order, an array
+     * of 64 elements is always large enough
+     * @return the number of prime factors stored in the array
+     */
+    public int primeFactors(final long n, final long[] factors) {
+        if (n <= Integer.MAX_VALUE) {
+            final int[] packed = lookup((int) n);
+            for (int i = 0; i < packed.length; i++) {
+                factors[i] = packed[i];
+            }
+            return packed.length;
+        }
+        final long[] packed = lookup(n);
+        System.arraycopy(packed, 0, factors, 0, packed.length);
+        return packed.length;
+    }
+
+    /**
+     * Get the packed factorization of an <code>int</code>, computing it on a miss.
+     * @param n number to factorize, must be &ge; 2
+     * @return prime factors of n in ascending order, must not be modified
+     */
+    private int[] lookup(final int n) {
+        final long hash = spread(n);
+        final Stripe stripe = stripes[(int) (hash >>> 60) & (stripes.length - 1)];
+        final Object cached;
+        synchronized (stripe) {
+            cached = stripe.get(n, (int) hash);
+        }
+        if (cached != null) {
+            hits.increment();
+            return (int[]) cached;
+        }
+
+        misses.increment();
+        final int[] buffer = new int[32];
+        final int[] packed = Arrays.copyOf(buffer, PollardRho.primeFactors(n, buffer));
+        store(stripe, n, (int) hash, packed);
+        return packed;
+    }
+
+    /**
+     * Get the packed factorization of a <code>long</code>, computing it on a miss.
+     * @param n number to factorize, must be &gt; {@link Integer#MAX_VALUE}
+     * @return prime factors of n in ascending order, must not be modified
+     */
+    private long[] lookup(final long n) {
+        final long hash = spread(n);
+        final Stripe stripe = stripes[(int) (hash >>> 60) & (stripes.length - 1)];
+        final Object cached;
+        synchronized (stripe) {
+            cached = stripe.get(n, (int) hash);
+        }
+        if (cached != null) {
+            hits.increment();
+            return (long[]) cached;
+        }
+
+        misses.increment();
+        final long[] buffer = new long[64];
+        final long[] packed = Arrays.copyOf(buffer, PollardRho.primeFactors(n, buffer));
+        store(stripe, n, (int) hash, packed);
+        return packed;
+    }
+
+    /**
+     * Hash a key.
+     * @param key key to hash
+     * @return hash of the key, the highest bits select the stripe
+     */
+    private static long spread(final long key) {
+        final long h = key * SPREAD;
+        // fold the high bits in, as the low bits of the product only depend on the low bits of the key
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * Store a computed factorization.
+     * @param stripe stripe of the key
+     * @param key factorized number
+     * @param hash hash of the key
+     * @param packed packed factorization
+     */
+    private void store(final Stripe stripe, final long key, final int hash, final Object packed) {
+        final boolean evicted;
+        synchronized (stripe) {
+            evicted = stripe.put(key, hash, packed);
+        }
+        if (evicted) {
+            evictions.increment();
+        }
+    }
+
+    /** Part of the cache protected by its own lock. */
+    private static final class Stripe {
+
+        /** Mask of the 4 bits counters of a sketch word: clears the bit shifted in from the next counter. */
+        private static final long HALF_MASK = 0x7777777777777777L;
+
+        /** Keys of the entries. */
+        private final long[] keys;
+
+        /** Hashes of the keys of the entries. */
+        private final int[] hashes;
+
+        /** Packed factorizations of the entries, null for free entries. */
+        private final Object[] values;
+
+        /** Referenced bits of the entries, for the CLOCK algorithm. */
+        private final boolean[] referenced;
+
+        /** Open addressing table: entry index + 1 for each slot, 0 for empty slots. */
+        private final int[] slots;
+
+        /** Frequency sketch: four bits counters packed in words, null without admission. */
+        private final long[] sketch;
+
+        /** Number of sketch increments after which all counters are halved. */
+        private final int sampleSize;
+
+        /** Number of sketch increments since the last halving. */
+        private int additions;
+
+        /** Number of window entries, they come first; 0 without admission. */
+        private final int window;
+
+        /** Number of entries in use, entries are filled in order before the first eviction. */
+        private int size;
+
+        /** Position of the CLOCK hand of the window entries. */
+        private int windowHand;
+
+        /** Position of the CLOCK hand of the main entries. */
+        private int hand;
+
+        /**
+         * Build an empty stripe.
+         * @param capacity maximum number of entries
+         * @param admission if true, new entries are admitted according to their frequency
+         */
+        Stripe(final int capacity, final boolean admission) {
+            keys       = new long[capacity];
+            hashes     = new int[capacity];
+            values     = new Object[capacity];
+            referenced = new boolean[capacity];
+            slots      = new int[Integer.highestOneBit(capacity) << 2];
+            if (admission) {
+                // 16 counters per word, about 4 counters per entry
+                sketch     = new long[Math.max(1, Integer.highestOneBit(capacity) >>> 1)];
+                sampleSize = 10 * capacity;
+                window     = Math.max(1, capacity / 100);
+            } else {
+                sketch     = null;
+                sampleSize = 0;
+                window     = 0;
+            }
+            hand = window;
+        }
+
+        /**
+         * Look up an entry, marking it as referenced.
+         * @param key searched key
+         * @param hash hash of the key
+         * @return packed factorization, or null if the key is not in the stripe
+         */
+        Object get(final long key, final int hash) {
+            if (sketch != null) {
+                increment(hash);
+            }
+            final int mask = slots.length - 1;
+            for (int s = hash & mask; slots[s] != 0; s = (s + 1) & mask) {
+                final int e = slots[s] - 1;
+                if (keys[e] == key) {
+                    referenced[e] = true;
+                    return values[e];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Add an entry, evicting another one if the stripe is full.
+         * <p>
+         * Nothing is done if the key has been added meanwhile by another thread. With admission,
+         * the new entry replaces the window victim, which either moves to the main entries or is
+         * the evicted entry if the admission policy rejects it.
+         * @param key key to add
+         * @param hash hash of the key
+         * @param packed packed factorization
+         * @return true if an entry has been evicted
+         */
+        boolean put(final long key, final int hash, final Object packed) {
+            final int mask = slots.length - 1;
+            int s = hash & mask;
+            while (slots[s] != 0) {
+                if (keys[slots[s] - 1] == key) {
+                    return false;
+                }
+                s = (s + 1) & mask;
+            }
+
+            if (size < keys.length && (size < window || window == 0)) {
+                set(size++, s, key, hash, packed);
+                return false;
+            }
+
+            final int e;
+            boolean evicted = false;
+            if (window == 0) {
+                e = clock();
+                remove(e);
+                evicted = true;
+            } else {
+                // CLOCK on the window entries, its victim is the admission candidate
+                while (referenced[windowHand]) {
+                    referenced[windowHand] = false;
+                    windowHand = windowHand + 1 < window ? windowHand + 1 : 0;
+                }
+                e = windowHand;
+                windowHand = windowHand + 1 < window ? windowHand + 1 : 0;
+                if (size < keys.length) {
+                    move(e, size++);
+                } else if (keys.length > window) {
+                    final int victim = clock();
+                    if (frequency(hashes[e]) > frequency(hashes[victim])) {
+                        remove(victim);
+                        move(e, victim);
+                    } else {
+                        remove(e);
+                    }
+                    evicted = true;
+                } else {
+                    remove(e);
+                    evicted = true;
+                }
+            }
+
+            // the removals may have shifted the free slot found above
+            s = hash & mask;
+            while (slots[s] != 0) {
+                s = (s + 1) & mask;
+            }
+            set(e, s, key, hash, packed);
+            return evicted;
+        }
+
+        /** Remove all entries. */
+        void clear() {
+            Arrays.fill(values, null);
+            Arrays.fill(referenced, false);
+            Arrays.fill(slots, 0);
+            size       = 0;
+            windowHand = 0;
+            hand       = window;
+        }
+
+        /**
+         * Select the victim among the main entries, which must all be in use.
+         * @return index of the victim entry
+         */
+        private int clock() {
+            // CLOCK: give a second chance to the entries referenced since the last pass
+            while (referenced[hand]) {
+                referenced[hand] = false;
+                hand = hand + 1 < keys.length ? hand + 1 : window;
+            }
+            final int victim = hand;
+            hand = hand + 1 < keys.length ? hand + 1 : window;
+            return victim;
+        }
+
+        /**
+         * Move an entry to a free entry index, keeping its slot.
+         * @param from index of the entry to move
+         * @param to free entry index
+         */
+        private void move(final int from, final int to) {
+            final int mask = slots.length - 1;
+            int s = hashes[from] & mask;
+            while (slots[s] != from + 1) {
+                s = (s + 1) & mask;
+            }
+            keys[to]       = keys[from];
+            hashes[to]     = hashes[from];
+            values[to]     = values[from];
+            referenced[to] = false;
+            slots[s]       = to + 1;
+            values[from]   = null;
+        }
+
+        /**
+         * Fill an entry.
+         * @param e entry index
+         * @param s free slot for the entry
+         * @param key key of the entry
+         * @param hash hash of the key
+         * @param packed packed factorization
+         */
+        private void set(final int e, final int s, final long key, final int hash, final Object packed) {
+            keys[e]       = key;
+            hashes[e]     = hash;
+            values[e]     = packed;
+            referenced[e] = false;
+            slots[s]      = e + 1;
+        }
+
+        /**
+         * Remove an entry from the open addressing table.
+         * <p>
+         * The following entries of the probe sequence are shifted back, so that
+         * no tombstone is needed.
+         * @param e entry index
+         */
+        private void remove(final int e) {
+            final int mask = slots.length - 1;
+            int s = hashes[e] & mask;
+            while (slots[s] != e + 1) {
+                s = (s + 1) & mask;
+            }
+            for (int next = (s + 1) & mask; slots[next] != 0; next = (next + 1) & mask) {
+                // an entry can move back to s only if its home slot is not between s and next
+                final int home = hashes[slots[next] - 1] & mask;
+                if (((next - home) & mask) >= ((next - s) & mask)) {
+                    slots[s] = slots[next];
+                    s = next;
+                }
+            }
+            slots[s] = 0;
+            values[e] = null;
+        }
+
+        /**
+         * Record an access in the frequency sketch.
+         * @param hash hash of the accessed key
+         */
+        private void increment(final int hash) {
+            for (int i = 0; i < 4; i++) {
+                final int counter = index(hash, i);
+                final int shift = (counter & 15) << 2;
+                if (((sketch[counter >>> 4] >>> shift) & 0xF) < 0xF) {
+                    sketch[counter >>> 4] += 1L << shift;
+                }
+            }
+            if (++additions >= sampleSize) {
+                // aging: halve all counters so that the sketch follows changes of the distribution
+                for (int w = 0; w < sketch.length; w++) {
+                    sketch[w] = (sketch[w] >>> 1) & HALF_MASK;
+                }
+                additions >>>= 1;
+            }
+        }
+
+        /**
+         * Estimate the access frequency of a key.
+         * @param hash hash of the key
+         * @return the smallest of the counters of the key
+         */
+        private int frequency(final int hash) {
+            int frequency = 0xF;
+            for (int i = 0; i < 4; i++) {
+                final int counter = index(hash, i);
+                frequency = Math.min(frequency, (int) (sketch[counter >>> 4] >>> ((counter & 15) << 2)) & 0xF);
+            }
+            return frequency;
+        }
+
+        /**
+         * Compute the index of one of the four counters of a key.
+         * @param hash hash of the key
+         * @param i counter number, between 0 and 3
+         * @return index of the counter
+         */
+        private int index(final int hash, final int i) {
+            final long h = (hash + (long) i * SPREAD) * SPREAD;
+            return (int) (h >>> 32) & ((sketch.length << 4) - 1);
+        }
+    }
+
+}
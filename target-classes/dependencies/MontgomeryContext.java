@@ -0,0 +1,276 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+
+/**
+ * Modular arithmetic with a fixed odd modulus, in Montgomery form.
+ * <p>
+ * A number a is represented by a&middot;2<sup>64</sup> mod n, its Montgomery form. The product
+ * of two numbers in this form is reduced with two multiplications and no division, and all the
+ * computations use primitive <code>long</code> arithmetic, so no object is allocated. The
+ * constants which depend on the modulus are computed once, in the constructor, so an instance
+ * should be reused for all the operations with the same modulus. Within the package, hot loops which would create
+ * a context per number use the static methods instead, with the constants held in locals.
+ * <p>
+ * The {@link #mulMod(long, long)} and {@link #powMod(long, long)} methods take and return plain
+ * numbers. Chains of operations are cheaper in Montgomery form: convert the operands with
+ * {@link #toMontgomery(long)}, combine them with {@link #multiply(long, long)} and
+ * {@link #pow(long, long)}, and convert the result back with {@link #fromMontgomery(long)}.
+ * <p>
+ * Instances are immutable and thread safe.
+ * @version $Id$
+ * @since 3.2
+ */
+public final class MontgomeryContext {
+
+    /** Modulus. */
+    private final long n;
+
+    /** n<sup>-1</sup> mod 2<sup>64</sup>. */
+    private final long nInv;
+
+    /** Montgomery form of 1, i.e. 2<sup>64</sup> mod n. */
+    private final long one;
+
+    /** 2<sup>128</sup> mod n, which converts numbers into Montgomery form. */
+    private final long r2;
+
+    /**
+     * Create a context for a modulus.
+     * @param modulus the modulus, must be odd and &gt; 1
+     * @throws MathIllegalArgumentException if the modulus is even or &lt; 3
+     */
+    public MontgomeryContext(final long modulus) {
+        if (modulus < 3) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, modulus, 3);
+        }
+        if ((modulus & 1) == 0) {
+            throw new MathIllegalArgumentException(LocalizedFormats.SIMPLE_MESSAGE, "the modulus must be odd");
+        }
+        this.n    = modulus;
+        this.nInv = inverse(modulus);
+        this.one  = one(modulus);
+        this.r2   = r2(modulus, one);
+    }
+
+    /**
+     * Compute the Montgomery form of 1.
+     * @param n an odd modulus &gt; 1
+     * @return 2<sup>64</sup> mod n
+     */
+    static long one(final long n) {
+        // (2^64 - 1) mod n, plus one: cannot reach n since n is odd
+        return Long.remainderUnsigned(-1L, n) + 1;
+    }
+
+    /**
+     * Compute the constant which converts numbers into Montgomery form.
+     * @param n an odd modulus &gt; 1
+     * @param one the Montgomery form of 1, as computed by {@link #one(long)}
+     * @return 2<sup>128</sup> mod n
+     */
+    static long r2(final long n, final long one) {
+        long x = one;
+        for (int i = 0; i < 64; i++) {
+            // x < n < 2^63 so the shift does not lose any bit when read as unsigned
+            x <<= 1;
+            if (x < 0 || x >= n) {
+                x -= n;
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Compute the inverse of an odd number modulo 2<sup>64</sup>.
+     * <p>
+     * This uses Newton iteration: each step doubles the number of correct low bits,
+     * starting from the 3 bits given by n itself. The low 32 bits of the result are the
+     * inverse modulo 2<sup>32</sup>.
+     * @param n an odd number
+     * @return n<sup>-1</sup> mod 2<sup>64</sup>
+     */
+    static long inverse(final long n) {
+        long inv = n;
+        for (int i = 0; i < 5; i++) {
+            inv *= 2 - n * inv;
+        }
+        return inv;
+    }
+
+    /**
+     * Get the modulus.
+     * @return the modulus
+     */
+    public long getModulus() {
+        return n;
+    }
+
+    /**
+     * Get the Montgomery form of 1.
+     * @return 2<sup>64</sup> mod n
+     */
+    public long getOne() {
+        return one;
+    }
+
+    /**
+     * Convert a number into Montgomery form.
+     * @param a number to convert, must be &ge; 0
+     * @return a&middot;2<sup>64</sup> mod n
+     */
+    public long toMontgomery(final long a) {
+        return multiply(a < n ? a : a % n, r2);
+    }
+
+    /**
+     * Convert a number back from Montgomery form.
+     * @param a number in Montgomery form, must be in [0, n)
+     * @return a&middot;2<sup>-64</sup> mod n
+     */
+    public long fromMontgomery(final long a) {
+        return multiply(a, 1);
+    }
+
+    /**
+     * Montgomery multiplication: compute a &middot; b &middot; 2<sup>-64</sup> mod n.
+     * <p>
+     * This is the product of two numbers in Montgomery form, in Montgomery form.
+     * @param a first factor, must be in [0, n)
+     * @param b second factor, must be in [0, n)
+     * @return a &middot; b &middot; 2<sup>-64</sup> mod n
+     */
+    public long multiply(final long a, final long b) {
+        return multiply(a, b, n, nInv);
+    }
+
+    /**
+     * Montgomery multiplication with explicit constants.
+     * @param a first factor, must be in [0, n)
+     * @param b second factor, must be in [0, n)
+     * @param n the odd modulus
+     * @param nInv n<sup>-1</sup> mod 2<sup>64</sup>, as computed by {@link #inverse(long)}
+     * @return a &middot; b &middot; 2<sup>-64</sup> mod n
+     */
+    static long multiply(final long a, final long b, final long n, final long nInv) {
+        final long hi = Math.multiplyHigh(a, b);
+        final long m = (a * b) * nInv;
+        // unsigned high part of m * n, n being positive
+        final long mnHi = Math.multiplyHigh(m, n) + ((m >> 63) & n);
+        // the low parts of a * b and m * n are equal, so the difference is exact
+        final long x = hi - mnHi;
+        return x < 0 ? x + n : x;
+    }
+
+    /**
+     * Modular exponentiation in Montgomery form.
+     * @param a the base, in Montgomery form
+     * @param e the exponent, must be &ge; 0
+     * @return a<sup>e</sup>, in Montgomery form
+     */
+    public long pow(final long a, final long e) {
+        return pow(a, e, one, n, nInv);
+    }
+
+    /**
+     * Modular exponentiation in Montgomery form with explicit constants.
+     * @param a the base, in Montgomery form
+     * @param e the exponent, must be &ge; 0
+     * @param one the Montgomery form of 1, as computed by {@link #one(long)}
+     * @param n the odd modulus
+     * @param nInv n<sup>-1</sup> mod 2<sup>64</sup>, as computed by {@link #inverse(long)}
+     * @return a<sup>e</sup>, in Montgomery form
+     */
+    static long pow(long a, long e, final long one, final long n, final long nInv) {
+        long result = one;
+        while (e != 0) {
+            if ((e & 1) != 0) {
+                result = multiply(result, a, n, nInv);
+            }
+            a = multiply(a, a, n, nInv);
+            e >>>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Modular multiplication.
+     * @param a first factor, must be &ge; 0
+     * @param b second factor, must be &ge; 0
+     * @return a &middot; b mod n
+     */
+    public long mulMod(final long a, final long b) {
+        // the 2^-64 factor of the Montgomery product cancels the 2^64 factor of the conversion
+        return multiply(toMontgomery(a), b < n ? b : b % n);
+    }
+
+    /**
+     * Modular exponentiation.
+     * @param a the base, must be &ge; 0
+     * @param e the exponent, must be &ge; 0
+     * @return a<sup>e</sup> mod n
+     */
+    public long powMod(final long a, final long e) {
+        return fromMontgomery(pow(toMontgomery(a), e));
+    }
+
+    /**
+     * Modular exponentiation of several bases to the same exponent.
+     * <p>
+     * The exponentiations are done in lockstep, one bit of the exponent for all the bases
+     * at a time. The products of the different bases are independent, so the processor can
+     * overlap them instead of waiting for each multiplication to complete. The successive
+     * squares of the bases are kept in a caller-supplied array, so nothing is allocated.
+     * @param bases the bases, must be &ge; 0
+     * @param e the exponent, must be &ge; 0
+     * @param results array where to store the results, results[i] is bases[i]<sup>e</sup> mod n,
+     * may be the bases array itself
+     * @param squares scratch array, at least as long as bases, distinct from results; its content
+     * is overwritten
+     * @throws DimensionMismatchException if results or squares is shorter than bases
+     */
+    public void powMod(final long[] bases, final long e, final long[] results, final long[] squares) {
+        if (results.length < bases.length) {
+            throw new DimensionMismatchException(results.length, bases.length);
+        }
+        if (squares.length < bases.length) {
+            throw new DimensionMismatchException(squares.length, bases.length);
+        }
+        for (int k = 0; k < bases.length; k++) {
+            squares[k] = toMontgomery(bases[k]);
+            results[k] = one;
+        }
+        for (long bits = e; bits != 0; bits >>>= 1) {
+            final boolean odd = (bits & 1) != 0;
+            for (int k = 0; k < bases.length; k++) {
+                if (odd) {
+                    results[k] = multiply(results[k], squares[k]);
+                }
+                squares[k] = multiply(squares[k], squares[k]);
+            }
+        }
+        for (int k = 0; k < bases.length; k++) {
+            results[k] = fromMontgomery(results[k]);
+        }
+    }
+
+}
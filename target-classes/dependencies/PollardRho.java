@@ -0,0 +1,448 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Implementation of the Pollard's rho factorization algorithm, with the cycle detection of Brent.
+ * <p>
+ * The gcd with the modulus is not computed at each step: differences are multiplied together and the
+ * gcd is taken once per batch of {@link #BATCH} steps, going back step by step only when a batch
+ * collapses to the modulus itself.
+ * @version $Id$
+ * @since 3.2
+ */
+class PollardRho {
+
+    /** Number of steps between two gcd computations. */
+    private static final int BATCH = 64;
+
+    /**
+     * Hide utility class.
+     */
+    private PollardRho() {
+    }
+
+    /**
+     * Factorization using Pollard's rho algorithm.
+     * @param n number to factors, must be &gt; 0
+     * @return the list of prime factors of n, in ascending order.
+     */
+    public static List<Integer> primeFactors(int n) {
+        final int[] buffer = new int[32];
+        final int count = primeFactors(n, buffer);
+        final List<Integer> factors = new ArrayList<Integer>(count);
+        for (int i = 0; i < count; i++) {
+            factors.add(buffer[i]);
+        }
+        return factors;
+    }
+
+    /**
+     * Factorization using Pollard's rho algorithm.
+     * @param n number to factors, must be &gt; 0
+     * @return the list of prime factors of n, in ascending order.
+     */
+    public static List<Long> primeFactors(long n) {
+        final long[] buffer = new long[64];
+        final int count = primeFactors(n, buffer);
+        final List<Long> factors = new ArrayList<Long>(count);
+        for (int i = 0; i < count; i++) {
+            factors.add(buffer[i]);
+        }
+        return factors;
+    }
+
+    /**
+     * Factorization using Pollard's rho algorithm, without allocation.
+     * @param n number to factors, must be &gt; 0
+     * @param factors the array where to store the prime factors of n, 32 elements are always enough
+     * @return the number of prime factors stored in the array, in ascending order.
+     */
+    static int primeFactors(int n, final int[] factors) {
+        int count = SmallPrimes.smallTrialDivision(n, factors);
+        n = factors[count];
+        if (1 == n) {
+            return count;
+        }
+
+        if (SmallPrimes.millerRabinPrimeTest(n)) {
+            return count + 1;
+        }
+
+        // here n is a semi prime, both factors being larger than PRIMES_LAST
+        final int divisor = rhoBrent(n);
+        final int other = n / divisor;
+        factors[count++] = Math.min(divisor, other);
+        factors[count++] = Math.max(divisor, other);
+        return count;
+    }
+
+    /**
+     * Factorization using Pollard's rho algorithm, without allocation.
+     * @param n number to factors, must be &gt; 0
+     * @param factors the array where to store the prime factors of n, 64 elements are always enough
+     * @return the number of prime factors stored in the array, in ascending order.
+     */
+    static int primeFactors(long n, final long[] factors) {
+        final int count = SmallPrimes.smallTrialDivision(n, factors);
+        n = factors[count];
+        if (1 == n) {
+            return count;
+        }
+
+        // unlike the int case, n may still hold up to five factors
+        final int end = rhoFactors(n, factors, count);
+        Arrays.sort(factors, count, end);
+        return end;
+    }
+
+    /**
+     * Decomposition into prime powers, without allocation.
+     * @param n number to factors, must be &gt; 0
+     * @param powers the array where to store the distinct primes of n, each one followed by its
+     * exponent, in ascending order; 18 elements are always enough
+     * @return the number of distinct primes stored in the array
+     */
+    static int primePowers(int n, final int[] powers) {
+        int k = 0;
+        final int twos = Integer.numberOfTrailingZeros(n);
+        if (twos > 0) {
+            n >>>= twos;
+            powers[k++] = 2;
+            powers[k++] = twos;
+        }
+        // divisibility by the odd primes is checked with their inverses, see SmallPrimes.INVERSES_32
+        for (int i = 1; i < SmallPrimes.PRIMES.length; i++) {
+            final int inverse = SmallPrimes.INVERSES_32[i];
+            final int limit   = SmallPrimes.LIMITS_32[i];
+            int quotient = n * inverse;
+            if (Integer.compareUnsigned(quotient, limit) <= 0) {
+                int e = 0;
+                do {
+                    n = quotient;
+                    ++e;
+                    quotient = n * inverse;
+                } while (Integer.compareUnsigned(quotient, limit) <= 0);
+                powers[k++] = SmallPrimes.PRIMES[i];
+                powers[k++] = e;
+            }
+        }
+        if (1 == n) {
+            return k >> 1;
+        }
+
+        if (SmallPrimes.millerRabinPrimeTest(n)) {
+            powers[k++] = n;
+            powers[k++] = 1;
+            return k >> 1;
+        }
+
+        // here n is a semi prime, both factors being larger than PRIMES_LAST
+        final int divisor = rhoBrent(n);
+        final int other = n / divisor;
+        if (divisor == other) {
+            powers[k++] = divisor;
+            powers[k++] = 2;
+        } else {
+            powers[k++] = Math.min(divisor, other);
+            powers[k++] = 1;
+            powers[k++] = Math.max(divisor, other);
+            powers[k++] = 1;
+        }
+        return k >> 1;
+    }
+
+    /**
+     * Decomposition into prime powers, without allocation.
+     * @param n number to factors, must be &gt; 0
+     * @param powers the array where to store the distinct primes of n, each one followed by its
+     * exponent, in ascending order; 30 elements are always enough
+     * @return the number of distinct primes stored in the array
+     */
+    static int primePowers(long n, final long[] powers) {
+        int k = 0;
+        final int twos = Long.numberOfTrailingZeros(n);
+        if (twos > 0) {
+            n >>>= twos;
+            powers[k++] = 2;
+            powers[k++] = twos;
+        }
+        // divisibility by the odd primes is checked with their inverses, see SmallPrimes.INVERSES_64
+        for (int i = 1; i < SmallPrimes.PRIMES.length; i++) {
+            final long inverse = SmallPrimes.INVERSES_64[i];
+            final long limit   = SmallPrimes.LIMITS_64[i];
+            long quotient = n * inverse;
+            if (Long.compareUnsigned(quotient, limit) <= 0) {
+                int e = 0;
+                do {
+                    n = quotient;
+                    ++e;
+                    quotient = n * inverse;
+                } while (Long.compareUnsigned(quotient, limit) <= 0);
+                powers[k++] = SmallPrimes.PRIMES[i];
+                powers[k++] = e;
+            }
+        }
+        if (1 == n) {
+            return k >> 1;
+        }
+
+        // the remaining factors (at most five) are first stored flat, then
+        // moved past themselves so that the packed pairs never overwrite unread ones
+        final int end = rhoFactors(n, powers, k);
+        final int m = end - k;
+        Arrays.sort(powers, k, end);
+        System.arraycopy(powers, k, powers, end, m);
+        int read = end;
+        while (read < end + m) {
+            final long p = powers[read];
+            int e = 0;
+            while (read < end + m && powers[read] == p) {
+                ++read;
+                ++e;
+            }
+            powers[k++] = p;
+            powers[k++] = e;
+        }
+        return k >> 1;
+    }
+
+    /**
+     * Recursively split a number without small factors.
+     * @param n the number to factor, must be &gt; 1 and have no factor below <code>PRIMES_LAST+2</code>
+     * @param factors the array where to store the factors.
+     * @param count the number of factors already stored in the array.
+     * @return the number of factors stored in the array.
+     */
+    private static int rhoFactors(final long n, final long[] factors, final int count) {
+        if (SmallPrimes.millerRabinPrimeTest(n)) {
+            factors[count] = n;
+            return count + 1;
+        }
+        final long divisor = rhoBrent(n);
+        return rhoFactors(n / divisor, factors, rhoFactors(divisor, factors, count));
+    }
+
+    /**
+     * Implementation of the Pollard's rho factorization algorithm, with Brent cycle detection.
+     * <p>
+     * The iterated function is x &rarr; x<sup>2</sup> + c mod n; c is changed and the search restarted
+     * in the unlikely case where a cycle is found without revealing a factor.
+     *
+     * @param n number to factor, must be an odd composite number
+     * @return a non trivial divisor of n
+     */
+    static int rhoBrent(final int n) {
+        int cst = 1;
+        while (true) {
+            final int x0 = 2;
+            int y = x0;
+            int x = x0;
+            int ys = x0;
+            int q = 1;
+            int g = 1;
+            int r = 1;
+            do {
+                x = y;
+                for (int i = 0; i < r; i++) {
+                    y = (int) ((((long) y) * y + cst) % n);
+                }
+                int k = 0;
+                do {
+                    ys = y;
+                    final int bound = Math.min(BATCH, r - k);
+                    for (int i = 0; i < bound; i++) {
+                        y = (int) ((((long) y) * y + cst) % n);
+                        q = (int) ((((long) q) * Math.abs(x - y)) % n);
+                    }
+                    g = gcdPositive(q, n);
+                    k += BATCH;
+                } while (k < r && 1 == g);
+                r <<= 1;
+            } while (1 == g);
+
+            if (g == n) {
+                // the batch went too far: replay it one step at a time
+                do {
+                    ys = (int) ((((long) ys) * ys + cst) % n);
+                    g = gcdPositive(Math.abs(x - ys), n);
+                } while (1 == g);
+            }
+
+            if (g != n) {
+                return g;
+            }
+            cst++;
+        }
+    }
+
+    /**
+     * Implementation of the Pollard's rho factorization algorithm, with Brent cycle detection.
+     * <p>
+     * The iteration is done in Montgomery form, the iterated function is therefore
+     * x &rarr; x<sup>2</sup>&middot;2<sup>-64</sup> + c mod n. This does not change the gcd computations as
+     * 2<sup>64</sup> is coprime with n.
+     *
+     * @param n number to factor, must be an odd composite number
+     * @return a non trivial divisor of n
+     */
+    static long rhoBrent(final long n) {
+        if (n <= Integer.MAX_VALUE) {
+            return rhoBrent((int) n);
+        }
+        final long nInv = MontgomeryContext.inverse(n);
+        long cst = 1;
+        while (true) {
+            final long x0 = 2;
+            long y = x0;
+            long x = x0;
+            long ys = x0;
+            long q = MontgomeryContext.one(n);
+            long g = 1;
+            int r = 1;
+            do {
+                x = y;
+                for (int i = 0; i < r; i++) {
+                    y = step(y, cst, n, nInv);
+                }
+                int k = 0;
+                do {
+                    ys = y;
+                    final int bound = Math.min(BATCH, r - k);
+                    for (int i = 0; i < bound; i++) {
+                        y = step(y, cst, n, nInv);
+                        q = MontgomeryContext.multiply(q, Math.abs(x - y), n, nInv);
+                    }
+                    g = gcdPositive(q, n);
+                    k += BATCH;
+                } while (k < r && 1 == g);
+                r <<= 1;
+            } while (1 == g);
+
+            if (g == n) {
+                // the batch went too far: replay it one step at a time
+                do {
+                    ys = step(ys, cst, n, nInv);
+                    g = gcdPositive(Math.abs(x - ys), n);
+                } while (1 == g);
+            }
+
+            if (g != n) {
+                return g;
+            }
+            cst++;
+        }
+    }
+
+    /**
+     * One step of the iterated function, in Montgomery form.
+     * @param y current value, in [0, n)
+     * @param cst the additive constant, in [0, n)
+     * @param n the modulus
+     * @param nInv n<sup>-1</sup> mod 2<sup>64</sup>
+     * @return y<sup>2</sup>&middot;2<sup>-64</sup> + cst mod n
+     */
+    private static long step(final long y, final long cst, final long n, final long nInv) {
+        // the sum may overflow, but the final result lies in (-n, n) so it is exact
+        final long z = MontgomeryContext.multiply(y, y, n, nInv) + cst - n;
+        return z < 0 ? z + n : z;
+    }
+
+    /**
+     * Gcd between two positive numbers.
+     * <p>
+     * Gets the greatest common divisor of two numbers, using the "binary gcd" method,
+     * which avoids division and modulo operations. See Knuth 4.5.2 algorithm B.
+     * This algorithm is due to Josef Stein (1961).
+     * </p>
+     * Special cases:
+     * <ul>
+     * <li>The result of {@code gcd(x, x)}, {@code gcd(0, x)} and {@code gcd(x, 0)} is the value of {@code x}.</li>
+     * <li>The invocation {@code gcd(0, 0)} is the only one which returns {@code 0}.</li>
+     * </ul>
+     *
+     * @param a first number, must be &ge; 0
+     * @param b second number, must be &ge; 0
+     * @return gcd(a,b)
+     */
+    static int gcdPositive(int a, int b) {
+        // both a and b must be positive, it is not checked here
+        // gdc(a,0) = a
+        if (a == 0) {
+            return b;
+        } else if (b == 0) {
+            return a;
+        }
+
+        // make a and b odd, keep in mind the common power of twos
+        final int aTwos = Integer.numberOfTrailingZeros(a);
+        a >>= aTwos;
+        final int bTwos = Integer.numberOfTrailingZeros(b);
+        b >>= bTwos;
+        final int shift = Math.min(aTwos, bTwos);
+
+        // a and b >0
+        // if a > b then gdc(a,b) = gcd(a-b,b)
+        // if a < b then gcd(a,b) = gcd(b-a,a)
+        // so next a is the absolute difference and next b is the minimum of current values
+        while (a != b) {
+            final int delta = a - b;
+            b = Math.min(a, b);
+            a = Math.abs(delta);
+            // for the positive values of delta, remove the powers of two
+            a >>= Integer.numberOfTrailingZeros(a);
+        }
+
+        // gcd(a,a) = a, just "add" the common power of twos
+        return a << shift;
+    }
+
+    /**
+     * Gcd between two positive numbers, see {@link #gcdPositive(int, int)}.
+     *
+     * @param a first number, must be &ge; 0
+     * @param b second number, must be &ge; 0
+     * @return gcd(a,b)
+     */
+    static long gcdPositive(long a, long b) {
+        if (a == 0) {
+            return b;
+        } else if (b == 0) {
+            return a;
+        }
+
+        final int aTwos = Long.numberOfTrailingZeros(a);
+        a >>= aTwos;
+        final int bTwos = Long.numberOfTrailingZeros(b);
+        b >>= bTwos;
+        final int shift = Math.min(aTwos, bTwos);
+
+        while (a != b) {
+            final long delta = a - b;
+            b = Math.min(a, b);
+            a = Math.abs(delta);
+            a >>= Long.numberOfTrailingZeros(a);
+        }
+
+        return a << shift;
+    }
+}
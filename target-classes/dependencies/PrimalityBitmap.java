@@ -0,0 +1,178 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+
+/**
+ * Precomputed primality of all numbers below a bound, stored in a memory mapped file.
+ * <p>
+ * Odd numbers only are stored, one bit each, so the whole unsigned 32 bits range takes 256 MB.
+ * The file is generated once with a {@link SegmentedSieve}, then mapped read-only: later loads
+ * (in the same or in other JVMs of the host) do not pay the generation cost and share the
+ * operating system page cache. See {@link Primes#setPrimalityBitmap(PrimalityBitmap)}.
+ * <p>
+ * The file starts with a 16 bytes header holding a magic number and the bound, a file with a
+ * different header or size is regenerated. Generation writes to a temporary file which is then
+ * renamed, so concurrent loaders never see a partial file.
+ * <p>
+ * Instances are immutable and thread safe.
+ * @version $Id$
+ * @since 3.2
+ */
+public final class PrimalityBitmap {
+
+    /** Largest supported bound: the whole unsigned 32 bits range. */
+    public static final long MAX_BOUND = 1L << 32;
+
+    /** Magic number at the start of the file. */
+    private static final long MAGIC = 0x5052494d45424954L;
+
+    /** Offset of the bits in the file. */
+    private static final int DATA_OFFSET = 16;
+
+    /** Exclusive bound of the numbers covered. */
+    private final long bound;
+
+    /** Mapped file, a set bit i marks 2i+1 as a prime. */
+    private final ByteBuffer bits;
+
+    /**
+     * Simple constructor.
+     * @param bound exclusive bound of the numbers covered
+     * @param bits mapped file
+     */
+    private PrimalityBitmap(final long bound, final ByteBuffer bits) {
+        this.bound = bound;
+        this.bits  = bits;
+    }
+
+    /**
+     * Load a bitmap, generating its file first if it does not exist or does not match the bound.
+     * @param file file holding the bitmap
+     * @param bound exclusive bound of the numbers covered, must be between 3 and {@link #MAX_BOUND}
+     * @return the loaded bitmap
+     * @throws IOException if the file cannot be read or generated
+     * @throws MathIllegalArgumentException if the bound is out of range
+     */
+    public static PrimalityBitmap load(final Path file, final long bound) throws IOException {
+        if (bound < 3) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, bound, 3);
+        }
+        if (bound > MAX_BOUND) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_LARGE, bound, MAX_BOUND);
+        }
+        final long size = DATA_OFFSET + (((bound >>> 1) + 7) >>> 3);
+        if (!matches(file, bound, size)) {
+            generate(file, bound, size);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new PrimalityBitmap(bound, map);
+        }
+    }
+
+    /**
+     * Get the exclusive bound of the numbers covered.
+     * @return exclusive bound of the numbers covered
+     */
+    public long getBound() {
+        return bound;
+    }
+
+    /**
+     * Primality test by lookup.
+     * @param n number to test, must be less than {@link #getBound()}
+     * @return true if n is prime. (All numbers &lt; 2 return false).
+     */
+    public boolean isPrime(final long n) {
+        if ((n & 1) == 0) {
+            return n == 2;
+        }
+        if (n < 2) {
+            return false;
+        }
+        final long i = n >>> 1;
+        return (bits.get(DATA_OFFSET + (int) (i >>> 3)) & (1 << (i & 7))) != 0;
+    }
+
+    /**
+     * Check if a file holds a bitmap for a bound.
+     * @param file file to check
+     * @param bound expected bound
+     * @param size expected size
+     * @return true if the file exists and matches the bound
+     * @throws IOException if the file exists but cannot be read
+     */
+    private static boolean matches(final Path file, final long bound, final long size) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != size) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(DATA_OFFSET);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete
+            }
+            return header.getLong(0) == MAGIC && header.getLong(8) == bound;
+        }
+    }
+
+    /**
+     * Generate a bitmap file.
+     * @param file file to generate
+     * @param bound exclusive bound of the numbers covered
+     * @param size size of the file
+     * @throws IOException if the file cannot be written
+     */
+    private static void generate(final Path file, final long bound, final long size) throws IOException {
+        final Path target = file.toAbsolutePath();
+        final Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                final MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                SegmentedSieve.forRange(3, bound).sieve(3, bound, p -> {
+                    final long i = p >>> 1;
+                    final int index = DATA_OFFSET + (int) (i >>> 3);
+                    map.put(index, (byte) (map.get(index) | (1 << (i & 7))));
+                });
+                // header last, a file without it is never considered valid
+                map.putLong(8, bound);
+                map.putLong(0, MAGIC);
+                map.force();
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+
+/**
+ * Prime counting function &pi;(x) and n<sup>th</sup> prime.
+ * <p>
+ * &pi;(x) is computed with Meissel's formula, the first step of the Meissel-Lehmer method:
+ * with y &ge; x<sup>1/3</sup> and a = &pi;(y),
+ * <pre>
+ *   &pi;(x) = &phi;(x, a) + a - 1 - P<sub>2</sub>(x, a)
+ *   P<sub>2</sub>(x, a) = &sum; (&pi;(x/p) - &pi;(p) + 1) for y &lt; p &le; &radic;x
+ * </pre>
+ * where &phi;(x, a) counts the numbers up to x with no prime factor among the first a primes.
+ * All the &pi; values needed are below x/y and are read from a table built by the
+ * {@link SegmentedSieve segmented sieve}: one bit per odd number plus one running count per
+ * 64 bits, 3/32 byte per number. &phi; is expanded recursively, using a wheel table for the
+ * first {@link #WHEEL_PRIMES} primes and the &pi; table as soon as at most one prime can remain.
+ * <p>
+ * y is x<sup>1/3</sup> unless the table would exceed {@link #TABLE_LIMIT}, in which case y is
+ * raised, trading memory for a deeper &phi; expansion. &pi;(10<sup>12</sup>) uses a 10 MB table.
+ * <p>
+ * The n<sup>th</sup> prime is located by inverting the logarithmic integral, counting the
+ * primes up to the estimate and sieving the short distance to the actual prime.
+ * @version $Id$
+ * @since 3.2
+ */
+class PrimeCounting {
+
+    /** Number of primes handled by the wheel tables: 2, 3, 5, 7, 11, 13. */
+    private static final int WHEEL_PRIMES = 6;
+
+    /** Wheel moduli: products of the first k primes. */
+    private static final int[] WHEEL_MODULI = { 1, 2, 6, 30, 210, 2310, 30030 };
+
+    /** Wheel tables: element [k][r] is &phi;(r, k), for r below the k<sup>th</sup> modulus. */
+    private static final int[][] WHEEL_PHI = new int[WHEEL_PRIMES + 1][];
+
+    /** Largest bound of the &pi; table, 2<sup>28</sup> numbers use 24 MB. */
+    private static final long TABLE_LIMIT = 1L << 28;
+
+    /** Width of the windows sieved around the n<sup>th</sup> prime estimate. */
+    private static final long WINDOW = 4L * SegmentedSieve.SEGMENT_BITS;
+
+    /** Euler-Mascheroni constant. */
+    private static final double EULER_GAMMA = 0.5772156649015329;
+
+    static {
+        for (int k = 0; k <= WHEEL_PRIMES; k++) {
+            final int[] table = new int[WHEEL_MODULI[k]];
+            int count = 0;
+            for (int r = 1; r < table.length; r++) {
+                boolean coprime = true;
+                for (int j = 0; j < k && coprime; j++) {
+                    coprime = r % SmallPrimes.PRIMES[j] != 0;
+                }
+                if (coprime) {
+                    ++count;
+                }
+                table[r] = count;
+            }
+            WHEEL_PHI[k] = table;
+        }
+    }
+
+    /** Largest number covered by the &pi; table. */
+    private final long bound;
+
+    /** Odd numbers up to the bound, bit i set if 2i+1 is prime. */
+    private final long[] bits;
+
+    /** Number of set bits before each word of {@link #bits}. */
+    private final int[] counts;
+
+    /** Primes up to the square root of the counted number, 2 included. */
+    private final int[] primes;
+
+    /**
+     * Build the tables needed to count primes.
+     * @param bound largest number covered by the &pi; table
+     * @param x number whose primes are counted, its square root must be at most bound
+     */
+    private PrimeCounting(final long bound, final long x) {
+        this.bound  = bound;
+        this.bits   = new long[(int) (((bound + 1) >>> 1) + 63 >>> 6)];
+        this.counts = new int[bits.length];
+
+        SegmentedSieve.forRange(3, bound + 1).sieve(3, bound + 1, p -> {
+            final int i = (int) (p >>> 1);
+            bits[i >>> 6] |= 1L << i;
+        });
+        int count = 0;
+        for (int w = 0; w < bits.length; w++) {
+            counts[w] = count;
+            count += Long.bitCount(bits[w]);
+        }
+
+        final int[] odd = SegmentedSieve.basePrimes(x + 1);
+        primes = new int[odd.length + 1];
+        primes[0] = 2;
+        System.arraycopy(odd, 0, primes, 1, odd.length);
+    }
+
+    /**
+     * Count the primes up to a number.
+     * @param x upper bound, must be &lt; {@link SegmentedSieve#MAX_BOUND}
+     * @return number of primes p such that p &le; x
+     */
+    static long countPrimes(final long x) {
+        if (x < 2) {
+            return 0;
+        }
+        if (x <= SmallPrimes.PRIMES_LAST) {
+            final int index = Arrays.binarySearch(SmallPrimes.PRIMES, (int) x);
+            return index >= 0 ? index + 1 : -(index + 1);
+        }
+
+        final long sqrt = floorRoot(x, 2);
+        final long y    = Math.min(sqrt, Math.max(floorRoot(x, 3), x / TABLE_LIMIT));
+        final PrimeCounting counting = new PrimeCounting(Math.max(x / y, sqrt), x);
+
+        final int a = (int) counting.pi(y);
+        final int b = counting.primes.length;
+        long p2 = 0;
+        for (int i = a; i < b; i++) {
+            // primes[i] is the (i+1)th prime, pi(primes[i]) - 1 = i
+            p2 += counting.pi(x / counting.primes[i]) - i;
+        }
+        return counting.phi(x, a) + a - 1 - p2;
+    }
+
+    /**
+     * Find the n<sup>th</sup> prime.
+     * @param n rank of the prime, must be &ge; 1, the first prime being 2
+     * @return n<sup>th</sup> prime
+     * @throws MathIllegalArgumentException if the prime is larger than the sieve supports
+     */
+    static long nthPrime(final long n) {
+        if (n <= SmallPrimes.PRIMES.length) {
+            return SmallPrimes.PRIMES[(int) n - 1];
+        }
+
+        final long estimate = estimate(n);
+        if (estimate > SegmentedSieve.MAX_BOUND - 2 * WINDOW) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_LARGE,
+                                                   estimate, SegmentedSieve.MAX_BOUND);
+        }
+        final long count = countPrimes(estimate);
+        final SegmentedSieve.LongCollector window = new SegmentedSieve.LongCollector(WINDOW);
+
+        if (count < n) {
+            // the prime is above the estimate: the (n - count)th prime after it
+            long remaining = n - count;
+            for (long lo = estimate + 1;; lo += WINDOW) {
+                window.clear();
+                SegmentedSieve.forRange(lo, lo + WINDOW).sieve(lo, lo + WINDOW, window);
+                if (remaining <= window.size()) {
+                    return window.get((int) remaining - 1);
+                }
+                remaining -= window.size();
+            }
+        }
+
+        // the prime is at or below the estimate: skip the (count - n) largest primes
+        long skipped = count - n;
+        for (long hi = estimate + 1;; hi -= WINDOW) {
+            final long lo = Math.max(0, hi - WINDOW);
+            window.clear();
+            SegmentedSieve.forRange(lo, hi).sieve(lo, hi, window);
+            if (skipped < window.size()) {
+                return window.get(window.size() - 1 - (int) skipped);
+            }
+            skipped -= window.size();
+        }
+    }
+
+    /**
+     * Count the primes up to a number covered by the table.
+     * @param v upper bound, must be &le; {@link #bound}
+     * @return number of primes p such that p &le; v
+     */
+    private long pi(final long v) {
+        if (v < 2) {
+            return 0;
+        }
+        final int i    = (int) ((v - 1) >>> 1);
+        final int w    = i >>> 6;
+        final long mask = -1L >>> (63 - (i & 63));
+        return 1 + counts[w] + Long.bitCount(bits[w] & mask);
+    }
+
+    /**
+     * Legendre's partial sieve function.
+     * @param v upper bound
+     * @param b number of primes sieved out, at most the length of {@link #primes}
+     * @return number of integers k such that 1 &le; k &le; v, with no prime factor among the first b primes
+     */
+    private long phi(final long v, final int b) {
+        if (b <= WHEEL_PRIMES) {
+            final int modulus = WHEEL_MODULI[b];
+            final int[] table = WHEEL_PHI[b];
+            // phi(modulus - 1, b) = phi(modulus, b) as the modulus itself is not coprime, except for b = 0
+            final long period = b == 0 ? 1 : table[modulus - 1];
+            return (v / modulus) * period + table[(int) (v % modulus)];
+        }
+        if (v <= bound && (b == primes.length || v < (long) primes[b] * primes[b])) {
+            // only 1 and the primes above the b first ones remain
+            return Math.max(pi(v) - b + 1, 1);
+        }
+
+        // phi(v, b) = phi(v, b - 1) - phi(v / p_b, b - 1), unrolled down to the wheel
+        long result = phi(v, WHEEL_PRIMES);
+        for (int i = WHEEL_PRIMES; i < b; i++) {
+            final long p = primes[i];
+            final long q = v / p;
+            if (q < p) {
+                // phi(q, i) = 1 for this prime and all the larger ones
+                return result - (b - i);
+            }
+            result -= phi(q, i);
+        }
+        return result;
+    }
+
+    /**
+     * Estimate the n<sup>th</sup> prime.
+     * <p>
+     * Cipolla's asymptotic expansion is refined by Newton iterations on the logarithmic
+     * integral, which is usually within a few &radic;x of the actual prime.
+     * @param n rank of the prime, must be &gt; 6
+     * @return estimate of the n<sup>th</sup> prime
+     */
+    private static long estimate(final long n) {
+        final double logN    = FastMath.log(n);
+        final double logLogN = FastMath.log(logN);
+        double x = n * (logN + logLogN - 1 + (logLogN - 2) / logN);
+        for (int i = 0; i < 3; i++) {
+            x -= (logarithmicIntegral(x) - n) * FastMath.log(x);
+        }
+        return (long) x;
+    }
+
+    /**
+     * Logarithmic integral li(x) = &gamma; + ln ln x + &sum; (ln x)<sup>k</sup> / (k k!).
+     * @param x argument, must be &gt; 1
+     * @return li(x)
+     */
+    private static double logarithmicIntegral(final double x) {
+        final double logX = FastMath.log(x);
+        double sum  = EULER_GAMMA + FastMath.log(logX);
+        double term = 1;
+        for (int k = 1;; k++) {
+            term *= logX / k;
+            final double delta = term / k;
+            sum += delta;
+            if (delta < 1.0e-17 * sum) {
+                return sum;
+            }
+        }
+    }
+
+    /**
+     * Compute an integer root.
+     * @param x argument, must be &ge; 0
+     * @param k root order, 2 or 3
+     * @return largest r such that r<sup>k</sup> &le; x
+     */
+    private static long floorRoot(final long x, final int k) {
+        // the double estimate may be off by one
+        long r = (long) (k == 2 ? Math.sqrt((double) x) : Math.cbrt((double) x));
+        while (power(r, k) > x) {
+            --r;
+        }
+        while (power(r + 1, k) <= x) {
+            ++r;
+        }
+        return r;
+    }
+
+    /**
+     * Compute a small power, saturating at {@link Long#MAX_VALUE}.
+     * @param r base, must be &ge; 0
+     * @param k exponent, 2 or 3
+     * @return r<sup>k</sup>, or {@link Long#MAX_VALUE} if it overflows
+     */
+    private static long power(final long r, final int k) {
+        if (r > 3037000499L) {
+            return Long.MAX_VALUE;
+        }
+        final long square = r * r;
+        return k == 2 ? square : (square > Long.MAX_VALUE / r ? Long.MAX_VALUE : square * r);
+    }
+
+}
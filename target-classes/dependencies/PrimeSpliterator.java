@@ -0,0 +1,190 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Spliterator over the primes of a range, backed by an incremental {@link SegmentedSieve}.
+ * <p>
+ * Primes are sieved on demand, in chunks that start small and double up to a full segment,
+ * so that short-circuiting pipelines only sieve what they consume. The base primes are
+ * extended as the traversal moves up, until they reach the point where checking the candidates
+ * with Miller-Rabin becomes cheaper than crossing off with more base primes.
+ * <p>
+ * Bounded ranges are split in halves. Unbounded ranges (up to the largest supported bound)
+ * are split by handing out prefixes of growing length, so that a parallel pipeline does not
+ * start sieving numbers far away from the ones it will actually consume.
+ * @version $Id$
+ * @since 3.2
+ */
+class PrimeSpliterator implements Spliterator.OfLong {
+
+    /** Span of the first chunk sieved. */
+    private static final long FIRST_CHUNK = 1024;
+
+    /** Largest span sieved at once: one full segment. */
+    private static final long MAX_CHUNK = 2L * SegmentedSieve.SEGMENT_BITS;
+
+    /** Largest coverage of the base primes. */
+    private static final long MAX_COVERAGE = SegmentedSieve.PARTIAL_SIEVE_BOUND;
+
+    /** Smallest span handed out by a split. */
+    private static final long MIN_SPLIT = 4L * SegmentedSieve.SEGMENT_BITS;
+
+    /** Largest span handed out by a split of an unbounded range. */
+    private static final long MAX_BATCH = 1L << 34;
+
+    /** Characteristics of all prime spliterators. */
+    private static final int CHARACTERISTICS =
+            Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED |
+            Spliterator.NONNULL | Spliterator.IMMUTABLE;
+
+    /** Start of the part of the range not sieved yet. */
+    private long next;
+
+    /** Exclusive upper bound. */
+    private final long end;
+
+    /** Indicator for ranges which are not expected to be traversed up to the end. */
+    private final boolean unbounded;
+
+    /** Span of the next prefix handed out by a split of an unbounded range. */
+    private long batch;
+
+    /** Span of the next chunk to sieve. */
+    private long chunk;
+
+    /** Exclusive bound up to which the current sieve is usable. */
+    private long sieveBound;
+
+    /** Sieve for the current chunks. */
+    private SegmentedSieve sieve;
+
+    /** Primes sieved but not consumed yet. */
+    private final SegmentedSieve.LongCollector buffer;
+
+    /** Index of the next prime to consume in the buffer. */
+    private int position;
+
+    /**
+     * Simple constructor.
+     * @param lo inclusive lower bound, must be &ge; 0
+     * @param hi exclusive upper bound, must be &le; {@link SegmentedSieve#MAX_BOUND}
+     * @param unbounded if true, the range is not expected to be traversed up to hi
+     */
+    PrimeSpliterator(final long lo, final long hi, final boolean unbounded) {
+        this.next       = lo;
+        this.end        = hi;
+        this.unbounded  = unbounded;
+        this.batch      = MIN_SPLIT;
+        this.chunk      = FIRST_CHUNK;
+        this.sieveBound = 0;
+        this.buffer     = new SegmentedSieve.LongCollector(0);
+        this.position   = 0;
+    }
+
+    /** {@inheritDoc} */
+    public boolean tryAdvance(final LongConsumer action) {
+        while (position == buffer.size()) {
+            if (next >= end) {
+                return false;
+            }
+            buffer.clear();
+            position = 0;
+            next = sieveChunk(buffer);
+        }
+        action.accept(buffer.get(position++));
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void forEachRemaining(final LongConsumer action) {
+        while (position < buffer.size()) {
+            action.accept(buffer.get(position++));
+        }
+        while (next < end) {
+            next = sieveChunk(action);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public Spliterator.OfLong trySplit() {
+        if (position < buffer.size()) {
+            // buffered primes come first, they cannot be handed out with the prefix
+            return null;
+        }
+        final long remaining = end - next;
+        if (remaining < 2 * MIN_SPLIT) {
+            return null;
+        }
+        final long span;
+        if (unbounded) {
+            span = Math.min(batch, remaining / 2);
+            batch = Math.min(2 * batch, MAX_BATCH);
+        } else {
+            span = remaining / 2;
+        }
+        final PrimeSpliterator prefix = new PrimeSpliterator(next, next + span, false);
+        next += span;
+        return prefix;
+    }
+
+    /** {@inheritDoc} */
+    public long estimateSize() {
+        if (unbounded) {
+            return Long.MAX_VALUE;
+        }
+        // prime number theorem, the density is about 1 / ln(x)
+        final double density = 1.0 / Math.log(Math.max(next, 3));
+        return (buffer.size() - position) + (long) ((end - next) * density);
+    }
+
+    /** {@inheritDoc} */
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Comparator<? super Long> getComparator() {
+        // natural order
+        return null;
+    }
+
+    /**
+     * Sieve the next chunk.
+     * @param action the action called for each prime in the chunk
+     * @return the exclusive end of the chunk
+     */
+    private long sieveChunk(final LongConsumer action) {
+        final long chunkEnd = next + Math.min(chunk, end - next);
+        if (sieve == null || (chunkEnd > sieveBound && sieveBound < MAX_COVERAGE)) {
+            // grow the base primes by a factor 4 at least, chunks beyond
+            // the largest coverage are checked with Miller-Rabin by the sieve
+            sieveBound = Math.min(MAX_COVERAGE, Math.max(chunkEnd, 16 * sieveBound));
+            sieve = new SegmentedSieve(SegmentedSieve.basePrimes(sieveBound), sieveBound);
+        }
+        sieve.sieve(next, chunkEnd, action);
+        chunk = Math.min(2 * chunk, MAX_CHUNK);
+        return chunkEnd;
+    }
+}
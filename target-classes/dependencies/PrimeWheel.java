@@ -0,0 +1,108 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Wheel of the numbers coprime to 2&middot;3&middot;5&middot;7 = 210.
+ * <p>
+ * Only 48 residues out of 210 are coprime to the first four primes. Walking from one of them
+ * to the next with the {@link #GAPS gap table} enumerates the prime candidates without ever
+ * producing a multiple of 2, 3, 5 or 7, so these never reach the primality test.
+ * A position on the wheel is the index of the current residue; the
+ * {@link #ceilingIndex(long)} and {@link #floorIndex(long)} methods give the starting position
+ * for any number.
+ * @version $Id$
+ * @since 3.2
+ */
+class PrimeWheel {
+
+    /** Product of the primes of the wheel. */
+    static final int MODULUS = 210;
+
+    /** Number of primes of the wheel, the first primes of {@link SmallPrimes#PRIMES}. */
+    static final int PRIMES = 4;
+
+    /** Number of residues coprime to {@link #MODULUS}. */
+    static final int SIZE = 48;
+
+    /** Residues coprime to {@link #MODULUS}, in ascending order. */
+    static final int[] RESIDUES = new int[SIZE];
+
+    /** Distance from each residue to the next one, wrapping from 209 to 211. */
+    static final int[] GAPS = new int[SIZE];
+
+    /** Index of the smallest residue &ge; r, for all r &lt; {@link #MODULUS}. */
+    private static final byte[] CEILING = new byte[MODULUS];
+
+    /** Index of the largest residue &le; r, for all r &lt; {@link #MODULUS}, -1 for 0. */
+    private static final byte[] FLOOR = new byte[MODULUS];
+
+    static {
+        int size = 0;
+        for (int r = 1; r < MODULUS; r++) {
+            if (r % 2 != 0 && r % 3 != 0 && r % 5 != 0 && r % 7 != 0) {
+                RESIDUES[size++] = r;
+            }
+        }
+        for (int i = 0; i < SIZE; i++) {
+            GAPS[i] = i + 1 < SIZE ? RESIDUES[i + 1] - RESIDUES[i] : MODULUS + RESIDUES[0] - RESIDUES[i];
+        }
+        // 209 = 11 * 19 is on the wheel, so every residue has a ceiling in the same turn
+        int ceiling = SIZE - 1;
+        for (int r = MODULUS - 1; r >= 0; r--) {
+            if (ceiling > 0 && RESIDUES[ceiling - 1] >= r) {
+                --ceiling;
+            }
+            CEILING[r] = (byte) ceiling;
+        }
+        int floor = -1;
+        for (int r = 0; r < MODULUS; r++) {
+            if (floor + 1 < SIZE && RESIDUES[floor + 1] <= r) {
+                ++floor;
+            }
+            FLOOR[r] = (byte) floor;
+        }
+    }
+
+    /**
+     * Hide utility class.
+     */
+    private PrimeWheel() {
+    }
+
+    /**
+     * Get the position of the smallest wheel number &ge; n.
+     * @param n number, must be &ge; 0
+     * @return index in {@link #RESIDUES} of the smallest wheel number &ge; n, which is
+     * <code>n - n % MODULUS + RESIDUES[index]</code>
+     */
+    static int ceilingIndex(final long n) {
+        return CEILING[(int) (n % MODULUS)];
+    }
+
+    /**
+     * Get the position of the largest wheel number &le; n, in the same turn of the wheel.
+     * @param n number, must be &ge; 0
+     * @return index in {@link #RESIDUES} of the largest wheel number &le; n, which is
+     * <code>n - n % MODULUS + RESIDUES[index]</code>, or -1 if n is a multiple of {@link #MODULUS}
+     */
+    static int floorIndex(final long n) {
+        return FLOOR[(int) (n % MODULUS)];
+    }
+
+}
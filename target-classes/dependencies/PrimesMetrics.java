@@ -0,0 +1,218 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the paths taken by the primality tests and the trial division.
+ * <p>
+ * The counters tell how the inputs are resolved:
+ * <ul>
+ * <li>by a lookup in the {@link Primes#setPrimalityBitmap(PrimalityBitmap) primality bitmap},</li>
+ * <li>by the scan of the {@link SmallPrimes#PRIMES small primes} table,</li>
+ * <li>by the Miller-Rabin test, counted separately for each number of witnesses,</li>
+ * </ul>
+ * and how far {@link SmallPrimes#boundedTrialDivision(int, int, java.util.List) bounded trial
+ * division} iterates, as a total and as a histogram.
+ * <p>
+ * The metrics are disabled unless the {@value #ENABLED_PROPERTY} system property is set to
+ * <code>true</code> when this class is initialized. The flag is a constant, so when it is off
+ * the just-in-time compiler removes the recording code and the instrumentation costs nothing.
+ * The counters are {@link LongAdder}s, so recording from many threads does not contend.
+ * @version $Id$
+ * @since 3.2
+ */
+public final class PrimesMetrics {
+
+    /** Name of the system property which enables the metrics. */
+    public static final String ENABLED_PROPERTY = "experimento.primes.metrics";
+
+    /** Maximal number of witnesses of the Miller-Rabin test. */
+    public static final int MAX_WITNESSES = 12;
+
+    /** Number of buckets of the trial division histogram. */
+    public static final int HISTOGRAM_BUCKETS = 64;
+
+    /** Indicator for enabled metrics. */
+    private static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    /** Numbers resolved by the primality bitmap. */
+    private static final LongAdder BITMAP = new LongAdder();
+
+    /** Numbers resolved by the small primes table scan. */
+    private static final LongAdder SMALL_PRIMES = new LongAdder();
+
+    /** Numbers resolved by the Miller-Rabin test, indexed by number of witnesses. */
+    private static final LongAdder[] MILLER_RABIN = new LongAdder[MAX_WITNESSES + 1];
+
+    /** Calls to the bounded trial division. */
+    private static final LongAdder TRIAL_DIVISIONS = new LongAdder();
+
+    /** Candidate divisors passed by the bounded trial division. */
+    private static final LongAdder TRIAL_DIVISORS = new LongAdder();
+
+    /** Calls to the bounded trial division, indexed by bit length of the number of candidates passed. */
+    private static final LongAdder[] TRIAL_DIVISION_HISTOGRAM = new LongAdder[HISTOGRAM_BUCKETS];
+
+    static {
+        for (int i = 0; i < MILLER_RABIN.length; i++) {
+            MILLER_RABIN[i] = new LongAdder();
+        }
+        for (int i = 0; i < TRIAL_DIVISION_HISTOGRAM.length; i++) {
+            TRIAL_DIVISION_HISTOGRAM[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Hide utility class.
+     */
+    private PrimesMetrics() {
+    }
+
+    /**
+     * Check if the metrics are recorded.
+     * @return true if the {@value #ENABLED_PROPERTY} system property was true at startup
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Get the number of numbers resolved by the primality bitmap.
+     * @return number of numbers resolved by the primality bitmap
+     */
+    public static long getBitmapResolutions() {
+        return BITMAP.sum();
+    }
+
+    /**
+     * Get the number of numbers resolved by the scan of the small primes table.
+     * <p>
+     * This includes the even numbers and, for the batch tests, the numbers resolved by the
+     * shorter prefilter.
+     * @return number of numbers resolved by the small primes
+     */
+    public static long getSmallPrimeResolutions() {
+        return SMALL_PRIMES.sum();
+    }
+
+    /**
+     * Get the number of numbers resolved by the Miller-Rabin test.
+     * <p>
+     * Composite numbers are counted with the number of witnesses planned for them, even if the
+     * first witness already rejected them.
+     * @param witnesses number of witnesses, from 1 to {@link #MAX_WITNESSES}
+     * @return number of numbers tested with this number of witnesses
+     */
+    public static long getMillerRabinResolutions(final int witnesses) {
+        return MILLER_RABIN[witnesses].sum();
+    }
+
+    /**
+     * Get the number of calls to the bounded trial division.
+     * @return number of calls to the bounded trial division
+     */
+    public static long getBoundedTrialDivisions() {
+        return TRIAL_DIVISIONS.sum();
+    }
+
+    /**
+     * Get the total number of candidate divisors passed by the bounded trial division.
+     * <p>
+     * For each call, this is the number of candidates below the last one reached, i.e. the
+     * distance travelled from the first candidate divided by 3.
+     * @return number of candidate divisors passed
+     */
+    public static long getBoundedTrialDivisionCandidates() {
+        return TRIAL_DIVISORS.sum();
+    }
+
+    /**
+     * Get the histogram of the number of candidate divisors passed by the bounded trial division.
+     * @return an array of {@link #HISTOGRAM_BUCKETS} elements, element i is the number of calls
+     * which passed c candidates with 2<sup>i-1</sup> &le; c &lt; 2<sup>i</sup> (c = 0 for i = 0)
+     */
+    public static long[] getBoundedTrialDivisionHistogram() {
+        final long[] histogram = new long[HISTOGRAM_BUCKETS];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = TRIAL_DIVISION_HISTOGRAM[i].sum();
+        }
+        return histogram;
+    }
+
+    /**
+     * Reset all the counters.
+     * <p>
+     * Counts recorded concurrently with the reset may be lost.
+     */
+    public static void reset() {
+        BITMAP.reset();
+        SMALL_PRIMES.reset();
+        for (final LongAdder adder : MILLER_RABIN) {
+            adder.reset();
+        }
+        TRIAL_DIVISIONS.reset();
+        TRIAL_DIVISORS.reset();
+        for (final LongAdder adder : TRIAL_DIVISION_HISTOGRAM) {
+            adder.reset();
+        }
+    }
+
+    /**
+     * Record a number resolved by the primality bitmap.
+     */
+    static void recordBitmap() {
+        if (ENABLED) {
+            BITMAP.increment();
+        }
+    }
+
+    /**
+     * Record numbers resolved by the small primes.
+     * @param count number of numbers
+     */
+    static void recordSmallPrimes(final int count) {
+        if (ENABLED) {
+            SMALL_PRIMES.add(count);
+        }
+    }
+
+    /**
+     * Record a number resolved by the Miller-Rabin test.
+     * @param witnesses number of witnesses planned for the number
+     */
+    static void recordMillerRabin(final int witnesses) {
+        if (ENABLED) {
+            MILLER_RABIN[witnesses].increment();
+        }
+    }
+
+    /**
+     * Record a call to the bounded trial division.
+     * @param candidates number of candidate divisors passed
+     */
+    static void recordBoundedTrialDivision(final long candidates) {
+        if (ENABLED) {
+            TRIAL_DIVISIONS.increment();
+            TRIAL_DIVISORS.add(candidates);
+            TRIAL_DIVISION_HISTOGRAM[Long.SIZE - Long.numberOfLeadingZeros(candidates)].increment();
+        }
+    }
+
+}
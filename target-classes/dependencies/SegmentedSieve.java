@@ -0,0 +1,421 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongConsumer;
+
+/**
+ * Segmented sieve of Eratosthenes.
+ * <p>
+ * The sieve only represents odd numbers, one bit each, and works on segments of
+ * {@link #SEGMENT_BITS} bits so that the segment being sieved stays in the L1 data cache.
+ * The primes used for crossing off (the base primes) are read from {@link SmallPrimes#PRIMES}
+ * when it is large enough, and are otherwise produced by a segmented sieve themselves.
+ * <p>
+ * For narrow ranges of large numbers, crossing off with all primes up to the square root would
+ * cost far more than the range itself. In this case the sieve only uses the base primes up to
+ * {@link #coverage} and checks the remaining candidates with the Miller-Rabin test.
+ * <p>
+ * An instance holds a segment buffer and is not thread safe; the base primes array is never
+ * modified and may be shared between instances. This is what {@link #sieve(long, long, ForkJoinPool)}
+ * does: each task sieves its own part of the range with its own buffer.
+ * @version $Id$
+ * @since 3.2
+ */
+class SegmentedSieve {
+
+    /** Number of odd numbers per segment: 2<sup>18</sup> bits fill 32 KB. */
+    static final int SEGMENT_BITS = 1 << 18;
+
+    /** Largest supported upper bound, so that all base primes fit in an <code>int</code>. */
+    static final long MAX_BOUND = (long) Integer.MAX_VALUE * Integer.MAX_VALUE;
+
+    /** Bound above which narrow ranges are only partially sieved: base primes up to 2<sup>21</sup>. */
+    static final long PARTIAL_SIEVE_BOUND = 1L << 42;
+
+    /** Smallest range given to one fork-join task: 8 segments. */
+    private static final long MIN_TASK_SPAN = 16L * SEGMENT_BITS;
+
+    /** Number of tasks per worker thread, for load balancing. */
+    private static final int TASKS_PER_WORKER = 8;
+
+    /** Odd base primes, in ascending order. */
+    private final int[] basePrimes;
+
+    /** Exclusive bound below which the base primes are sufficient, candidates above are checked. */
+    private final long coverage;
+
+    /** Segment buffer, a set bit marks a composite number. */
+    private final long[] bits;
+
+    /**
+     * Simple constructor.
+     * @param basePrimes odd base primes in ascending order, as computed by {@link #basePrimes(long)}
+     * @param coverage the bound used to compute the base primes
+     */
+    SegmentedSieve(final int[] basePrimes, final long coverage) {
+        this.basePrimes = basePrimes;
+        this.coverage   = coverage;
+        this.bits       = new long[SEGMENT_BITS >>> 6];
+    }
+
+    /**
+     * Build a sieve for a range.
+     * @param lo the inclusive lower bound, must be &ge; 0
+     * @param hi the exclusive upper bound, must be &le; {@link #MAX_BOUND}
+     * @return a sieve for the range
+     */
+    static SegmentedSieve forRange(final long lo, final long hi) {
+        final long coverage = coverage(lo, hi);
+        return new SegmentedSieve(basePrimes(coverage), coverage);
+    }
+
+    /**
+     * Compute the bound up to which the base primes are worth using for a range.
+     * @param lo the inclusive lower bound
+     * @param hi the exclusive upper bound
+     * @return the coverage bound to use
+     */
+    static long coverage(final long lo, final long hi) {
+        final long span = hi - lo;
+        if (hi <= PARTIAL_SIEVE_BOUND || span >= (1L << 31) || span * span >= hi) {
+            return hi;
+        }
+        // no more base primes than numbers in the range
+        return Math.max(PARTIAL_SIEVE_BOUND, span * span);
+    }
+
+    /**
+     * Compute the odd base primes needed to sieve up to an upper bound.
+     * @param hi the exclusive upper bound, must be &le; {@link #MAX_BOUND}
+     * @return all odd primes p such that p<sup>2</sup> &lt; hi, in ascending order
+     */
+    static int[] basePrimes(final long hi) {
+        if (hi <= 9) {
+            return new int[0];
+        }
+        // limit = floor(sqrt(hi - 1)), the double estimate may be off by one
+        long limit = (long) Math.sqrt((double) (hi - 1));
+        while (limit * limit > hi - 1) {
+            --limit;
+        }
+        while ((limit + 1) * (limit + 1) <= hi - 1) {
+            ++limit;
+        }
+
+        if (limit <= SmallPrimes.PRIMES_LAST) {
+            int end = 1;
+            while (end < SmallPrimes.PRIMES.length && SmallPrimes.PRIMES[end] <= limit) {
+                ++end;
+            }
+            return Arrays.copyOfRange(SmallPrimes.PRIMES, 1, end);
+        }
+
+        final IntCollector collector = new IntCollector(limit);
+        new SegmentedSieve(basePrimes(limit + 1), limit + 1).sieve(3, limit + 1, collector);
+        return collector.toArray();
+    }
+
+    /**
+     * Enumerate the primes in a range.
+     * @param lo the inclusive lower bound, must be &ge; 0
+     * @param hi the exclusive upper bound, must be &le; {@link #MAX_BOUND}
+     * @param action the action called for each prime, in ascending order
+     */
+    void sieve(final long lo, final long hi, final LongConsumer action) {
+        if (lo <= 2 && 2 < hi) {
+            action.accept(2);
+        }
+        final boolean check = hi > coverage;
+        long segLo = Math.max(lo, 3) | 1;
+        while (segLo < hi) {
+            final int size = (int) Math.min(SEGMENT_BITS, (hi - segLo + 1) >>> 1);
+            markComposites(segLo, size);
+            final int words = (size + 63) >>> 6;
+            for (int w = 0; w < words; w++) {
+                long primes = ~bits[w];
+                while (primes != 0) {
+                    final int bit = Long.numberOfTrailingZeros(primes);
+                    final long candidate = segLo + (((long) (w << 6) + bit) << 1);
+                    if (!check || SmallPrimes.millerRabinPrimeTest(candidate)) {
+                        action.accept(candidate);
+                    }
+                    primes &= primes - 1;
+                }
+            }
+            segLo += 2L * size;
+        }
+    }
+
+    /**
+     * Enumerate the primes in a range, using several threads.
+     * @param lo the inclusive lower bound, must be &ge; 0
+     * @param hi the exclusive upper bound, must be &le; {@link #MAX_BOUND}
+     * @param pool the pool running the sieve
+     * @return the primes p such that lo &le; p &lt; hi, in ascending order
+     */
+    static long[] sieve(final long lo, final long hi, final ForkJoinPool pool) {
+        final long segmentSpan = 2L * SEGMENT_BITS;
+        long taskSpan = Math.max(MIN_TASK_SPAN, (hi - lo) / ((long) pool.getParallelism() * TASKS_PER_WORKER));
+        taskSpan = ((taskSpan + segmentSpan - 1) / segmentSpan) * segmentSpan;
+
+        final long coverage = coverage(lo, hi);
+        final SieveTask root = new SieveTask(basePrimes(coverage), coverage, lo, hi, taskSpan);
+        pool.invoke(root);
+        final long[] primes = new long[root.count()];
+        root.copyTo(primes, 0);
+        return primes;
+    }
+
+    /**
+     * Sieve one segment.
+     * <p>
+     * On return, the clear bits of the first <code>size</code> bits in {@link #bits} are the primes,
+     * bit i representing <code>segLo + 2i</code>. The bits after <code>size</code> in the last
+     * word are all set.
+     * @param segLo the first number in the segment, must be odd and &ge; 3
+     * @param size the number of odd numbers in the segment, at most {@link #SEGMENT_BITS}
+     */
+    private void markComposites(final long segLo, final int size) {
+        final int words = (size + 63) >>> 6;
+        Arrays.fill(bits, 0, words, 0L);
+        if ((size & 63) != 0) {
+            bits[words - 1] = -1L << size;
+        }
+
+        final long segHi = segLo + 2L * size;
+        for (final int p : basePrimes) {
+            final long square = (long) p * p;
+            if (square >= segHi) {
+                break;
+            }
+            // first odd multiple of p in the segment, not below p^2
+            long m;
+            if (square >= segLo) {
+                m = square;
+            } else {
+                m = ((segLo + p - 1) / p) * p;
+                if ((m & 1) == 0) {
+                    m += p;
+                }
+            }
+            final int start = (int) ((m - segLo) >>> 1);
+            if (p >= size) {
+                // at most one multiple, and i + p could overflow
+                if (start < size) {
+                    bits[start >>> 6] |= 1L << start;
+                }
+            } else {
+                for (int i = start; i < size; i += p) {
+                    bits[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+    }
+
+    /** Fork-join task sieving a part of a range. */
+    private static class SieveTask extends RecursiveAction {
+
+        /** Serializable UID. */
+        private static final long serialVersionUID = 20250101L;
+
+        /** Odd base primes, shared by all tasks. */
+        private final int[] basePrimes;
+
+        /** Bound used to compute the base primes. */
+        private final long coverage;
+
+        /** Inclusive lower bound. */
+        private final long lo;
+
+        /** Exclusive upper bound. */
+        private final long hi;
+
+        /** Largest range sieved without splitting, a multiple of the segment span. */
+        private final long taskSpan;
+
+        /** Primes found, for a leaf task. */
+        private long[] primes;
+
+        /** Lower half, for a split task. */
+        private SieveTask low;
+
+        /** Upper half, for a split task. */
+        private SieveTask high;
+
+        /**
+         * Simple constructor.
+         * @param basePrimes odd base primes, shared by all tasks
+         * @param coverage bound used to compute the base primes
+         * @param lo inclusive lower bound
+         * @param hi exclusive upper bound
+         * @param taskSpan largest range sieved without splitting
+         */
+        SieveTask(final int[] basePrimes, final long coverage,
+                  final long lo, final long hi, final long taskSpan) {
+            this.basePrimes = basePrimes;
+            this.coverage   = coverage;
+            this.lo         = lo;
+            this.hi         = hi;
+            this.taskSpan   = taskSpan;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void compute() {
+            if (hi - lo <= taskSpan) {
+                final LongCollector collector = new LongCollector(hi - lo);
+                new SegmentedSieve(basePrimes, coverage).sieve(lo, hi, collector);
+                primes = collector.toArray();
+            } else {
+                // split on a task span boundary, so that all leaves use full segments
+                final long mid = lo + Math.max(1, (hi - lo) / taskSpan / 2) * taskSpan;
+                low  = new SieveTask(basePrimes, coverage, lo, mid, taskSpan);
+                high = new SieveTask(basePrimes, coverage, mid, hi, taskSpan);
+                invokeAll(low, high);
+            }
+        }
+
+        /**
+         * Get the number of primes found.
+         * @return number of primes found
+         */
+        int count() {
+            return primes != null ? primes.length : low.count() + high.count();
+        }
+
+        /**
+         * Copy the primes found.
+         * @param dst destination array
+         * @param offset index where to copy the first prime
+         * @return index after the last copied prime
+         */
+        int copyTo(final long[] dst, final int offset) {
+            if (primes != null) {
+                System.arraycopy(primes, 0, dst, offset, primes.length);
+                return offset + primes.length;
+            }
+            return high.copyTo(dst, low.copyTo(dst, offset));
+        }
+    }
+
+    /** Growable array of <code>int</code> primes. */
+    static class IntCollector implements LongConsumer {
+
+        /** Collected primes. */
+        private int[] data;
+
+        /** Number of collected primes. */
+        private int size;
+
+        /**
+         * Simple constructor.
+         * @param span width of the range which will be sieved, used to size the buffer
+         */
+        IntCollector(final long span) {
+            data = new int[initialCapacity(span)];
+        }
+
+        /** {@inheritDoc} */
+        public void accept(final long p) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, 2 * size);
+            }
+            data[size++] = (int) p;
+        }
+
+        /**
+         * Get the collected primes.
+         * @return the collected primes
+         */
+        int[] toArray() {
+            return size == data.length ? data : Arrays.copyOf(data, size);
+        }
+    }
+
+    /** Growable array of <code>long</code> primes. */
+    static class LongCollector implements LongConsumer {
+
+        /** Collected primes. */
+        private long[] data;
+
+        /** Number of collected primes. */
+        private int size;
+
+        /**
+         * Simple constructor.
+         * @param span width of the range which will be sieved, used to size the buffer
+         */
+        LongCollector(final long span) {
+            data = new long[initialCapacity(span)];
+        }
+
+        /** {@inheritDoc} */
+        public void accept(final long p) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, 2 * size);
+            }
+            data[size++] = p;
+        }
+
+        /**
+         * Get the number of collected primes.
+         * @return number of collected primes
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Get one collected prime.
+         * @param index index of the prime, must be less than {@link #size()}
+         * @return the prime at index
+         */
+        long get(final int index) {
+            return data[index];
+        }
+
+        /**
+         * Forget the collected primes, keeping the buffer.
+         */
+        void clear() {
+            size = 0;
+        }
+
+        /**
+         * Get the collected primes.
+         * @return the collected primes
+         */
+        long[] toArray() {
+            return size == data.length ? data : Arrays.copyOf(data, size);
+        }
+    }
+
+    /**
+     * Initial capacity of a collector.
+     * @param span width of the range which will be sieved
+     * @return a capacity that is usually sufficient for ranges not too close to 0
+     */
+    private static int initialCapacity(final long span) {
+        // at most one number out of ten is prime beyond 10^4
+        return (int) Math.max(16, Math.min(span / 10, 1 << 24));
+    }
+}
@@ -17,61 +17,160 @@ package experimento;
  * limitations under the License.
  */
 
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+
 /**
- * Utility methods to work on primes within the <code>int</code> range.
+ * Utility methods to work on primes within the <code>int</code> and <code>long</code> ranges.
  * @version $Id$
  * @since 3.2
  */
 class SmallPrimes {
 
+    /** Name of the system property giving the number of primes in {@link #PRIMES}. */
+    public static final String TABLE_SIZE_PROPERTY = "experimento.primes.tableSize";
+
+    /** Name of the system property giving the {@link #PREFILTER_LENGTH prefilter length}. */
+    public static final String PREFILTER_LENGTH_PROPERTY = "experimento.primes.prefilterLength";
+
+    /** Default number of primes in {@link #PRIMES}. */
+    public static final int DEFAULT_TABLE_SIZE = 512;
+
+    /** Default {@link #PREFILTER_LENGTH prefilter length}. */
+    public static final int DEFAULT_PREFILTER_LENGTH = 64;
+
+    /**
+     * Minimal number of primes in {@link #PRIMES}: the first prime left out of a table of 209
+     * primes is 1291, whose cube exceeds Integer.MAX_VALUE.
+     */
+    public static final int MIN_TABLE_SIZE = 209;
+
+    /** Maximal number of primes in {@link #PRIMES}. */
+    public static final int MAX_TABLE_SIZE = 1 << 16;
+
     /**
-     * The first 512 prime numbers.
+     * Minimal prefilter length: the primes of the {@link PrimeWheel wheel}, which are also the
+     * bases of the Miller-Rabin test for <code>int</code> numbers.
+     */
+    public static final int MIN_PREFILTER_LENGTH = 4;
+
+    /**
+     * The first prime numbers.
+     * <p>
+     * The table is generated when the class is initialized. It holds
+     * {@value #DEFAULT_TABLE_SIZE} primes, unless the {@value #TABLE_SIZE_PROPERTY} system
+     * property gives another size between {@value #MIN_TABLE_SIZE} and {@value #MAX_TABLE_SIZE}.
+     * A larger table lets trial division find more factors before Pollard's rho is needed, at the
+     * cost of a longer scan for the numbers without small factors.
      * <p>
-     * It contains all primes smaller or equal to the cubic square of Integer.MAX_VALUE.
-     * As a result, <code>int</code> numbers which are not reduced by those primes are guaranteed
-     * to be either prime or semi prime.
-     */
-    public static final int[] PRIMES = {2,
-            3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47, 53, 59, 61, 67, 71, 73,
-            79, 83, 89, 97, 101, 103, 107, 109, 113, 127, 131, 137, 139, 149, 151, 157, 163, 167, 173, 179,
-            181, 191, 193, 197, 199, 211, 223, 227, 229, 233, 239, 241, 251, 257, 263, 269, 271, 277, 281, 283,
-            293, 307, 311, 313, 317, 331, 337, 347, 349, 353, 359, 367, 373, 379, 383, 389, 397, 401, 409, 419,
-            421, 431, 433, 439, 443, 449, 457, 461, 463, 467, 479, 487, 491, 499, 503, 509, 521, 523, 541, 547,
-            557, 563, 569, 571, 577, 587, 593, 599, 601, 607, 613, 617, 619, 631, 641, 643, 647, 653, 659, 661,
-            673, 677, 683, 691, 701, 709, 719, 727, 733, 739, 743, 751, 757, 761, 769, 773, 787, 797, 809, 811,
-            821, 823, 827, 829, 839, 853, 857, 859, 863, 877, 881, 883, 887, 907, 911, 919, 929, 937, 941, 947,
-            953, 967, 971, 977, 983, 991, 997, 1009, 1013, 1019, 1021, 1031, 1033, 1039, 1049, 1051, 1061, 1063, 1069, 1087,
-            1091, 1093, 1097, 1103, 1109, 1117, 1123, 1129, 1151, 1153, 1163, 1171, 1181, 1187, 1193, 1201, 1213, 1217, 1223, 1229,
-            1231, 1237, 1249, 1259, 1277, 1279, 1283, 1289, 1291, 1297, 1301, 1303, 1307, 1319, 1321, 1327, 1361, 1367, 1373, 1381,
-            1399, 1409, 1423, 1427, 1429, 1433, 1439, 1447, 1451, 1453, 1459, 1471, 1481, 1483, 1487, 1489, 1493, 1499, 1511, 1523,
-            1531, 1543, 1549, 1553, 1559, 1567, 1571, 1579, 1583, 1597, 1601, 1607, 1609, 1613, 1619, 1621, 1627, 1637, 1657, 1663,
-            1667, 1669, 1693, 1697, 1699, 1709, 1721, 1723, 1733, 1741, 1747, 1753, 1759, 1777, 1783, 1787, 1789, 1801, 1811, 1823,
-            1831, 1847, 1861, 1867, 1871, 1873, 1877, 1879, 1889, 1901, 1907, 1913, 1931, 1933, 1949, 1951, 1973, 1979, 1987, 1993,
-            1997, 1999, 2003, 2011, 2017, 2027, 2029, 2039, 2053, 2063, 2069, 2081, 2083, 2087, 2089, 2099, 2111, 2113, 2129, 2131,
-            2137, 2141, 2143, 2153, 2161, 2179, 2203, 2207, 2213, 2221, 2237, 2239, 2243, 2251, 2267, 2269, 2273, 2281, 2287, 2293,
-            2297, 2309, 2311, 2333, 2339, 2341, 2347, 2351, 2357, 2371, 2377, 2381, 2383, 2389, 2393, 2399, 2411, 2417, 2423, 2437,
-            2441, 2447, 2459, 2467, 2473, 2477, 2503, 2521, 2531, 2539, 2543, 2549, 2551, 2557, 2579, 2591, 2593, 2609, 2617, 2621,
-            2633, 2647, 2657, 2659, 2663, 2671, 2677, 2683, 2687, 2689, 2693, 2699, 2707, 2711, 2713, 2719, 2729, 2731, 2741, 2749,
-            2753, 2767, 2777, 2789, 2791, 2797, 2801, 2803, 2819, 2833, 2837, 2843, 2851, 2857, 2861, 2879, 2887, 2897, 2903, 2909,
-            2917, 2927, 2939, 2953, 2957, 2963, 2969, 2971, 2999, 3001, 3011, 3019, 3023, 3037, 3041, 3049, 3061, 3067, 3079, 3083,
-            3089, 3109, 3119, 3121, 3137, 3163, 3167, 3169, 3181, 3187, 3191, 3203, 3209, 3217, 3221, 3229, 3251, 3253, 3257, 3259,
-            3271, 3299, 3301, 3307, 3313, 3319, 3323, 3329, 3331, 3343, 3347, 3359, 3361, 3371, 3373, 3389, 3391, 3407, 3413, 3433,
-            3449, 3457, 3461, 3463, 3467, 3469, 3491, 3499, 3511, 3517, 3527, 3529, 3533, 3539, 3541, 3547, 3557, 3559, 3571, 3581,
-            3583, 3593, 3607, 3613, 3617, 3623, 3631, 3637, 3643, 3659, 3671};
+     * Even the smallest table contains all the primes p such that the next prime is smaller or
+     * equal to the cubic root of Integer.MAX_VALUE. As a result, <code>int</code> numbers which are
+     * not reduced by those primes are guaranteed to be either prime or semi prime.
+     */
+    public static final int[] PRIMES =
+        generatePrimes(property(TABLE_SIZE_PROPERTY, DEFAULT_TABLE_SIZE, MIN_TABLE_SIZE, MAX_TABLE_SIZE));
 
     /** The last number in PRIMES. */
     public static final int PRIMES_LAST = PRIMES[PRIMES.length - 1];
 
+    /**
+     * Number of primes of {@link #PRIMES} tried by the primality tests before the Miller-Rabin test.
+     * <p>
+     * Scanning the whole table rejects a few more composites, but it costs one multiplication per
+     * prime for every number which goes to the Miller-Rabin test anyway. The default is
+     * {@value #DEFAULT_PREFILTER_LENGTH}, the {@value #PREFILTER_LENGTH_PROPERTY} system property
+     * gives another length between {@value #MIN_PREFILTER_LENGTH} and the table size.
+     */
+    public static final int PREFILTER_LENGTH =
+        property(PREFILTER_LENGTH_PROPERTY, Math.min(DEFAULT_PREFILTER_LENGTH, PRIMES.length),
+                 MIN_PREFILTER_LENGTH, PRIMES.length);
+
+    /**
+     * First candidate of the bounded trial division: the largest number &le; PRIMES_LAST + 2
+     * congruent to 1 modulo 6, candidates then alternate between 1 and 5 modulo 6.
+     */
+    static final int TRIAL_DIVISION_START = PRIMES_LAST + 2 - (PRIMES_LAST + 1) % 6;
+
+    /**
+     * Inverses of the odd {@link #PRIMES} modulo 2<sup>32</sup>, element 0 (for 2) is unused.
+     * <p>
+     * For an odd prime p and an <code>int</code> n read as unsigned, n is a multiple of p if and only
+     * if n &middot; p<sup>-1</sup> mod 2<sup>32</sup> &le; (2<sup>32</sup> - 1) / p, and the product
+     * is then the exact quotient n / p (Granlund and Montgomery, 1994). This replaces a hardware
+     * division by a multiplication and a comparison.
+     */
+    static final int[] INVERSES_32 = new int[PRIMES.length];
+
+    /** Divisibility limits (2<sup>32</sup> - 1) / p of the odd {@link #PRIMES}, as unsigned numbers. */
+    static final int[] LIMITS_32 = new int[PRIMES.length];
+
+    /** Inverses of the odd {@link #PRIMES} modulo 2<sup>64</sup>, see {@link #INVERSES_32}. */
+    static final long[] INVERSES_64 = new long[PRIMES.length];
+
+    /** Divisibility limits (2<sup>64</sup> - 1) / p of the odd {@link #PRIMES}, as unsigned numbers. */
+    static final long[] LIMITS_64 = new long[PRIMES.length];
+
+    static {
+        for (int i = 1; i < PRIMES.length; i++) {
+            final long inverse = MontgomeryContext.inverse(PRIMES[i]);
+            INVERSES_64[i] = inverse;
+            LIMITS_64[i]   = Long.divideUnsigned(-1L, PRIMES[i]);
+            INVERSES_32[i] = (int) inverse;
+            LIMITS_32[i]   = (int) (0xFFFFFFFFL / PRIMES[i]);
+        }
+    }
+
     /**
      * Hide utility class.
      */
     private SmallPrimes() {
     }
 
+    /**
+     * Read an integer system property.
+     * @param name name of the property
+     * @param defaultValue value used if the property is not set
+     * @param min smallest allowed value
+     * @param max largest allowed value
+     * @return value of the property
+     * @throws MathIllegalArgumentException if the value is out of [min, max]
+     */
+    private static int property(final String name, final int defaultValue, final int min, final int max) {
+        final int value = Integer.getInteger(name, defaultValue);
+        if (value < min) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, value, min);
+        }
+        if (value > max) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_LARGE, value, max);
+        }
+        return value;
+    }
+
+    /**
+     * Generate the first prime numbers with the sieve of Eratosthenes.
+     * @param count number of primes to generate, must be &ge; 6
+     * @return the first count primes, in ascending order
+     */
+    private static int[] generatePrimes(final int count) {
+        // the k-th prime is smaller than k (ln k + ln ln k) for k >= 6 (Rosser)
+        final int bound = (int) (count * (Math.log(count) + Math.log(Math.log(count))));
+        final boolean[] composite = new boolean[bound + 1];
+        final int[] primes = new int[count];
+        int size = 0;
+        for (int i = 2; size < count; i++) {
+            if (!composite[i]) {
+                primes[size++] = i;
+                for (long j = (long) i * i; j <= bound; j += i) {
+                    composite[(int) j] = true;
+                }
+            }
+        }
+        return primes;
+    }
+
     /**
      * Extract small factors.
      * @param n the number to factor, must be &gt; 0.
@@ -79,10 +178,19 @@ class SmallPrimes {
      * @return the part of n which remains to be factored, it is either a prime or a semi-prime
      */
     public static int smallTrialDivision(int n, final List<Integer> factors) {
-        for (int p : PRIMES) {
-            while (0 == n % p) {
-                n = n / p;
-                factors.add(p);
+        final int twos = Integer.numberOfTrailingZeros(n);
+        for (int j = 0; j < twos; j++) {
+            factors.add(2);
+        }
+        n >>>= twos;
+        // divisibility by the odd primes is checked with their inverses, see INVERSES_32
+        for (int i = 1; i < PRIMES.length; i++) {
+            final int inverse = INVERSES_32[i];
+            int quotient = n * inverse;
+            while (Integer.compareUnsigned(quotient, LIMITS_32[i]) <= 0) {
+                n = quotient;
+                factors.add(PRIMES[i]);
+                quotient = n * inverse;
             }
         }
         return n;
@@ -96,7 +204,7 @@ class SmallPrimes {
      * @return  n or 1 if factorization is completed.
      */
     public static int boundedTrialDivision(int n, int maxFactor, List<Integer> factors) {
-        int f = PRIMES_LAST + 2;
+        int f = TRIAL_DIVISION_START;
         // no check is done about n >= f
         while (f <= maxFactor) {
             if (0 == n % f) {
@@ -112,6 +220,7 @@ class SmallPrimes {
             }
             f += 2;
         }
+        PrimesMetrics.recordBoundedTrialDivision((f - TRIAL_DIVISION_START) / 3);
         if (n != 1) {
             factors.add(n);
         }
@@ -135,6 +244,226 @@ class SmallPrimes {
         return factors;
     }
 
+    /**
+     * Extract small factors, without allocation.
+     * @param n the number to factor, must be &gt; 0.
+     * @param factors the array where to store the factors, it must have room for them plus one element.
+     * @return the number of factors stored; the part of n which remains to be factored, it is either 1,
+     * a prime or a semi prime, is stored right after them
+     */
+    static int smallTrialDivision(int n, final int[] factors) {
+        int count = 0;
+        final int twos = Integer.numberOfTrailingZeros(n);
+        while (count < twos) {
+            factors[count++] = 2;
+        }
+        n >>>= twos;
+        // divisibility by the odd primes is checked with their inverses, see INVERSES_32
+        for (int i = 1; i < PRIMES.length; i++) {
+            final int inverse = INVERSES_32[i];
+            int quotient = n * inverse;
+            while (Integer.compareUnsigned(quotient, LIMITS_32[i]) <= 0) {
+                n = quotient;
+                factors[count++] = PRIMES[i];
+                quotient = n * inverse;
+            }
+        }
+        factors[count] = n;
+        return count;
+    }
+
+    /**
+     * Extract factors in the range <code>PRIME_LAST+2</code> to <code>maxFactors</code>, without allocation.
+     * @param n the number to factorize, must be >= PRIME_LAST+2 and must not contain any factor below PRIME_LAST+2
+     * @param maxFactor the upper bound of trial division: if it is reached, the method gives up and stores n.
+     * @param factors the array where to store the factors.
+     * @param count the number of factors already stored in the array.
+     * @return the number of factors stored in the array.
+     */
+    static int boundedTrialDivision(int n, int maxFactor, final int[] factors, int count) {
+        int f = TRIAL_DIVISION_START;
+        // no check is done about n >= f
+        while (f <= maxFactor) {
+            if (0 == n % f) {
+                n = n / f;
+                factors[count++] = f;
+                break;
+            }
+            f += 4;
+            if (0 == n % f) {
+                n = n / f;
+                factors[count++] = f;
+                break;
+            }
+            f += 2;
+        }
+        PrimesMetrics.recordBoundedTrialDivision((f - TRIAL_DIVISION_START) / 3);
+        if (n != 1) {
+            factors[count++] = n;
+        }
+        return count;
+    }
+
+    /**
+     * Factorization by trial division, without allocation.
+     * @param n the number to factor
+     * @param factors the array where to store the prime factors of n, 32 elements are always enough
+     * @return the number of prime factors stored in the array
+     */
+    public static int trialDivision(int n, final int[] factors) {
+        final int count = smallTrialDivision(n, factors);
+        n = factors[count];
+        if (1 == n) {
+            return count;
+        }
+        // here we are sure that n is either a prime or a semi prime
+        final int bound = (int) FastMath.sqrt(n);
+        return boundedTrialDivision(n, bound, factors, count);
+    }
+
+    /**
+     * Extract small factors.
+     * @param n the number to factor, must be &gt; 0.
+     * @param factors the list where to add the factors.
+     * @return the part of n which remains to be factored, it has no factor below <code>PRIMES_LAST+2</code>
+     */
+    public static long smallTrialDivision(long n, final List<Long> factors) {
+        final int twos = Long.numberOfTrailingZeros(n);
+        for (int j = 0; j < twos; j++) {
+            factors.add(2L);
+        }
+        n >>>= twos;
+        // divisibility by the odd primes is checked with their inverses, see INVERSES_64
+        for (int i = 1; i < PRIMES.length; i++) {
+            final long inverse = INVERSES_64[i];
+            long quotient = n * inverse;
+            while (Long.compareUnsigned(quotient, LIMITS_64[i]) <= 0) {
+                n = quotient;
+                factors.add((long) PRIMES[i]);
+                quotient = n * inverse;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Extract factors in the range <code>PRIME_LAST+2</code> to <code>maxFactor</code>.
+     * <p>
+     * Unlike the <code>int</code> version, the remaining part of a <code>long</code> may hold more
+     * than two factors, so the division continues after a factor has been found.
+     * @param n the number to factorize, must be >= PRIME_LAST+2 and must not contain any factor below PRIME_LAST+2
+     * @param maxFactor the upper bound of trial division: if it is reached, the method gives up and returns n.
+     * @param factors the list where to add the factors.
+     * @return  n or 1 if factorization is completed.
+     */
+    public static long boundedTrialDivision(long n, long maxFactor, List<Long> factors) {
+        long f = TRIAL_DIVISION_START;
+        int step = 4;
+        // f alternates between 1 and 5 modulo 6
+        while (f <= maxFactor && f <= n / f) {
+            if (0 == n % f) {
+                n = n / f;
+                factors.add(f);
+            } else {
+                f += step;
+                step = 6 - step;
+            }
+        }
+        PrimesMetrics.recordBoundedTrialDivision((f - TRIAL_DIVISION_START) / 3);
+        if (n != 1) {
+            factors.add(n);
+        }
+        return n;
+    }
+
+    /**
+     * Factorization by trial division.
+     * @param n the number to factor
+     * @return the list of prime factors of n
+     */
+    public static List<Long> trialDivision(long n) {
+        final List<Long> factors = new ArrayList<Long>(64);
+        n = smallTrialDivision(n, factors);
+        if (1 == n) {
+            return factors;
+        }
+        final long bound = (long) FastMath.sqrt(n);
+        boundedTrialDivision(n, bound, factors);
+        return factors;
+    }
+
+    /**
+     * Extract small factors, without allocation.
+     * @param n the number to factor, must be &gt; 0.
+     * @param factors the array where to store the factors, it must have room for them plus one element.
+     * @return the number of factors stored; the part of n which remains to be factored, it has no factor
+     * below <code>PRIMES_LAST+2</code>, is stored right after them
+     */
+    static int smallTrialDivision(long n, final long[] factors) {
+        int count = 0;
+        final int twos = Long.numberOfTrailingZeros(n);
+        while (count < twos) {
+            factors[count++] = 2;
+        }
+        n >>>= twos;
+        // divisibility by the odd primes is checked with their inverses, see INVERSES_64
+        for (int i = 1; i < PRIMES.length; i++) {
+            final long inverse = INVERSES_64[i];
+            long quotient = n * inverse;
+            while (Long.compareUnsigned(quotient, LIMITS_64[i]) <= 0) {
+                n = quotient;
+                factors[count++] = PRIMES[i];
+                quotient = n * inverse;
+            }
+        }
+        factors[count] = n;
+        return count;
+    }
+
+    /**
+     * Extract factors in the range <code>PRIME_LAST+2</code> to <code>maxFactor</code>, without allocation.
+     * @param n the number to factorize, must be >= PRIME_LAST+2 and must not contain any factor below PRIME_LAST+2
+     * @param maxFactor the upper bound of trial division: if it is reached, the method gives up and stores n.
+     * @param factors the array where to store the factors.
+     * @param count the number of factors already stored in the array.
+     * @return the number of factors stored in the array.
+     */
+    static int boundedTrialDivision(long n, long maxFactor, final long[] factors, int count) {
+        long f = TRIAL_DIVISION_START;
+        int step = 4;
+        // f alternates between 1 and 5 modulo 6
+        while (f <= maxFactor && f <= n / f) {
+            if (0 == n % f) {
+                n = n / f;
+                factors[count++] = f;
+            } else {
+                f += step;
+                step = 6 - step;
+            }
+        }
+        PrimesMetrics.recordBoundedTrialDivision((f - TRIAL_DIVISION_START) / 3);
+        if (n != 1) {
+            factors[count++] = n;
+        }
+        return count;
+    }
+
+    /**
+     * Factorization by trial division, without allocation.
+     * @param n the number to factor
+     * @param factors the array where to store the prime factors of n, 64 elements are always enough
+     * @return the number of prime factors stored in the array
+     */
+    public static int trialDivision(long n, final long[] factors) {
+        final int count = smallTrialDivision(n, factors);
+        n = factors[count];
+        if (1 == n) {
+            return count;
+        }
+        final long bound = (long) FastMath.sqrt(n);
+        return boundedTrialDivision(n, bound, factors, count);
+    }
+
     /**
      * Miller-Rabin probabilistic primality test for int type, used in such a way that a result is always guaranteed.
      * <p>
@@ -145,10 +474,52 @@ class SmallPrimes {
      * @return true if n is prime. false if n is definitely composite.
      */
     public static boolean millerRabinPrimeTest(final int n) {
-        final int nMinus1 = n - 1;
-        final int s = Integer.numberOfTrailingZeros(nMinus1);
-        final int r = nMinus1 >> s;
-        //r must be odd, it is not checked here
+        final int t = witnesses(n);
+        PrimesMetrics.recordMillerRabin(t);
+        for (int i = 0; i < t; i++) {
+            if (!strongProbablePrime(n, SmallPrimes.PRIMES[i])) {
+                return false;
+            } // definitely composite
+        }
+        return true; // definitely prime
+    }
+
+    /**
+     * Miller-Rabin primality test for several int numbers at once.
+     * <p>
+     * The bases are the same as in {@link #millerRabinPrimeTest(int)}, but the loops are
+     * interchanged: each base is tried on all the numbers still considered prime before moving
+     * to the next base. The exponentiations of different numbers are independent, so the
+     * processor can overlap them, and most composites are rejected by the first base.
+     *
+     * @param n numbers to test: odd integers &ge; 3
+     * @param count number of elements of n to test
+     * @param prime on return, element i is true if n[i] is prime, false if it is definitely composite
+     */
+    static void millerRabinPrimeTest(final int[] n, final int count, final boolean[] prime) {
+        int maxWitnesses = 0;
+        for (int k = 0; k < count; k++) {
+            prime[k] = true;
+            final int t = witnesses(n[k]);
+            PrimesMetrics.recordMillerRabin(t);
+            maxWitnesses = Math.max(maxWitnesses, t);
+        }
+        for (int i = 0; i < maxWitnesses; i++) {
+            final int base = SmallPrimes.PRIMES[i];
+            for (int k = 0; k < count; k++) {
+                if (prime[k] && i < witnesses(n[k])) {
+                    prime[k] = strongProbablePrime(n[k], base);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the number of Miller-Rabin bases needed for a guaranteed result.
+     * @param n number to test
+     * @return number of first primes to use as bases
+     */
+    private static int witnesses(final int n) {
         int t = 1;
         if (n >= 2047) {
             t = 2;
@@ -159,29 +530,161 @@ class SmallPrimes {
         if (n >= 25326001) {
             t = 4;
         } // works up to 3.2 billion, int range stops at 2.7 so we are safe :-)
-        BigInteger br = BigInteger.valueOf(r);
-        BigInteger bn = BigInteger.valueOf(n);
+        return t;
+    }
 
-        for (int i = 0; i < t; i++) {
-            BigInteger a = BigInteger.valueOf(SmallPrimes.PRIMES[i]);
-            BigInteger bPow = a.modPow(br, bn);
-            int y = bPow.intValue();
-            if ((1 != y) && (y != nMinus1)) {
-                int j = 1;
-                while ((j <= s - 1) && (nMinus1 != y)) {
-                    long square = ((long) y) * y;
-                    y = (int) (square % n);
-                    if (1 == y) {
-                        return false;
-                    } // definitely composite
-                    j++;
-                }
-                if (nMinus1 != y) {
+    /**
+     * Strong probable prime test to one base.
+     * @param n number to test: an odd integer &ge; 3
+     * @param base base of the test
+     * @return false if n is definitely composite
+     */
+    private static boolean strongProbablePrime(final int n, final int base) {
+        final int nMinus1 = n - 1;
+        final int s = Integer.numberOfTrailingZeros(nMinus1);
+        final int r = nMinus1 >> s;
+        //r must be odd, it is not checked here
+        int y = modPow(base, r, n);
+        if ((1 != y) && (y != nMinus1)) {
+            int j = 1;
+            while ((j <= s - 1) && (nMinus1 != y)) {
+                long square = ((long) y) * y;
+                y = (int) (square % n);
+                if (1 == y) {
                     return false;
                 } // definitely composite
+                j++;
+            }
+            if (nMinus1 != y) {
+                return false;
+            } // definitely composite
+        }
+        return true;
+    }
+
+    /**
+     * Miller-Rabin primality test for long type, used in such a way that a result is always guaranteed.
+     * <p>
+     * It uses the first twelve prime numbers as successive bases, which is proven to be correct for all
+     * numbers below 3.18&middot;10<sup>23</sup>, hence for the whole <code>long</code> range. Fewer bases
+     * are used for smaller numbers, following the bounds given by Jaeschke (1993).
+     * The modular arithmetic is done in Montgomery form, with the constants held in locals so that
+     * nothing is allocated. The first base rejects most composites, so it is tried alone; the
+     * exponentiations of the other bases are done two at a time, in lockstep.
+     *
+     * @param n number to test: an odd integer &ge; 3
+     * @return true if n is prime. false if n is definitely composite.
+     */
+    public static boolean millerRabinPrimeTest(final long n) {
+        if (n <= Integer.MAX_VALUE) {
+            return millerRabinPrimeTest((int) n);
+        }
+        final long nMinus1 = n - 1;
+        final int s = Long.numberOfTrailingZeros(nMinus1);
+        final long r = nMinus1 >> s;
+        int t = 4;
+        if (n >= 3215031751L) {
+            t = 5;
+        }
+        if (n >= 2152302898747L) {
+            t = 6;
+        }
+        if (n >= 3474749660383L) {
+            t = 7;
+        }
+        if (n >= 341550071728321L) {
+            t = 9;
+        }
+        if (n >= 3825123056546413051L) {
+            t = 12;
+        }
+        PrimesMetrics.recordMillerRabin(t);
+
+        final long nInv = MontgomeryContext.inverse(n);
+        final long one  = MontgomeryContext.one(n);
+        final long r2   = MontgomeryContext.r2(n, one);
+
+        // most composites are rejected by the first base, the others are tried two at a time
+        final long y0 = MontgomeryContext.pow(MontgomeryContext.multiply(PRIMES[0], r2, n, nInv), r, one, n, nInv);
+        if (!strongProbablePrime(y0, s, one, n, nInv)) {
+            return false;
+        }
+        int i = 1;
+        for (; i + 1 < t; i += 2) {
+            // the two products are independent, so the processor can overlap them
+            long a1 = MontgomeryContext.multiply(PRIMES[i], r2, n, nInv);
+            long a2 = MontgomeryContext.multiply(PRIMES[i + 1], r2, n, nInv);
+            long y1 = one;
+            long y2 = one;
+            for (long bits = r; bits != 0; bits >>>= 1) {
+                if ((bits & 1) != 0) {
+                    y1 = MontgomeryContext.multiply(y1, a1, n, nInv);
+                    y2 = MontgomeryContext.multiply(y2, a2, n, nInv);
+                }
+                a1 = MontgomeryContext.multiply(a1, a1, n, nInv);
+                a2 = MontgomeryContext.multiply(a2, a2, n, nInv);
             }
+            if (!strongProbablePrime(y1, s, one, n, nInv) || !strongProbablePrime(y2, s, one, n, nInv)) {
+                return false;
+            } // definitely composite
+        }
+        if (i < t) {
+            final long y = MontgomeryContext.pow(MontgomeryContext.multiply(PRIMES[i], r2, n, nInv), r, one, n, nInv);
+            if (!strongProbablePrime(y, s, one, n, nInv)) {
+                return false;
+            } // definitely composite
         }
         return true; // definitely prime
     }
-}
 
+    /**
+     * End of a strong probable prime test in Montgomery form.
+     * @param y base<sup>r</sup>, in Montgomery form, where n - 1 = r&middot;2<sup>s</sup> with r odd
+     * @param s number of trailing zeros of n - 1
+     * @param one Montgomery form of 1
+     * @param n the number to test
+     * @param nInv n<sup>-1</sup> mod 2<sup>64</sup>
+     * @return false if n is definitely composite
+     */
+    private static boolean strongProbablePrime(long y, final int s, final long one, final long n, final long nInv) {
+        final long minusOne = n - one;
+        if ((one != y) && (y != minusOne)) {
+            int j = 1;
+            while ((j <= s - 1) && (minusOne != y)) {
+                y = MontgomeryContext.multiply(y, y, n, nInv);
+                if (one == y) {
+                    return false;
+                } // definitely composite
+                j++;
+            }
+            if (minusOne != y) {
+                return false;
+            } // definitely composite
+        }
+        return true;
+    }
+
+    /**
+     * Modular exponentiation within the <code>int</code> range.
+     * <p>
+     * All intermediate products are smaller than 2<sup>62</sup>, so they are computed with plain
+     * <code>long</code> arithmetic and no object is allocated.
+     *
+     * @param a the base, must be &ge; 0
+     * @param e the exponent, must be &ge; 0
+     * @param m the modulus, must be &gt; 1
+     * @return a<sup>e</sup> mod m
+     */
+    static int modPow(final int a, int e, final int m) {
+        long base = a % m;
+        long result = 1;
+        while (e != 0) {
+            if ((e & 1) != 0) {
+                result = (result * base) % m;
+            }
+            base = (base * base) % m;
+            e >>>= 1;
+        }
+        return (int) result;
+    }
+}
@@ -0,0 +1,167 @@
+package experimento;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+
+/**
+ * Table of the smallest prime factor of all numbers up to a bound.
+ * <p>
+ * The table is built once by a linear sieve, then factorizes any number below the bound in
+ * O(log n) steps, walking from n to n / spf(n). It is meant for workloads factoring most of
+ * the numbers of a range, see {@link Primes#setSmallestPrimeFactorTable(SmallestPrimeFactorTable)}.
+ * <p>
+ * Only odd numbers are stored, two bytes each: the smallest prime factor of an odd composite
+ * number is at most its square root, which is always below 2<sup>16</sup> in the <code>int</code>
+ * range. A bound of 10<sup>8</sup> therefore uses 100 MB.
+ * <p>
+ * Instances are immutable and thread safe once built.
+ * @version $Id$
+ * @since 3.2
+ */
+public final class SmallestPrimeFactorTable {
+
+    /** Largest number covered by the table. */
+    private final int bound;
+
+    /** Smallest prime factor of odd numbers: element i for 2i+1, 0 for primes (and 1). */
+    private final char[] spf;
+
+    /**
+     * Build the table.
+     * @param bound largest number covered by the table, must be &ge; 2
+     * @throws MathIllegalArgumentException if bound &lt; 2
+     */
+    public SmallestPrimeFactorTable(final int bound) {
+        if (bound < 2) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NUMBER_TOO_SMALL, bound, 2);
+        }
+        this.bound = bound;
+        this.spf   = new char[(bound >>> 1) + 1];
+
+        // linear sieve over odd numbers: each odd composite c is written exactly once,
+        // as p * i where p = spf(c) and i = c / p, with p <= spf(i)
+        final int sqrt = (int) FastMath.sqrt(bound);
+        final int[] primes = new int[sqrt / 2 + 1];
+        int nbPrimes = 0;
+        for (int i = 3; i <= bound / 3; i += 2) {
+            int s = spf[i >>> 1];
+            if (s == 0) {
+                s = i;
+                if (i <= sqrt) {
+                    primes[nbPrimes++] = i;
+                }
+            }
+            final int max = Math.min(s, bound / i);
+            for (int j = 0; j < nbPrimes && primes[j] <= max; j++) {
+                spf[(i * primes[j]) >>> 1] = (char) primes[j];
+            }
+        }
+    }
+
+    /**
+     * Get the largest number covered by the table.
+     * @return largest number covered by the table
+     */
+    public int getBound() {
+        return bound;
+    }
+
+    /**
+     * Get the smallest prime factor of a number.
+     * @param n number, must be between 2 and {@link #getBound()}
+     * @return smallest prime factor of n
+     */
+    public int smallestPrimeFactor(final int n) {
+        if ((n & 1) == 0) {
+            return 2;
+        }
+        final int s = spf[n >>> 1];
+        return s == 0 ? n : s;
+    }
+
+    /**
+     * Prime factors decomposition.
+     * @param n number to factorize, must be between 2 and {@link #getBound()}
+     * @return list of prime factors of n, in ascending order
+     */
+    public List<Integer> primeFactors(final int n) {
+        final int[] buffer = new int[32];
+        final int count = primeFactors(n, buffer);
+        final List<Integer> factors = new ArrayList<Integer>(count);
+        for (int i = 0; i < count; i++) {
+            factors.add(buffer[i]);
+        }
+        return factors;
+    }
+
+    /**
+     * Prime factors decomposition, without allocation.
+     * @param n number to factorize, must be between 2 and {@link #getBound()}
+     * @param factors array where to store the prime factors of n in ascending order, an array
+     * of 31 elements is always large enough
+     * @return the number of prime factors stored in the array
+     */
+    public int primeFactors(int n, final int[] factors) {
+        int count = 0;
+        final int twos = Integer.numberOfTrailingZeros(n);
+        while (count < twos) {
+            factors[count++] = 2;
+        }
+        n >>>= twos;
+        while (n > 1) {
+            final int p = smallestPrimeFactor(n);
+            factors[count++] = p;
+            n /= p;
+        }
+        return count;
+    }
+
+    /**
+     * Decomposition into prime powers, without allocation.
+     * @param n number to factorize, must be between 2 and {@link #getBound()}
+     * @param powers array where to store the distinct primes of n, each one followed by its
+     * exponent, in ascending order; an array of 18 elements is always large enough
+     * @return the number of distinct primes stored in the array
+     * @see Primes#primePowers(int, int[])
+     */
+    public int primePowers(int n, final int[] powers) {
+        int k = 0;
+        final int twos = Integer.numberOfTrailingZeros(n);
+        if (twos > 0) {
+            powers[k++] = 2;
+            powers[k++] = twos;
+            n >>>= twos;
+        }
+        while (n > 1) {
+            final int p = smallestPrimeFactor(n);
+            int e = 0;
+            do {
+                n /= p;
+                ++e;
+            } while (n > 1 && smallestPrimeFactor(n) == p);
+            powers[k++] = p;
+            powers[k++] = e;
+        }
+        return k >> 1;
+    }
+}